@@ -0,0 +1,47 @@
+package de.huberlin.wbi.dcs.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of DynamicCloudSim with JMH. Accepts the same arguments as JMH's own main
+ * class, e.g., a regular expression selecting the benchmarks to run or <tt>-prof gc</tt> to report
+ * allocation rates. Unless specified otherwise by <tt>-rf</tt> and <tt>-rff</tt>, the results are
+ * written as JSON to <tt>jmh-result.json</tt>, such that they can be compared across revisions.
+ * <p>
+ * The benchmarks read the workflows from the <tt>examples</tt> folder and thus have to be run from
+ * the root of the repository, e.g., <tt>java -jar benchmarks/target/benchmarks.jar</tt>.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		if (commandLineOptions.shouldHelp()) {
+			commandLineOptions.showHelp();
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		if (!commandLineOptions.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLineOptions.getResult().hasValue()) {
+			options.result("jmh-result.json");
+		}
+
+		Runner runner = new Runner(options.build());
+		if (commandLineOptions.shouldList()) {
+			runner.list();
+		} else {
+			runner.run();
+		}
+	}
+
+}
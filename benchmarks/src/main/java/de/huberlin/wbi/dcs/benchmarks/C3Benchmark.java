@@ -0,0 +1,55 @@
+package de.huberlin.wbi.dcs.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.huberlin.wbi.dcs.examples.Parameters;
+import de.huberlin.wbi.dcs.examples.Parameters.Experiment;
+import de.huberlin.wbi.dcs.examples.Parameters.Scheduler;
+import de.huberlin.wbi.dcs.examples.WorkflowExample;
+import de.huberlin.wbi.dcs.workflow.scheduler.C3;
+
+/**
+ * Measures the wall-clock time of simulating a single run of {@link WorkflowExample} with the
+ * {@link C3} scheduler on large workflows and many VMs, where each of the scheduler's decisions
+ * considers all task categories and VMs. Note that the decisions are only part of the measured
+ * time, which also includes the rest of the simulation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class C3Benchmark {
+
+	@Param({ "MONTAGE_1000", "CYBERSHAKE_1000" })
+	public String workflow;
+
+	@Param({ "256", "512" })
+	public int nVms;
+
+	@Setup
+	public void setUp() {
+		Parameters.scheduler = Scheduler.C3;
+		Parameters.experiment = Experiment.valueOf(workflow);
+		Parameters.nVms = nVms;
+	}
+
+	@Benchmark
+	public double runSimulation() {
+		return WorkflowExample.runSimulation(0).getRuntime();
+	}
+
+}
@@ -0,0 +1,92 @@
+package de.huberlin.wbi.dcs.benchmarks;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.huberlin.wbi.dcs.examples.Parameters;
+import de.huberlin.wbi.dcs.examples.Parameters.EventQueue;
+
+/**
+ * Measures a single clock tick of CloudSim, i.e., a call to {@link CloudSim#runClockTick()}, in a
+ * simulation of entities that do nothing but repeatedly send an event to themselves after an
+ * exponentially distributed delay. Hence, the simulation never runs out of events and the
+ * benchmark captures the overhead of the simulation kernel only.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClockTickBenchmark {
+
+	@Param({ "TREE_SET", "BINARY_HEAP", "QUATERNARY_HEAP", "CALENDAR", "LADDER" })
+	public String eventQueue;
+
+	@Param({ "10", "1000" })
+	public int numberOfEntities;
+
+	@Setup
+	public void setUp() {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false, Parameters.getFutureQueue(EventQueue.valueOf(eventQueue)));
+		for (int i = 0; i < numberOfEntities; i++) {
+			new HoldEntity("HoldEntity_" + i, new Random(i));
+		}
+		CloudSim.runStart();
+	}
+
+	@Benchmark
+	public boolean runClockTick() {
+		return CloudSim.runClockTick();
+	}
+
+	private static class HoldEntity extends SimEntity {
+
+		private static final int HOLD = 0;
+
+		private final Random numGen;
+
+		public HoldEntity(String name, Random numGen) {
+			super(name);
+			this.numGen = numGen;
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), nextDelay(), HOLD);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			schedule(getId(), nextDelay(), HOLD);
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+		private double nextDelay() {
+			return -Math.log(1d - numGen.nextDouble());
+		}
+
+	}
+
+}
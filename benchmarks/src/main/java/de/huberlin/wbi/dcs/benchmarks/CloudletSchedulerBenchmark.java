@@ -0,0 +1,90 @@
+package de.huberlin.wbi.dcs.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.huberlin.wbi.dcs.CloudletSchedulerGreedyDivided;
+import de.huberlin.wbi.dcs.DynamicModel;
+import de.huberlin.wbi.dcs.DynamicVm;
+import de.huberlin.wbi.dcs.HeterogeneousCloudlet;
+import de.huberlin.wbi.dcs.examples.Parameters;
+import de.huberlin.wbi.dcs.examples.Parameters.RandomStream;
+import de.huberlin.wbi.dcs.examples.WorkflowExample;
+
+/**
+ * Measures a single call to {@link CloudletSchedulerGreedyDivided#updateVmProcessing(double, List)}
+ * on a VM, whose task slots are all occupied by long-running cloudlets. Run with <tt>-prof gc</tt>
+ * to report the allocation per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CloudletSchedulerBenchmark {
+
+	@Param({ "1", "4" })
+	public int taskSlotsPerVm;
+
+	private CloudletSchedulerGreedyDivided scheduler;
+
+	private List<Double> mipsShare;
+
+	private double time;
+
+	@Setup
+	public void setUp() {
+		Log.disable();
+		Parameters.taskSlotsPerVm = taskSlotsPerVm;
+		CloudSim.init(1, Calendar.getInstance(), false, Parameters.getFutureQueue(Parameters.eventQueue));
+		Datacenter datacenter = WorkflowExample.createDatacenter("Datacenter");
+		Host host = datacenter.getHostList().get(0);
+
+		scheduler = new CloudletSchedulerGreedyDivided();
+		DynamicVm vm = new DynamicVm(0, 0, Parameters.numberOfCusPerPe, Parameters.numberOfPes, Parameters.ram, 10000, "Xen", scheduler, new DynamicModel(
+		    Parameters.getRandomStream(RandomStream.VM, 0)), null, taskSlotsPerVm);
+		host.vmCreate(vm);
+		mipsShare = new ArrayList<>();
+		for (int i = 0; i < vm.getNumberOfPes(); i++) {
+			mipsShare.add(vm.getMips());
+		}
+
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		// long enough not to finish, but short enough not to overflow when converted to
+		// instructions by ResCloudlet
+		long length = 1L << 40;
+		for (int i = 0; i < taskSlotsPerVm; i++) {
+			HeterogeneousCloudlet cloudlet = new HeterogeneousCloudlet(i, length, length, length, 1, 0, 0, utilizationModel, utilizationModel, utilizationModel);
+			cloudlet.setResourceParameter(datacenter.getId(), 0);
+			scheduler.cloudletSubmit(cloudlet, 0);
+		}
+		time = 0d;
+	}
+
+	@Benchmark
+	public double updateVmProcessing() {
+		return scheduler.updateVmProcessing(++time, mipsShare);
+	}
+
+}
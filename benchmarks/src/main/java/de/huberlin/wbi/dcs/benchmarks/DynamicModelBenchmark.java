@@ -0,0 +1,59 @@
+package de.huberlin.wbi.dcs.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.huberlin.wbi.dcs.DynamicModel;
+import de.huberlin.wbi.dcs.examples.Parameters;
+import de.huberlin.wbi.dcs.examples.Parameters.Distribution;
+import de.huberlin.wbi.dcs.examples.Parameters.RandomStream;
+
+/**
+ * Measures a single update of a VM's performance, i.e., a call to
+ * {@link DynamicModel#updateBaselines(double)} followed by sampling the MI, IO, and BW
+ * coefficients, for each distribution that is parameterized by mean and coefficient of variation
+ * only. Run with <tt>-prof gc</tt> to report the allocation per update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicModelBenchmark {
+
+	@Param({ "NORMAL", "LOGNORMAL", "EXPONENTIAL" })
+	public String distribution;
+
+	/** The simulated seconds between two updates. */
+	@Param({ "10" })
+	public double timespan;
+
+	private DynamicModel dynamicModel;
+
+	@Setup
+	public void setUp() {
+		Distribution d = Distribution.valueOf(distribution);
+		Parameters.cpuDynamicsDistribution = Parameters.ioDynamicsDistribution = Parameters.bwDynamicsDistribution = d;
+		Parameters.cpuNoiseDistribution = Parameters.ioNoiseDistribution = Parameters.bwNoiseDistribution = d;
+		dynamicModel = new DynamicModel(Parameters.getRandomStream(RandomStream.VM, 0));
+	}
+
+	@Benchmark
+	public double update() {
+		dynamicModel.updateBaselines(timespan);
+		return dynamicModel.nextMiCoefficient() + dynamicModel.nextIoCoefficient() + dynamicModel.nextBwCoefficient();
+	}
+
+}
@@ -0,0 +1,114 @@
+package de.huberlin.wbi.dcs.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.File;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.huberlin.wbi.dcs.examples.Parameters;
+import de.huberlin.wbi.dcs.examples.WorkflowExample;
+import de.huberlin.wbi.dcs.workflow.Task;
+import de.huberlin.wbi.dcs.workflow.Workflow;
+import de.huberlin.wbi.dcs.workflow.scheduler.HEFTScheduler;
+
+/**
+ * Measures the time {@link HEFTScheduler} takes to plan a synthetic workflow, whose tasks are
+ * arranged in layers of 100 tasks, each of which consumes the output of two random tasks of the
+ * previous layer. The VMs are created as in {@link WorkflowExample} and placed on the hosts of its
+ * datacenter, which determine their speeds. Every iteration plans the same workflow with a new
+ * scheduler, either sequentially or with several threads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HEFTSchedulerBenchmark {
+
+	private static final int WIDTH = 100;
+
+	@Param({ "1000", "100000" })
+	public int nTasks;
+
+	@Param({ "8", "256" })
+	public int nVms;
+
+	@Param({ "1", "4" })
+	public int numberOfPlanningThreads;
+
+	private List<Task> tasks;
+
+	private List<Vm> vms;
+
+	private HEFTScheduler scheduler;
+
+	@Setup(Level.Trial)
+	public void setUpWorkflow() throws Exception {
+		Log.disable();
+		Parameters.nVms = nVms;
+		// files require the simulation calendar
+		CloudSim.init(1, Calendar.getInstance(), false, Parameters.getFutureQueue(Parameters.eventQueue));
+		Random numGen = new Random(0);
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		Workflow workflow = new Workflow();
+		tasks = new ArrayList<>();
+		for (int i = 0; i < nTasks; i++) {
+			Task task = new Task("layer_" + (i / WIDTH), "", workflow, 0, i, 1 + numGen.nextInt(100000), 1 + numGen.nextInt(100000),
+			    1 + numGen.nextInt(100000), 1, 1, 1, utilizationModel, utilizationModel, utilizationModel);
+			workflow.addTask(task);
+			if (i >= WIDTH) {
+				int previousLayer = (i / WIDTH - 1) * WIDTH;
+				for (int j = 0; j < 2; j++) {
+					Task producer = tasks.get(previousLayer + numGen.nextInt(WIDTH));
+					List<Task> consumers = new ArrayList<>();
+					consumers.add(task);
+					workflow.addFile(new File("file_" + i + "_" + j, 1), producer, consumers);
+				}
+			}
+			tasks.add(task);
+		}
+		vms = WorkflowExample.createVMList(0, null);
+		Datacenter datacenter = WorkflowExample.createDatacenter("Datacenter");
+		for (Vm vm : vms) {
+			if (!datacenter.getVmAllocationPolicy().allocateHostForVm(vm)) {
+				throw new IllegalStateException("No host for VM #" + vm.getId());
+			}
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpScheduler() throws Exception {
+		CloudSim.init(1, Calendar.getInstance(), false, Parameters.getFutureQueue(Parameters.eventQueue));
+		Parameters.numberOfPlanningThreads = numberOfPlanningThreads;
+		scheduler = new HEFTScheduler("HEFTScheduler", Parameters.taskSlotsPerVm);
+	}
+
+	@Benchmark
+	public HEFTScheduler reschedule() {
+		scheduler.reschedule(tasks, vms);
+		return scheduler;
+	}
+
+}
@@ -0,0 +1,92 @@
+package de.huberlin.wbi.dcs.benchmarks;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.huberlin.wbi.dcs.examples.Parameters;
+import de.huberlin.wbi.dcs.workflow.Workflow;
+import de.huberlin.wbi.dcs.workflow.io.DaxFileReader;
+import de.huberlin.wbi.dcs.workflow.io.WorkflowCache;
+
+/**
+ * Compares the time it takes to parse each of the DAX workflows in the <tt>examples</tt> folder
+ * with loading the same workflow from a {@link WorkflowCache}, both with and without hashing the
+ * input to find the cached workflow.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WorkflowCacheBenchmark {
+
+	@Param({ "Montage_25.xml", "Montage_1000.xml", "CyberShake_1000.xml", "Epigenomics_997.xml" })
+	public String workflow;
+
+	private String filePath;
+
+	private Path directory;
+
+	private Path cacheFile;
+
+	private WorkflowCache cache;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Log.disable();
+		// files require the simulation calendar
+		CloudSim.init(1, Calendar.getInstance(), false, Parameters.getFutureQueue(Parameters.eventQueue));
+		filePath = "examples/" + workflow;
+		directory = Files.createTempDirectory("workflow-cache");
+		cache = new WorkflowCache(directory.toString());
+		cache.parseLogFile(new DaxFileReader(), 0, filePath, true, true, null);
+		cacheFile = directory.resolve(workflow + ".wf");
+		try (OutputStream out = Files.newOutputStream(cacheFile)) {
+			WorkflowCache.writeWorkflow(new DaxFileReader().parseLogFile(0, filePath, true, true, null), out);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		for (Path file : Files.newDirectoryStream(directory)) {
+			Files.delete(file);
+		}
+		Files.delete(directory);
+	}
+
+	@Benchmark
+	public Workflow parseDax() {
+		return new DaxFileReader().parseLogFile(0, filePath, true, true, null);
+	}
+
+	@Benchmark
+	public Workflow readWorkflow() throws Exception {
+		return WorkflowCache.readWorkflow(cacheFile, 0);
+	}
+
+	@Benchmark
+	public Workflow loadFromCache() {
+		return cache.parseLogFile(new DaxFileReader(), 0, filePath, true, true, null);
+	}
+
+}
@@ -0,0 +1,53 @@
+package de.huberlin.wbi.dcs.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.huberlin.wbi.dcs.examples.Parameters;
+import de.huberlin.wbi.dcs.examples.Parameters.Experiment;
+import de.huberlin.wbi.dcs.examples.Parameters.Scheduler;
+import de.huberlin.wbi.dcs.examples.WorkflowExample;
+
+/**
+ * Measures the wall-clock time of simulating a single run of {@link WorkflowExample} for each
+ * workflow scheduler on each of the DAX workflows in the <tt>examples</tt> folder, including
+ * parsing the workflow. Every invocation simulates the same run, such that the measurements are
+ * comparable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WorkflowSchedulerBenchmark {
+
+	@Param({ "STATIC_ROUND_ROBIN", "HEFT", "JOB_QUEUE", "LATE", "C3", "ERA" })
+	public String scheduler;
+
+	@Param({ "MONTAGE_25", "MONTAGE_1000", "CYBERSHAKE_1000", "EPIGENOMICS_997" })
+	public String workflow;
+
+	@Setup
+	public void setUp() {
+		Parameters.scheduler = Scheduler.valueOf(scheduler);
+		Parameters.experiment = Experiment.valueOf(workflow);
+	}
+
+	@Benchmark
+	public double runSimulation() {
+		return WorkflowExample.runSimulation(0).getRuntime();
+	}
+
+}
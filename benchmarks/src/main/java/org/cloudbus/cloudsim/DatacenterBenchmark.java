@@ -0,0 +1,71 @@
+package org.cloudbus.cloudsim;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.huberlin.wbi.dcs.HeterogeneousCloudlet;
+import de.huberlin.wbi.dcs.examples.Parameters;
+import de.huberlin.wbi.dcs.examples.WorkflowExample;
+
+/**
+ * Measures a single call to {@link Datacenter#updateCloudletProcessing()} in the datacenter of
+ * {@link WorkflowExample}, whose VMs are created as in the example and whose task slots are all
+ * occupied by long-running cloudlets. The simulation is not started, such that the clock remains at
+ * zero and the datacenter updates all of its VMs on every call without scheduling further events.
+ * This benchmark resides in CloudSim's package, since the method is protected.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatacenterBenchmark {
+
+	@Param({ "1", "4" })
+	public int taskSlotsPerVm;
+
+	private Datacenter datacenter;
+
+	@Setup
+	public void setUp() {
+		Log.disable();
+		Parameters.taskSlotsPerVm = taskSlotsPerVm;
+		CloudSim.init(1, Calendar.getInstance(), false, Parameters.getFutureQueue(Parameters.eventQueue));
+		datacenter = WorkflowExample.createDatacenter("Datacenter");
+
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		// long enough not to finish, but short enough not to overflow when converted to
+		// instructions by ResCloudlet
+		long length = 1L << 40;
+		int cloudletId = 0;
+		for (Vm vm : WorkflowExample.createVMList(0, null)) {
+			datacenter.getVmAllocationPolicy().allocateHostForVm(vm);
+			for (int i = 0; i < taskSlotsPerVm; i++) {
+				HeterogeneousCloudlet cloudlet = new HeterogeneousCloudlet(cloudletId++, length, length, length, 1, 0, 0, utilizationModel, utilizationModel,
+				    utilizationModel);
+				cloudlet.setResourceParameter(datacenter.getId(), 0);
+				vm.getCloudletScheduler().cloudletSubmit(cloudlet, 0);
+			}
+		}
+	}
+
+	@Benchmark
+	public void updateCloudletProcessing() {
+		datacenter.updateCloudletProcessing();
+	}
+
+}
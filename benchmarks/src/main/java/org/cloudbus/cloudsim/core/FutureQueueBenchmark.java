@@ -0,0 +1,67 @@
+package org.cloudbus.cloudsim.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.huberlin.wbi.dcs.examples.Parameters;
+import de.huberlin.wbi.dcs.examples.Parameters.EventQueue;
+
+/**
+ * Measures insertions into and removals from each of the data structures available for CloudSim's
+ * future event queue, following the classic hold model: the queue holds a constant number of
+ * events, and each operation removes the earliest event and inserts a new event an exponentially
+ * distributed delay later. This benchmark resides in CloudSim's core package, since events can only
+ * be created there.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FutureQueueBenchmark {
+
+	@Param({ "TREE_SET", "BINARY_HEAP", "QUATERNARY_HEAP", "CALENDAR", "LADDER" })
+	public String eventQueue;
+
+	@Param({ "100", "10000" })
+	public int size;
+
+	private FutureQueue future;
+
+	private Random numGen;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		future = Parameters.getFutureQueue(EventQueue.valueOf(eventQueue));
+		numGen = new Random(0);
+		for (int i = 0; i < size; i++) {
+			future.addEvent(new SimEvent(SimEvent.SEND, nextDelay(), i, i, 0, null));
+		}
+	}
+
+	@Benchmark
+	public SimEvent hold() {
+		SimEvent first = future.poll();
+		future.addEvent(new SimEvent(SimEvent.SEND, first.eventTime() + nextDelay(), first.getSource(), first.getDestination(), 0, null));
+		return first;
+	}
+
+	private double nextDelay() {
+		return -Math.log(1d - numGen.nextDouble());
+	}
+
+}
@@ -1,10 +1,8 @@
 package de.huberlin.wbi.dcs;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Cloudlet;
@@ -23,25 +21,29 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 	/** The Vm on which this scheduler operates */
 	private DynamicVm vm;
 
-	private HashMap<Integer, Integer> cloudletIdToTaskSlot;
-	private HashSet<Integer> occupiedTaskSlots;
+	private TaskSlotMap cloudletIdToTaskSlot;
+	private boolean[] occupiedTaskSlots;
 
 	// index 0: unassigned (available resources)
 	// index i: assigned to task slot i
-	private ArrayList<Double> mips;
-	private ArrayList<Double> iops;
-	private ArrayList<Double> bwps;
+	// only the first numberOfTaskSlots + 1 entries are in use
+	private double[] mips;
+	private double[] iops;
+	private double[] bwps;
+	private int numberOfTaskSlots;
+
+	// reused by every call to updateVmProcessing to avoid garbage
+	private final List<ResCloudlet> finishedCloudlets;
 
 	public CloudletSchedulerGreedyDivided() {
 		super();
-		cloudletIdToTaskSlot = new HashMap<>();
-		occupiedTaskSlots = new HashSet<>();
-		mips = new ArrayList<>(0);
-		iops = new ArrayList<>(0);
-		bwps = new ArrayList<>(0);
-		mips.add(0d);
-		iops.add(0d);
-		bwps.add(0d);
+		cloudletIdToTaskSlot = new TaskSlotMap();
+		occupiedTaskSlots = new boolean[1];
+		mips = new double[1];
+		iops = new double[1];
+		bwps = new double[1];
+		numberOfTaskSlots = 0;
+		finishedCloudlets = new ArrayList<>();
 	}
 
 	// Cloudlets utilize Resources in greedy fashion (take as many resources as
@@ -56,9 +58,10 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 		computeAvailableResources(mipsShare);
 
 		// (1) update computation of all Cloudlets running on this VM
-		List<ResCloudlet> toRemove = new ArrayList<>();
+		List<ResCloudlet> execList = getCloudletExecList();
 		double nextEvent = Double.MAX_VALUE;
-		for (ResCloudlet rcl : getCloudletExecList()) {
+		for (int i = 0; i < execList.size(); i++) {
+			ResCloudlet rcl = execList.get(i);
 			double estimatedFinishTime = Double.MAX_VALUE;
 			double assignedMips = assignResources(rcl);
 
@@ -74,7 +77,7 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 
 			long remainingLength = rcl.getRemainingCloudletLength();
 			if (remainingLength == 0) {// finished: remove from the list
-				toRemove.add(rcl);
+				finishedCloudlets.add(rcl);
 			} else {
 				if (estimatedFinishTime < nextEvent) {
 					nextEvent = estimatedFinishTime;
@@ -82,18 +85,15 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 			}
 		}
 
-		if (Parameters.outputVmPerformanceLogs) {
+		if (vm.getPerformanceLog() != null) {
 			dumpCurrentResourceAssignmentsToLog(getPreviousTime());
 			dumpCurrentResourceAssignmentsToLog(currentTime);
 		}
 
 		// (2) remove finished cloudlets
-		for (ResCloudlet rcl : toRemove) {
-			int taskSlot = cloudletIdToTaskSlot.get(rcl.getCloudletId());
-			occupiedTaskSlots.remove(taskSlot);
-			mips.set(taskSlot, 0d);
-			iops.set(taskSlot, 0d);
-			bwps.set(taskSlot, 0d);
+		for (int i = 0; i < finishedCloudlets.size(); i++) {
+			ResCloudlet rcl = finishedCloudlets.get(i);
+			freeTaskSlot(cloudletIdToTaskSlot.remove(rcl.getCloudletId()));
 			cloudletFinish(rcl);
 			if (rcl.getCloudlet() instanceof Task) {
 				Task task = (Task) rcl.getCloudlet();
@@ -106,9 +106,10 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 				}
 			}
 		}
-		getCloudletExecList().removeAll(toRemove);
+		execList.removeAll(finishedCloudlets);
+		finishedCloudlets.clear();
 
-		if (getCloudletExecList().size() == 0) {
+		if (execList.size() == 0) {
 			setPreviousTime(currentTime);
 			computeAvailableResources(mipsShare);
 			return 0.0;
@@ -117,7 +118,7 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 		// (3) update VM performance (involves removal of next event in the
 		// future queue previously scheduled by this scheduler)
 		if (vm != null) {
-			vm.getHost().getDatacenter().cancelEvent(new PredicateTime(nextEvent, 0.001));
+			vm.getHost().getDatacenter().cancelEvent(nextEvent - 0.001, nextEvent + 0.001, new PredicateTime(nextEvent, 0.001));
 		}
 		vm.updatePerformanceCoefficients();
 		computeAvailableResources(mipsShare);
@@ -126,7 +127,8 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 		// Datacenter
 		// to decide, when to generate the next event
 		nextEvent = Double.MAX_VALUE;
-		for (ResCloudlet rcl : getCloudletExecList()) {
+		for (int i = 0; i < execList.size(); i++) {
+			ResCloudlet rcl = execList.get(i);
 			double estimatedFinishTime = Double.MAX_VALUE;
 			double assignedMips = assignResources(rcl);
 
@@ -150,43 +152,56 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 	public Cloudlet cloudletCancel(int cloudletId) {
 		Cloudlet cl = super.cloudletCancel(cloudletId);
 
-		if (cl != null) {
-			int taskSlot = cloudletIdToTaskSlot.get(cl.getCloudletId());
-			occupiedTaskSlots.remove(taskSlot);
-			mips.set(taskSlot, 0d);
-			iops.set(taskSlot, 0d);
-			bwps.set(taskSlot, 0d);
+		// a cloudlet that has already finished no longer holds a task slot
+		if (cl != null && cloudletIdToTaskSlot.containsKey(cl.getCloudletId())) {
+			freeTaskSlot(cloudletIdToTaskSlot.remove(cl.getCloudletId()));
 		}
 
 		return cl;
 	}
 
+	private void occupyTaskSlot(int cloudletId) {
+		int taskSlot = 1;
+		while (taskSlot <= numberOfTaskSlots && occupiedTaskSlots[taskSlot]) {
+			taskSlot++;
+		}
+		if (taskSlot > numberOfTaskSlots) {
+			numberOfTaskSlots = taskSlot;
+			if (taskSlot >= mips.length) {
+				int capacity = Math.max(taskSlot + 1, 2 * mips.length);
+				occupiedTaskSlots = Arrays.copyOf(occupiedTaskSlots, capacity);
+				mips = Arrays.copyOf(mips, capacity);
+				iops = Arrays.copyOf(iops, capacity);
+				bwps = Arrays.copyOf(bwps, capacity);
+			}
+		}
+		occupiedTaskSlots[taskSlot] = true;
+
+		cloudletIdToTaskSlot.put(cloudletId, taskSlot);
+	}
+
+	private void freeTaskSlot(int taskSlot) {
+		occupiedTaskSlots[taskSlot] = false;
+		mips[taskSlot] = 0d;
+		iops[taskSlot] = 0d;
+		bwps[taskSlot] = 0d;
+	}
+
 	private void dumpCurrentResourceAssignmentsToLog(double currentTime) {
-		try (BufferedWriter log = vm.getPerformanceLog()) {
-			if (!(mips.size() <= vm.getTaskSlots())) {
-				log.write(Double.toString(currentTime / 60));
-				// log.write(Double.toString(currentTime));
-				for (int i = mips.size() - 1; i >= 0; i--) {
-					log.write("," + mips.get(i));
-				}
-				for (int i = iops.size() - 1; i >= 0; i--) {
-					log.write("," + iops.get(i));
-				}
-				for (int i = bwps.size() - 1; i >= 0; i--) {
-					log.write("," + bwps.get(i));
-				}
-				log.write("\n");
+		if (numberOfTaskSlots >= vm.getTaskSlots()) {
+			try {
+				vm.getPerformanceLog().append(currentTime / 60, vm.getId(), mips, iops, bwps);
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
 	}
 
 	private void computeAvailableResources(List<Double> mipsShare) {
-		mips.set(0, getTotalMips(mipsShare) * vm.getCurrentMiCoefficient());
-		iops.set(0, vm.getIo() * vm.getCurrentIoCoefficient());
-		bwps.set(0, vm.getBw() * vm.getCurrentBwCoefficient());
-		miPerVMPe = mips.get(0) / currentCPUs;
+		mips[0] = getTotalMips(mipsShare) * vm.getCurrentMiCoefficient();
+		iops[0] = vm.getIo() * vm.getCurrentIoCoefficient();
+		bwps[0] = vm.getBw() * vm.getCurrentBwCoefficient();
+		miPerVMPe = mips[0] / currentCPUs;
 	}
 
 	private double assignResources(ResCloudlet rcl) {
@@ -215,15 +230,15 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 			ioSeconds = (totalIo > 0) ? Double.MAX_VALUE : 0;
 			totalBw = dcl.getBw();
 			bwSeconds = (totalBw > 0) ? Double.MAX_VALUE : 0;
-			if (iops.get(0) > 0) {
-				ioSeconds = totalIo / iops.get(0);
+			if (iops[0] > 0) {
+				ioSeconds = totalIo / iops[0];
 			}
-			if (bwps.get(0) > 0) {
-				bwSeconds = totalBw / bwps.get(0);
+			if (bwps[0] > 0) {
+				bwSeconds = totalBw / bwps[0];
 			}
 		}
 
-		double maxMi = Math.min(mips.get(0), rcl.getNumberOfPes() * miPerVMPe);
+		double maxMi = Math.min(mips[0], rcl.getNumberOfPes() * miPerVMPe);
 		if (maxMi > 0) {
 			miSeconds = totalMi / maxMi;
 		}
@@ -234,30 +249,31 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 		int taskSlot = cloudletIdToTaskSlot.get(rcl.getCloudletId());
 
 		if (totalMi > 0 && miSeconds >= Math.max(ioSeconds, bwSeconds)) {
-			mips.set(taskSlot, Math.min(mips.get(0), rcl.getNumberOfPes() * miPerVMPe));
-			iops.set(taskSlot, totalIo * mips.get(0) / totalMi);
-			bwps.set(taskSlot, totalBw * mips.get(0) / totalMi);
+			mips[taskSlot] = Math.min(mips[0], rcl.getNumberOfPes() * miPerVMPe);
+			iops[taskSlot] = totalIo * mips[0] / totalMi;
+			bwps[taskSlot] = totalBw * mips[0] / totalMi;
 		} else if (totalIo > 0 && ioSeconds >= Math.max(miSeconds, bwSeconds)) {
-			iops.set(taskSlot, iops.get(0));
-			mips.set(taskSlot, totalMi * iops.get(0) / totalIo);
-			bwps.set(taskSlot, totalBw * iops.get(0) / totalIo);
+			iops[taskSlot] = iops[0];
+			mips[taskSlot] = totalMi * iops[0] / totalIo;
+			bwps[taskSlot] = totalBw * iops[0] / totalIo;
 		} else if (totalBw > 0 && bwSeconds >= Math.max(miSeconds, ioSeconds)) {
-			bwps.set(taskSlot, bwps.get(0));
-			mips.set(taskSlot, totalMi * bwps.get(0) / totalBw);
-			iops.set(taskSlot, totalIo * bwps.get(0) / totalBw);
+			bwps[taskSlot] = bwps[0];
+			mips[taskSlot] = totalMi * bwps[0] / totalBw;
+			iops[taskSlot] = totalIo * bwps[0] / totalBw;
 		}
 
-		mips.set(0, mips.get(0) - mips.get(taskSlot));
-		iops.set(0, iops.get(0) - iops.get(taskSlot));
-		bwps.set(0, bwps.get(0) - bwps.get(taskSlot));
+		mips[0] -= mips[taskSlot];
+		iops[0] -= iops[taskSlot];
+		bwps[0] -= bwps[taskSlot];
 
-		return mips.get(taskSlot) + iops.get(taskSlot) + bwps.get(taskSlot);
+		return mips[taskSlot] + iops[taskSlot] + bwps[taskSlot];
 	}
 
 	private double getTotalMips(List<Double> mipsShare) {
 		double capacity = 0.0;
 		int cpus = 0;
-		for (Double mips_ : mipsShare) {
+		for (int i = 0; i < mipsShare.size(); i++) {
+			double mips_ = mipsShare.get(i);
 			capacity += mips_;
 			if (mips_ > 0.0) {
 				cpus++;
@@ -311,17 +327,7 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 		}
 
 		getCloudletExecList().add(rcl);
-		int i = 1;
-		while (occupiedTaskSlots.contains(i)) {
-			i++;
-		}
-		cloudletIdToTaskSlot.put(rcl.getCloudletId(), i);
-		occupiedTaskSlots.add(i);
-		if (i >= mips.size()) {
-			mips.add(0d);
-			iops.add(0d);
-			bwps.add(0d);
-		}
+		occupyTaskSlot(rcl.getCloudletId());
 
 		double estimatedTimeToFinish = Double.MAX_VALUE;
 		double assignedResources = assignResources(rcl);
@@ -338,13 +344,13 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 
 	@Override
 	public double getTotalCurrentAvailableMipsForCloudlet(ResCloudlet rcl, List<Double> mipsShare) {
-		double availableMiTemp = mips.get(0);
-		double availableIoTemp = iops.get(0);
-		double availableBwTemp = bwps.get(0);
+		double availableMiTemp = mips[0];
+		double availableIoTemp = iops[0];
+		double availableBwTemp = bwps[0];
 		double assignedResources = assignResources(rcl);
-		mips.set(0, availableMiTemp);
-		iops.set(0, availableIoTemp);
-		bwps.set(0, availableBwTemp);
+		mips[0] = availableMiTemp;
+		iops[0] = availableIoTemp;
+		bwps[0] = availableBwTemp;
 		return assignedResources;
 	}
 
@@ -356,4 +362,111 @@ public class CloudletSchedulerGreedyDivided extends CloudletSchedulerTimeShared
 		this.vm = vm;
 	}
 
+	// maps the ids of the cloudlets holding a task slot on this scheduler to
+	// their slots by open addressing; a resubmitted id is mapped to its latest
+	// slot
+	private static class TaskSlotMap {
+
+		private int[] keys;
+		private int[] values;
+		private boolean[] used;
+		private int size;
+
+		TaskSlotMap() {
+			keys = new int[16];
+			values = new int[16];
+			used = new boolean[16];
+		}
+
+		boolean containsKey(int cloudletId) {
+			return used[find(keys, used, cloudletId)];
+		}
+
+		int get(int cloudletId) {
+			int i = find(keys, used, cloudletId);
+			if (!used[i]) {
+				throw new IllegalArgumentException("Cloudlet #" + cloudletId + " does not hold a task slot on this scheduler");
+			}
+			return values[i];
+		}
+
+		int remove(int cloudletId) {
+			int i = find(keys, used, cloudletId);
+			if (!used[i]) {
+				throw new IllegalArgumentException("Cloudlet #" + cloudletId + " does not hold a task slot on this scheduler");
+			}
+			int taskSlot = values[i];
+			// move back the following entries that could no longer be found
+			// once position i is free, i.e., those whose home position is not
+			// cyclically within (i, j]
+			int mask = keys.length - 1;
+			int shift = getShift(keys);
+			for (int j = (i + 1) & mask; used[j]; j = (j + 1) & mask) {
+				int home = hash(keys[j], shift);
+				if (i < j ? (home <= i || home > j) : (home <= i && home > j)) {
+					keys[i] = keys[j];
+					values[i] = values[j];
+					i = j;
+				}
+			}
+			used[i] = false;
+			size--;
+			return taskSlot;
+		}
+
+		void put(int cloudletId, int taskSlot) {
+			int i = find(keys, used, cloudletId);
+			if (!used[i]) {
+				if (2 * (size + 1) > keys.length) {
+					grow();
+					i = find(keys, used, cloudletId);
+				}
+				used[i] = true;
+				keys[i] = cloudletId;
+				size++;
+			}
+			values[i] = taskSlot;
+		}
+
+		private void grow() {
+			int[] oldKeys = keys;
+			int[] oldValues = values;
+			boolean[] oldUsed = used;
+			keys = new int[2 * oldKeys.length];
+			values = new int[keys.length];
+			used = new boolean[keys.length];
+			for (int j = 0; j < oldKeys.length; j++) {
+				if (oldUsed[j]) {
+					int i = find(keys, used, oldKeys[j]);
+					used[i] = true;
+					keys[i] = oldKeys[j];
+					values[i] = oldValues[j];
+				}
+			}
+		}
+
+		// returns the position of the given id, or the free position at
+		// which it would be inserted
+		private static int find(int[] keys, boolean[] used, int cloudletId) {
+			int mask = keys.length - 1;
+			int i = hash(cloudletId, getShift(keys));
+			while (used[i] && keys[i] != cloudletId) {
+				i = (i + 1) & mask;
+			}
+			return i;
+		}
+
+		// the shift that keeps the top log2(keys.length) bits of a hash
+		private static int getShift(int[] keys) {
+			return Integer.numberOfLeadingZeros(keys.length) + 1;
+		}
+
+		// Fibonacci hashing, which takes the home position from the high bits
+		// of the product, since these depend on all bits of the id
+		private static int hash(int cloudletId, int shift) {
+			return (cloudletId * 0x9E3779B9) >>> shift;
+		}
+
+	}
+
 }
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.cloudbus.cloudsim.File;
 import org.cloudbus.cloudsim.Host;
@@ -25,9 +26,10 @@ public class DynamicHost extends Host {
 
 	private double mipsPerPe;
 
-	private static long totalMi;
-	private static long totalIo;
-	private static long totalBw;
+	// summed up over all runs, which may be simulated in parallel
+	private static final AtomicLong totalMi = new AtomicLong();
+	private static final AtomicLong totalIo = new AtomicLong();
+	private static final AtomicLong totalBw = new AtomicLong();
 
 	private Set<File> localFiles;
 
@@ -53,23 +55,23 @@ public class DynamicHost extends Host {
 			dVm.setMips((dVm.getNumberOfCusPerPe() / getNumberOfCusPerPe()) * getMipsPerPe());
 			dVm.setBw(getBw());
 			dVm.setIo(getIo());
-			totalMi += dVm.getMips();
-			totalIo += dVm.getIo();
-			totalBw += dVm.getBw();
+			totalMi.addAndGet((long) dVm.getMips());
+			totalIo.addAndGet(dVm.getIo());
+			totalBw.addAndGet(dVm.getBw());
 		}
 		return super.vmCreate(vm);
 	}
 
 	public static long getTotalBw() {
-		return totalBw;
+		return totalBw.get();
 	}
 
 	public static long getTotalIo() {
-		return totalIo;
+		return totalIo.get();
 	}
 
 	public static long getTotalMi() {
-		return totalMi;
+		return totalMi.get();
 	}
 
 	public long getIo() {
@@ -15,9 +15,19 @@ public class DynamicModel {
 	private double ioCurrentBaseline;
 	private double bwCurrentBaseline;
 
-	public DynamicModel() {
+	// the distributions of the baselines are created once, whereas the
+	// distributions of the noise are created anew whenever the baseline they
+	// are centered around changes
+	private ContinuousDistribution miDynamics;
+	private ContinuousDistribution ioDynamics;
+	private ContinuousDistribution bwDynamics;
+	private ContinuousDistribution miNoise;
+	private ContinuousDistribution ioNoise;
+	private ContinuousDistribution bwNoise;
+
+	public DynamicModel(Random numGen) {
 		this.previousTime = 0;
-		this.numGen = Parameters.numGen;
+		this.numGen = numGen;
 
 		changeMiBaseline();
 		changeIoBaseline();
@@ -25,39 +35,39 @@ public class DynamicModel {
 	}
 
 	private void changeMiBaseline() {
-		double mean = 1d;
-		double dev = Parameters.cpuDynamicsCV;
-		ContinuousDistribution dist = Parameters.getDistribution(Parameters.cpuDynamicsDistribution, mean, Parameters.cpuDynamicsAlpha, Parameters.cpuDynamicsBeta,
-		    dev, Parameters.cpuDynamicsShape, Parameters.cpuDynamicsLocation, Parameters.cpuDynamicsShift, Parameters.cpuDynamicsMin, Parameters.cpuDynamicsMax,
-		    Parameters.cpuDynamicsPopulation);
-		miCurrentBaseline = 0;
-		while (miCurrentBaseline <= 0) {
-			miCurrentBaseline = dist.sample();
+		if (miDynamics == null) {
+			double mean = 1d;
+			double dev = Parameters.cpuDynamicsCV;
+			miDynamics = Parameters.getDistribution(numGen, Parameters.cpuDynamicsDistribution, mean, Parameters.cpuDynamicsAlpha,
+			    Parameters.cpuDynamicsBeta, dev, Parameters.cpuDynamicsShape, Parameters.cpuDynamicsLocation, Parameters.cpuDynamicsShift,
+			    Parameters.cpuDynamicsMin, Parameters.cpuDynamicsMax, Parameters.cpuDynamicsPopulation);
 		}
+		miCurrentBaseline = samplePositive(miDynamics);
+		miNoise = null;
 	}
 
 	private void changeIoBaseline() {
-		double mean = 1d;
-		double dev = Parameters.ioDynamicsCV;
-		ContinuousDistribution dist = Parameters.getDistribution(Parameters.ioDynamicsDistribution, mean, Parameters.ioDynamicsAlpha, Parameters.ioDynamicsBeta,
-		    dev, Parameters.ioDynamicsShape, Parameters.ioDynamicsLocation, Parameters.ioDynamicsShift, Parameters.ioDynamicsMin, Parameters.ioDynamicsMax,
-		    Parameters.ioDynamicsPopulation);
-		ioCurrentBaseline = 0;
-		while (ioCurrentBaseline <= 0) {
-			ioCurrentBaseline = dist.sample();
+		if (ioDynamics == null) {
+			double mean = 1d;
+			double dev = Parameters.ioDynamicsCV;
+			ioDynamics = Parameters.getDistribution(numGen, Parameters.ioDynamicsDistribution, mean, Parameters.ioDynamicsAlpha,
+			    Parameters.ioDynamicsBeta, dev, Parameters.ioDynamicsShape, Parameters.ioDynamicsLocation, Parameters.ioDynamicsShift, Parameters.ioDynamicsMin,
+			    Parameters.ioDynamicsMax, Parameters.ioDynamicsPopulation);
 		}
+		ioCurrentBaseline = samplePositive(ioDynamics);
+		ioNoise = null;
 	}
 
 	private void changeBwBaseline() {
-		double mean = 1d;
-		double dev = Parameters.bwDynamicsCV;
-		ContinuousDistribution dist = Parameters.getDistribution(Parameters.bwDynamicsDistribution, mean, Parameters.bwDynamicsAlpha, Parameters.bwDynamicsBeta,
-		    dev, Parameters.bwDynamicsShape, Parameters.bwDynamicsLocation, Parameters.bwDynamicsShift, Parameters.bwDynamicsMin, Parameters.bwDynamicsMax,
-		    Parameters.bwDynamicsPopulation);
-		bwCurrentBaseline = 0;
-		while (bwCurrentBaseline <= 0) {
-			bwCurrentBaseline = dist.sample();
+		if (bwDynamics == null) {
+			double mean = 1d;
+			double dev = Parameters.bwDynamicsCV;
+			bwDynamics = Parameters.getDistribution(numGen, Parameters.bwDynamicsDistribution, mean, Parameters.bwDynamicsAlpha,
+			    Parameters.bwDynamicsBeta, dev, Parameters.bwDynamicsShape, Parameters.bwDynamicsLocation, Parameters.bwDynamicsShift, Parameters.bwDynamicsMin,
+			    Parameters.bwDynamicsMax, Parameters.bwDynamicsPopulation);
 		}
+		bwCurrentBaseline = samplePositive(bwDynamics);
+		bwNoise = null;
 	}
 
 	public void updateBaselines(double timespan) {
@@ -80,42 +90,44 @@ public class DynamicModel {
 	}
 
 	public double nextMiCoefficient() {
-		double mean = miCurrentBaseline;
-		double dev = Parameters.cpuNoiseCV * miCurrentBaseline;
-		ContinuousDistribution dist = Parameters.getDistribution(Parameters.cpuNoiseDistribution, mean, Parameters.cpuNoiseAlpha, Parameters.cpuNoiseBeta, dev,
-		    Parameters.cpuNoiseShape, Parameters.cpuNoiseLocation, Parameters.cpuNoiseShift, Parameters.cpuNoiseMin, Parameters.cpuNoiseMax,
-		    Parameters.cpuNoisePopulation);
-		double nextMiCoefficient = 0;
-		while (nextMiCoefficient <= 0) {
-			nextMiCoefficient = dist.sample();
+		if (miNoise == null) {
+			double mean = miCurrentBaseline;
+			double dev = Parameters.cpuNoiseCV * miCurrentBaseline;
+			miNoise = Parameters.getDistribution(numGen, Parameters.cpuNoiseDistribution, mean, Parameters.cpuNoiseAlpha,
+			    Parameters.cpuNoiseBeta, dev, Parameters.cpuNoiseShape, Parameters.cpuNoiseLocation, Parameters.cpuNoiseShift, Parameters.cpuNoiseMin,
+			    Parameters.cpuNoiseMax, Parameters.cpuNoisePopulation);
 		}
-		return nextMiCoefficient;
+		return samplePositive(miNoise);
 	}
 
 	public double nextIoCoefficient() {
-		double mean = ioCurrentBaseline;
-		double dev = Parameters.ioNoiseCV * ioCurrentBaseline;
-		ContinuousDistribution dist = Parameters.getDistribution(Parameters.ioNoiseDistribution, mean, Parameters.ioNoiseAlpha, Parameters.ioNoiseBeta, dev,
-		    Parameters.ioNoiseShape, Parameters.ioNoiseLocation, Parameters.ioNoiseShift, Parameters.ioNoiseMin, Parameters.ioNoiseMax,
-		    Parameters.ioNoisePopulation);
-		double nextIoCoefficient = 0;
-		while (nextIoCoefficient <= 0) {
-			nextIoCoefficient = dist.sample();
+		if (ioNoise == null) {
+			double mean = ioCurrentBaseline;
+			double dev = Parameters.ioNoiseCV * ioCurrentBaseline;
+			ioNoise = Parameters.getDistribution(numGen, Parameters.ioNoiseDistribution, mean, Parameters.ioNoiseAlpha, Parameters.ioNoiseBeta,
+			    dev, Parameters.ioNoiseShape, Parameters.ioNoiseLocation, Parameters.ioNoiseShift, Parameters.ioNoiseMin, Parameters.ioNoiseMax,
+			    Parameters.ioNoisePopulation);
 		}
-		return nextIoCoefficient;
+		return samplePositive(ioNoise);
 	}
 
 	public double nextBwCoefficient() {
-		double mean = bwCurrentBaseline;
-		double dev = Parameters.bwNoiseCV * bwCurrentBaseline;
-		ContinuousDistribution dist = Parameters.getDistribution(Parameters.bwNoiseDistribution, mean, Parameters.bwNoiseAlpha, Parameters.bwNoiseBeta, dev,
-		    Parameters.bwNoiseShape, Parameters.bwNoiseLocation, Parameters.bwNoiseShift, Parameters.bwNoiseMin, Parameters.bwNoiseMax,
-		    Parameters.bwNoisePopulation);
-		double nextBwCoefficient = 0;
-		while (nextBwCoefficient <= 0) {
-			nextBwCoefficient = dist.sample();
+		if (bwNoise == null) {
+			double mean = bwCurrentBaseline;
+			double dev = Parameters.bwNoiseCV * bwCurrentBaseline;
+			bwNoise = Parameters.getDistribution(numGen, Parameters.bwNoiseDistribution, mean, Parameters.bwNoiseAlpha, Parameters.bwNoiseBeta,
+			    dev, Parameters.bwNoiseShape, Parameters.bwNoiseLocation, Parameters.bwNoiseShift, Parameters.bwNoiseMin, Parameters.bwNoiseMax,
+			    Parameters.bwNoisePopulation);
 		}
-		return nextBwCoefficient;
+		return samplePositive(bwNoise);
+	}
+
+	private static double samplePositive(ContinuousDistribution dist) {
+		double sample = 0;
+		while (sample <= 0) {
+			sample = dist.sample();
+		}
+		return sample;
 	}
 
 	public double getPreviousTime() {
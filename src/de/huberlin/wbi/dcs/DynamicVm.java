@@ -1,16 +1,9 @@
 package de.huberlin.wbi.dcs;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-
 import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 
-import de.huberlin.wbi.dcs.examples.Parameters;
-
 public class DynamicVm extends Vm {
 
 	private long io;
@@ -25,35 +18,19 @@ public class DynamicVm extends Vm {
 
 	private double previousTime;
 
-	private BufferedWriter performanceLog;
+	// shared by all VMs of a run, if any
+	private VmPerformanceLog performanceLog;
 	private int taskSlots;
 
 	public DynamicVm(int id, int userId, double numberOfCusPerPe, int numberOfPes, int ram, long storage, String vmm, CloudletScheduler cloudletScheduler,
-	    DynamicModel dynamicModel, String performanceLogFileName, int taskSlots) {
+	    DynamicModel dynamicModel, VmPerformanceLog performanceLog, int taskSlots) {
 		super(id, userId, -1, numberOfPes, ram, -1, storage, vmm, cloudletScheduler);
 		setNumberOfCusPerPe(numberOfCusPerPe);
 		setDynamicModel(dynamicModel);
 		setCoefficients();
 		previousTime = CloudSim.clock();
 		this.taskSlots = taskSlots;
-		if (Parameters.outputVmPerformanceLogs) {
-			try {
-				File file = new File(performanceLogFileName);
-				file.getParentFile().mkdirs();
-				performanceLog = new BufferedWriter(new FileWriter(file));
-				performanceLog.write("time");
-				String[] resources = { "mips", "iops", "bwps" };
-				for (String resource : resources) {
-					for (int i = 0; i < taskSlots; i++) {
-						performanceLog.write("," + resource + " task slot " + i);
-					}
-					performanceLog.write("," + resource + " unassigned");
-				}
-				performanceLog.write("\n");
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		}
+		this.performanceLog = performanceLog;
 		if (cloudletScheduler instanceof CloudletSchedulerGreedyDivided) {
 			CloudletSchedulerGreedyDivided cloudletSchedulerGreedyDivided = (CloudletSchedulerGreedyDivided) cloudletScheduler;
 			cloudletSchedulerGreedyDivided.setVm(this);
@@ -61,8 +38,8 @@ public class DynamicVm extends Vm {
 	}
 
 	public DynamicVm(int id, int userId, double numberOfCusPerPe, int numberOfPes, int ram, long storage, String vmm, CloudletScheduler cloudletScheduler,
-	    DynamicModel dynamicModel, String performanceLogFileName) {
-		this(id, userId, numberOfCusPerPe, numberOfPes, ram, storage, vmm, cloudletScheduler, dynamicModel, performanceLogFileName, 1);
+	    DynamicModel dynamicModel, VmPerformanceLog performanceLog) {
+		this(id, userId, numberOfCusPerPe, numberOfPes, ram, storage, vmm, cloudletScheduler, dynamicModel, performanceLog, 1);
 	}
 
 	public void updatePerformanceCoefficients() {
@@ -140,20 +117,10 @@ public class DynamicVm extends Vm {
 		this.previousTime = previousTime;
 	}
 
-	public BufferedWriter getPerformanceLog() {
+	public VmPerformanceLog getPerformanceLog() {
 		return performanceLog;
 	}
 
-	public void closePerformanceLog() {
-		if (Parameters.outputVmPerformanceLogs) {
-			try {
-				performanceLog.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		}
-	}
-
 	public int getTaskSlots() {
 		return taskSlots;
 	}
@@ -2,6 +2,7 @@ package de.huberlin.wbi.dcs;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.File;
@@ -13,16 +14,19 @@ public class HeterogeneousCloudlet extends Cloudlet {
 	private long io = 0;
 	private long bw = 0;
 
-	private static long totalMi = 0;
-	private static long totalIo = 0;
-	private static long totalBw = 0;
+	// summed up over all runs, which may be simulated in parallel
+	private static final AtomicLong totalMi = new AtomicLong();
+	private static final AtomicLong totalIo = new AtomicLong();
+	private static final AtomicLong totalBw = new AtomicLong();
 
 	private List<File> inputFiles;
 
 	public HeterogeneousCloudlet(final int cloudletId, final long mi, final long io, final long bw, final int pesNumber, final long cloudletFileSize,
 	    final long cloudletOutputSize, final UtilizationModel utilizationModelCpu, final UtilizationModel utilizationModelRam,
 	    final UtilizationModel utilizationModelBw) {
-		super(cloudletId, 0, pesNumber, cloudletFileSize, cloudletOutputSize, utilizationModelCpu, utilizationModelRam, utilizationModelBw, true);
+		// the transaction history is not recorded, since it would grow by a line whenever the
+		// progress of this cloudlet is updated
+		super(cloudletId, 0, pesNumber, cloudletFileSize, cloudletOutputSize, utilizationModelCpu, utilizationModelRam, utilizationModelBw, false);
 		incMi(mi > 0 ? mi : 1);
 		incIo(io);
 		incBw(bw);
@@ -47,32 +51,32 @@ public class HeterogeneousCloudlet extends Cloudlet {
 
 	public void incBw(long bw_) {
 		this.bw += bw_;
-		totalBw += bw_;
+		totalBw.addAndGet(bw_);
 		updateLength();
 	}
 
 	public void incIo(long io_) {
 		this.io += io_;
-		totalIo += io_;
+		totalIo.addAndGet(io_);
 		updateLength();
 	}
 
 	public void incMi(long mi_) {
 		this.mi += mi_;
-		totalMi += mi_;
+		totalMi.addAndGet(mi_);
 		updateLength();
 	}
 
 	public static long getTotalBw() {
-		return totalBw;
+		return totalBw.get();
 	}
 
 	public static long getTotalIo() {
-		return totalIo;
+		return totalIo.get();
 	}
 
 	public static long getTotalMi() {
-		return totalMi;
+		return totalMi.get();
 	}
 
 	public List<File> getInputFiles() {
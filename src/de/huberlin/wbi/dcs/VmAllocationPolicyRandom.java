@@ -10,6 +10,7 @@ import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.core.CloudSim;
 
 import de.huberlin.wbi.dcs.examples.Parameters;
+import de.huberlin.wbi.dcs.examples.Parameters.RandomStream;
 
 /*
  * VmAllocationPolicySimple is an VmAllocationPolicy that chooses a random Pe for a Vm
@@ -38,7 +39,7 @@ public class VmAllocationPolicyRandom extends VmAllocationPolicy {
 	 */
 	public VmAllocationPolicyRandom(List<? extends Host> list) {
 		super(list);
-		numGen = Parameters.numGen;
+		numGen = Parameters.getRandomStream(RandomStream.VM_ALLOCATION, 0);
 
 		setFreePes(new ArrayList<Integer>());
 		for (Host host : getHostList()) {
@@ -0,0 +1,223 @@
+package de.huberlin.wbi.dcs;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The log of the resources the VMs of a run assign to their task slots over time, which all VMs of
+ * the run share. Each row holds a point in time (in minutes), the id of a VM, and the MIPS, IOPS,
+ * and BWPS assigned to each of the VM's task slots as well as those left unassigned. The rows are
+ * collected column by column in primitive arrays and written to a file channel in blocks, either as
+ * CSV or in a compact binary format, which can be exported to CSV later on. A binary log starts
+ * with a header of three ints (magic number, version, and number of task slots), followed by
+ * blocks, each of which consists of its number of rows (int) and its columns one after another:
+ * the time (doubles), the VM ids (ints), and the resources (doubles) in the order of the CSV
+ * header. The log is opened when it is created and has to be closed once, after the last row has
+ * been appended.
+ */
+public class VmPerformanceLog {
+
+	public enum Format {
+		CSV, BINARY
+	}
+
+	private static final int MAGIC = 0x44435350; // "DCSP"
+
+	private static final int VERSION = 1;
+
+	private static final int BLOCK_SIZE = 1024;
+
+	private static final String[] RESOURCES = { "mips", "iops", "bwps" };
+
+	private final Format format;
+
+	private final int taskSlots;
+
+	private FileChannel channel;
+
+	private final double[] time;
+	private final int[] vmId;
+	// index: column of the CSV file (after time and VM id)
+	private final double[][] values;
+	private int rows;
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * Creates a log of VMs with the given number of task slots, which is written to the given file
+	 * (with the extension <tt>.csv</tt> or <tt>.dat</tt>, depending on the format).
+	 */
+	public VmPerformanceLog(String fileName, int taskSlots, Format format) throws IOException {
+		this.format = format;
+		this.taskSlots = taskSlots;
+		File file = new File(fileName + (format == Format.CSV ? ".csv" : ".dat"));
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		time = new double[BLOCK_SIZE];
+		vmId = new int[BLOCK_SIZE];
+		values = new double[RESOURCES.length * (taskSlots + 1)][BLOCK_SIZE];
+		if (format == Format.BINARY) {
+			buffer = ByteBuffer.allocateDirect(4 + BLOCK_SIZE * (8 + 4 + 8 * values.length));
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(taskSlots);
+			buffer.flip();
+			write(buffer);
+		} else {
+			buffer = null;
+			write(ByteBuffer.wrap(getCsvHeader(taskSlots).getBytes(StandardCharsets.UTF_8)));
+		}
+	}
+
+	/**
+	 * Appends a row. The given arrays hold the resources left unassigned at index 0 and those
+	 * assigned to each task slot at the following indexes.
+	 */
+	public void append(double time, int vmId, double[] mips, double[] iops, double[] bwps) throws IOException {
+		checkOpen();
+		this.time[rows] = time;
+		this.vmId[rows] = vmId;
+		int column = 0;
+		for (int i = taskSlots; i >= 0; i--) {
+			values[column++][rows] = mips[i];
+		}
+		for (int i = taskSlots; i >= 0; i--) {
+			values[column++][rows] = iops[i];
+		}
+		for (int i = taskSlots; i >= 0; i--) {
+			values[column++][rows] = bwps[i];
+		}
+		if (++rows == BLOCK_SIZE) {
+			flush();
+		}
+	}
+
+	public void flush() throws IOException {
+		checkOpen();
+		if (rows == 0) {
+			return;
+		}
+		if (format == Format.BINARY) {
+			buffer.clear();
+			buffer.putInt(rows);
+			for (int row = 0; row < rows; row++) {
+				buffer.putDouble(time[row]);
+			}
+			for (int row = 0; row < rows; row++) {
+				buffer.putInt(vmId[row]);
+			}
+			for (double[] column : values) {
+				for (int row = 0; row < rows; row++) {
+					buffer.putDouble(column[row]);
+				}
+			}
+			buffer.flip();
+			write(buffer);
+		} else {
+			StringBuilder csv = new StringBuilder();
+			for (int row = 0; row < rows; row++) {
+				appendCsvRow(csv, time, vmId, values, row);
+			}
+			write(ByteBuffer.wrap(csv.toString().getBytes(StandardCharsets.UTF_8)));
+		}
+		rows = 0;
+	}
+
+	/**
+	 * Writes the remaining rows and closes the file. Closing a closed log has no effect.
+	 */
+	public void close() throws IOException {
+		if (channel != null) {
+			flush();
+			channel.close();
+			channel = null;
+		}
+	}
+
+	private void checkOpen() {
+		if (channel == null) {
+			throw new IllegalStateException("The VM performance log has already been closed");
+		}
+	}
+
+	private void write(ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+	}
+
+	private static String getCsvHeader(int taskSlots) {
+		StringBuilder header = new StringBuilder("time,vm");
+		for (String resource : RESOURCES) {
+			for (int i = 0; i < taskSlots; i++) {
+				header.append(",").append(resource).append(" task slot ").append(i);
+			}
+			header.append(",").append(resource).append(" unassigned");
+		}
+		return header.append("\n").toString();
+	}
+
+	private static void appendCsvRow(StringBuilder csv, double[] time, int[] vmId, double[][] values, int row) {
+		csv.append(time[row]).append(",").append(vmId[row]);
+		for (double[] column : values) {
+			csv.append(",").append(column[row]);
+		}
+		csv.append("\n");
+	}
+
+	/**
+	 * Exports a log written in the binary format to CSV.
+	 */
+	public static void exportToCsv(String binaryFileName, Writer csvWriter) throws IOException {
+		MappedByteBuffer in;
+		try (FileChannel binaryChannel = FileChannel.open(Paths.get(binaryFileName), StandardOpenOption.READ)) {
+			in = binaryChannel.map(FileChannel.MapMode.READ_ONLY, 0, binaryChannel.size());
+		}
+		if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+			throw new IOException(binaryFileName + " is not a VM performance log of version " + VERSION);
+		}
+		int taskSlots = in.getInt();
+		csvWriter.write(getCsvHeader(taskSlots));
+		double[] time = new double[BLOCK_SIZE];
+		int[] vmId = new int[BLOCK_SIZE];
+		double[][] values = new double[RESOURCES.length * (taskSlots + 1)][BLOCK_SIZE];
+		StringBuilder csv = new StringBuilder();
+		while (in.hasRemaining()) {
+			int rows = in.getInt();
+			in.asDoubleBuffer().get(time, 0, rows);
+			in.position(in.position() + 8 * rows);
+			in.asIntBuffer().get(vmId, 0, rows);
+			in.position(in.position() + 4 * rows);
+			for (double[] column : values) {
+				in.asDoubleBuffer().get(column, 0, rows);
+				in.position(in.position() + 8 * rows);
+			}
+			for (int row = 0; row < rows; row++) {
+				appendCsvRow(csv, time, vmId, values, row);
+			}
+			csvWriter.write(csv.toString());
+			csv.setLength(0);
+		}
+		csvWriter.flush();
+	}
+
+	/**
+	 * Exports the binary log given as the first argument to the CSV file given as the second
+	 * argument.
+	 */
+	public static void main(String[] args) throws IOException {
+		try (Writer csvWriter = new BufferedWriter(new FileWriter(args[1]))) {
+			exportToCsv(args[0], csvWriter);
+		}
+	}
+
+}
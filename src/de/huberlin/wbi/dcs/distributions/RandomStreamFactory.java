@@ -0,0 +1,52 @@
+package de.huberlin.wbi.dcs.distributions;
+
+import java.util.Random;
+
+/**
+ * Derives independent streams of random numbers from a single seed. A factory can be split into
+ * sub-factories, e.g., one per run of an experiment, each of which provides a stream per
+ * component, e.g., per VM. The seed of a sub-factory or stream is computed from the seed of its
+ * factory and its id using the mixing function of SplitMix64. Hence, the numbers of a stream
+ * neither depend on the order in which streams are created nor on how many numbers are drawn from
+ * other streams, and each stream can be used by a single thread without contention.
+ */
+public class RandomStreamFactory {
+
+	/** The odd constant that is added to a seed for each id, as in SplitMix64. */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final long seed;
+
+	public RandomStreamFactory(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Creates a sub-factory, whose streams are independent of the streams of this factory and of
+	 * all other sub-factories.
+	 *
+	 * @param id the id of the sub-factory
+	 * @return the sub-factory
+	 */
+	public RandomStreamFactory split(long id) {
+		return new RandomStreamFactory(mix(id));
+	}
+
+	/**
+	 * Creates a stream of random numbers. Streams with the same id are identical.
+	 *
+	 * @param id the id of the stream
+	 * @return the stream
+	 */
+	public Random getStream(long id) {
+		return new Random(mix(~id));
+	}
+
+	private long mix(long id) {
+		long z = seed + (id + 1) * GOLDEN_GAMMA;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
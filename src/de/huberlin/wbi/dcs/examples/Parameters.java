@@ -2,6 +2,11 @@ package de.huberlin.wbi.dcs.examples;
 
 import java.util.Random;
 
+import org.cloudbus.cloudsim.core.FutureQueue;
+import org.cloudbus.cloudsim.core.FutureQueueCalendar;
+import org.cloudbus.cloudsim.core.FutureQueueHeap;
+import org.cloudbus.cloudsim.core.FutureQueueLadder;
+import org.cloudbus.cloudsim.core.FutureQueueTreeSet;
 import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
 import org.cloudbus.cloudsim.distributions.ExponentialDistr;
 import org.cloudbus.cloudsim.distributions.GammaDistr;
@@ -12,14 +17,25 @@ import org.cloudbus.cloudsim.distributions.UniformDistr;
 import org.cloudbus.cloudsim.distributions.WeibullDistr;
 import org.cloudbus.cloudsim.distributions.ZipfDistr;
 
+import de.huberlin.wbi.dcs.VmPerformanceLog;
 import de.huberlin.wbi.dcs.distributions.NormalDistribution;
+import de.huberlin.wbi.dcs.distributions.RandomStreamFactory;
 import de.huberlin.wbi.dcs.workflow.scheduler.ERA;
+import de.huberlin.wbi.dcs.workflow.scheduler.TaskEventLog.Format;
 
 public class Parameters {
 
 	public static long seed = 42;
 	public static boolean outputDatacenterEvents = false;
+	// whether the events of a simulation are logged by a background thread
+	// and in which format
+	public static boolean asynchronousEventLog = false;
+	public static Format eventLogFormat = Format.TEXT;
+	// the file the events are logged to instead of the standard output, if any
+	public static String eventLogFile = null;
 	public static int numberOfRuns = 100;
+	// the number of runs that are simulated in parallel
+	public static int numberOfThreads = 1;
 
 	public enum Scheduler {
 		STATIC_ROUND_ROBIN, HEFT, JOB_QUEUE, LATE, C3, ERA
@@ -33,6 +49,16 @@ public class Parameters {
 
 	public static Experiment experiment = Experiment.HETEROGENEOUS_TEST_WORKFLOW;
 
+	// the data structure of CloudSim's future event queue
+	public enum EventQueue {
+		TREE_SET, BINARY_HEAP, QUATERNARY_HEAP, CALENDAR, LADDER
+	}
+
+	public static EventQueue eventQueue = EventQueue.BINARY_HEAP;
+
+	// leave cancelled events in the future event queue until they are due
+	public static boolean lazyEventDeletion = false;
+
 	// datacenter params
 	// Kb / s
 	public static long bwpsPerPe = 256;
@@ -64,6 +90,9 @@ public class Parameters {
 
 	public static boolean outputWorkflowGraph = false;
 	public static boolean outputVmPerformanceLogs = false;
+	public static VmPerformanceLog.Format vmPerformanceLogFormat = VmPerformanceLog.Format.CSV;
+	// the directory parsed workflows are cached in, if any
+	public static String workflowCacheDirectory = null;
 	public static boolean considerDataLocality = false;
 
 	// experiment parameters
@@ -196,14 +225,41 @@ public class Parameters {
 	// e.g., Task progress scores, HEFT runtime estimates
 	public static double distortionCV = 0d;
 
-	public static Random numGen;
+	// the number of threads HEFT plans a workflow with
+	public static int numberOfPlanningThreads = 1;
+
+	// the number of threads Cuneiform traces are parsed with
+	public static int numberOfParsingThreads = 1;
+
+	// the components of a simulation that draw random numbers from streams of
+	// their own, e.g., one stream per host
+	public enum RandomStream {
+		HOST, VM, VM_ALLOCATION, SCHEDULER
+	}
+
+	// the random number streams of the run that is simulated by the current
+	// thread; each run is seeded independently of all other runs
+	private static final ThreadLocal<RandomStreamFactory> randomStreams = new ThreadLocal<RandomStreamFactory>() {
+		@Override
+		protected RandomStreamFactory initialValue() {
+			return new RandomStreamFactory(seed).split(0);
+		}
+	};
+
+	public static void setRun(int run) {
+		randomStreams.set(new RandomStreamFactory(seed).split(run));
+	}
 
-	public static ContinuousDistribution getDistribution(Distribution distribution, double mean, int alpha, double beta, double dev, double shape,
-	    double location, double shift, double min, double max, int population) {
+	public static Random getRandomStream(RandomStream component, int id) {
+		return randomStreams.get().split(component.ordinal()).getStream(id);
+	}
+
+	public static ContinuousDistribution getDistribution(Random numGen, Distribution distribution, double mean, int alpha, double beta, double dev,
+	    double shape, double location, double shift, double min, double max, int population) {
 		ContinuousDistribution dist = null;
 		switch (distribution) {
 		case EXPONENTIAL:
-			dist = new ExponentialDistr(mean);
+			dist = new ExponentialDistr(numGen.nextLong(), mean);
 			break;
 		case GAMMA:
 			dist = new GammaDistr(numGen, alpha, beta);
@@ -221,19 +277,42 @@ public class Parameters {
 			dist = new ParetoDistr(numGen, shape, location);
 			break;
 		case UNIFORM:
-			dist = new UniformDistr(min, max);
+			dist = new UniformDistr(min, max, numGen.nextLong());
 			break;
 		case WEIBULL:
 			dist = new WeibullDistr(numGen, alpha, beta);
 			break;
 		case ZIPF:
-			dist = new ZipfDistr(shape, population);
+			dist = new ZipfDistr(numGen.nextLong(), shape, population);
 			break;
 		default:
 		}
 		return dist;
 	}
 
+	public static FutureQueue getFutureQueue(EventQueue eventQueue) {
+		FutureQueue futureQueue;
+		switch (eventQueue) {
+		case BINARY_HEAP:
+			futureQueue = new FutureQueueHeap(2);
+			break;
+		case QUATERNARY_HEAP:
+			futureQueue = new FutureQueueHeap(4);
+			break;
+		case CALENDAR:
+			futureQueue = new FutureQueueCalendar();
+			break;
+		case LADDER:
+			futureQueue = new FutureQueueLadder();
+			break;
+		case TREE_SET:
+		default:
+			futureQueue = new FutureQueueTreeSet();
+		}
+		futureQueue.setLazyDeletion(lazyEventDeletion);
+		return futureQueue;
+	}
+
 	public static void parseParameters(String[] args) {
 		for (int i = 0; i < args.length; i++) {
 			if (args[i].compareTo("-" + "seed") == 0) {
@@ -242,9 +321,30 @@ public class Parameters {
 			if (args[i].compareTo("-" + "workflow") == 0) {
 				experiment = Experiment.valueOf(args[++i]);
 			}
+			if (args[i].compareTo("-" + "outputDatacenterEvents") == 0) {
+				outputDatacenterEvents = Boolean.valueOf(args[++i]);
+			}
+			if (args[i].compareTo("-" + "asynchronousEventLog") == 0) {
+				asynchronousEventLog = Boolean.valueOf(args[++i]);
+			}
+			if (args[i].compareTo("-" + "eventLogFormat") == 0) {
+				eventLogFormat = Format.valueOf(args[++i]);
+			}
+			if (args[i].compareTo("-" + "eventLogFile") == 0) {
+				eventLogFile = args[++i];
+			}
 			if (args[i].compareTo("-" + "outputVmPerformanceLogs") == 0) {
 				outputVmPerformanceLogs = Boolean.valueOf(args[++i]);
 			}
+			if (args[i].compareTo("-" + "vmPerformanceLogFormat") == 0) {
+				vmPerformanceLogFormat = VmPerformanceLog.Format.valueOf(args[++i]);
+			}
+			if (args[i].compareTo("-" + "eventQueue") == 0) {
+				eventQueue = EventQueue.valueOf(args[++i]);
+			}
+			if (args[i].compareTo("-" + "lazyEventDeletion") == 0) {
+				lazyEventDeletion = Boolean.valueOf(args[++i]);
+			}
 			if (args[i].compareTo("-" + "scheduler") == 0) {
 				scheduler = Scheduler.valueOf(args[++i]);
 			}
@@ -257,6 +357,21 @@ public class Parameters {
 			if (args[i].compareTo("-" + "numberOfRuns") == 0) {
 				numberOfRuns = Integer.valueOf(args[++i]);
 			}
+			if (args[i].compareTo("-" + "numberOfThreads") == 0) {
+				numberOfThreads = Integer.valueOf(args[++i]);
+			}
+			if (args[i].compareTo("-" + "numberOfPlanningThreads") == 0) {
+				numberOfPlanningThreads = Integer.valueOf(args[++i]);
+			}
+			if (args[i].compareTo("-" + "workflowCacheDirectory") == 0) {
+				workflowCacheDirectory = args[++i];
+			}
+			if (args[i].compareTo("-" + "numberOfParsingThreads") == 0) {
+				numberOfParsingThreads = Integer.valueOf(args[++i]);
+			}
+			if (args[i].compareTo("-" + "distortionCV") == 0) {
+				distortionCV = Double.valueOf(args[++i]);
+			}
 			if (args[i].compareTo("-" + "heterogeneityCV") == 0) {
 				double arg = Double.valueOf(args[++i]);
 				cpuHeterogeneityCV = ioHeterogeneityCV = bwHeterogeneityCV = arg > 0 ? arg : Double.MIN_NORMAL;
@@ -330,6 +445,12 @@ public class Parameters {
 			if (args[i].compareTo("-" + "ramGb") == 0) {
 				ram = (int) (Double.valueOf(args[++i]) * 1024);
 			}
+			if (args[i].compareTo("-" + "nVms") == 0) {
+				nVms = Integer.valueOf(args[++i]);
+			}
+			if (args[i].compareTo("-" + "taskSlotsPerVm") == 0) {
+				taskSlotsPerVm = Integer.valueOf(args[++i]);
+			}
 
 			if (args[i].compareTo("-" + "noHet") == 0) {
 				int mips = (mipsPerCoreOpteron270 + mipsPerCoreOpteron2218 + mipsPerCoreXeonE5430) / 3;
@@ -338,7 +459,6 @@ public class Parameters {
 				mipsPerCoreXeonE5430 = mips;
 			}
 		}
-		numGen = new Random(seed);
 	}
 
 }
@@ -0,0 +1,61 @@
+package de.huberlin.wbi.dcs.examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import de.huberlin.wbi.dcs.workflow.scheduler.AbstractWorkflowScheduler;
+
+/**
+ * Simulates the runs of an experiment on a pool of worker threads. Each run is simulated in a
+ * {@link org.cloudbus.cloudsim.core.SimulationContext} of its own and is seeded independently of
+ * all other runs (see {@link Parameters#setRun(int)}). Hence, a run yields the same workflow
+ * runtime and output files no matter how many runs are simulated in parallel. With a single
+ * thread, the runs are simulated one after another.
+ */
+public class RunExecutor {
+
+	private final ForkJoinPool pool;
+
+	public RunExecutor(int numberOfThreads) {
+		pool = new ForkJoinPool(Math.max(1, numberOfThreads));
+	}
+
+	/**
+	 * Submits runs <tt>0</tt> to <tt>numberOfRuns - 1</tt> for simulation.
+	 *
+	 * @param numberOfRuns the number of runs
+	 * @return the workflow runtimes of the runs (in seconds), in the order of the runs
+	 */
+	public List<Future<Double>> submitRuns(int numberOfRuns) {
+		List<Future<Double>> runtimes = new ArrayList<>(numberOfRuns);
+		for (int i = 0; i < numberOfRuns; i++) {
+			final int run = i;
+			runtimes.add(pool.submit(new Callable<Double>() {
+				@Override
+				public Double call() {
+					AbstractWorkflowScheduler scheduler = WorkflowExample.runSimulation(run);
+					return scheduler.getRuntime();
+				}
+			}));
+		}
+		return runtimes;
+	}
+
+	/**
+	 * Cancels the runs that have not been started yet and waits until the runs that are being
+	 * simulated have finished.
+	 */
+	public void shutdownAndAwaitTermination() {
+		pool.shutdownNow();
+		try {
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
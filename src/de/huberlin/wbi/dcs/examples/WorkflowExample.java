@@ -1,10 +1,15 @@
 package de.huberlin.wbi.dcs.examples;
 
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Future;
 
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
@@ -20,17 +25,23 @@ import de.huberlin.wbi.dcs.DynamicModel;
 import de.huberlin.wbi.dcs.DynamicVm;
 import de.huberlin.wbi.dcs.HeterogeneousCloudlet;
 import de.huberlin.wbi.dcs.VmAllocationPolicyRandom;
+import de.huberlin.wbi.dcs.VmPerformanceLog;
+import de.huberlin.wbi.dcs.examples.Parameters.RandomStream;
 import de.huberlin.wbi.dcs.workflow.Workflow;
 import de.huberlin.wbi.dcs.workflow.io.AlignmentTraceFileReader;
 import de.huberlin.wbi.dcs.workflow.io.CuneiformLogFileReader;
 import de.huberlin.wbi.dcs.workflow.io.DaxFileReader;
+import de.huberlin.wbi.dcs.workflow.io.LogFileReader;
 import de.huberlin.wbi.dcs.workflow.io.MontageTraceFileReader;
+import de.huberlin.wbi.dcs.workflow.io.WorkflowCache;
 import de.huberlin.wbi.dcs.workflow.scheduler.C3;
 import de.huberlin.wbi.dcs.workflow.scheduler.ERA;
 import de.huberlin.wbi.dcs.workflow.scheduler.GreedyQueueScheduler;
 import de.huberlin.wbi.dcs.workflow.scheduler.HEFTScheduler;
 import de.huberlin.wbi.dcs.workflow.scheduler.LATEScheduler;
 import de.huberlin.wbi.dcs.workflow.scheduler.StaticRoundRobinScheduler;
+import de.huberlin.wbi.dcs.workflow.scheduler.TaskEventLog;
+import de.huberlin.wbi.dcs.workflow.scheduler.TaskEventLog.Format;
 import de.huberlin.wbi.dcs.workflow.scheduler.AbstractWorkflowScheduler;
 
 public class WorkflowExample {
@@ -38,30 +49,22 @@ public class WorkflowExample {
 	public static void main(String[] args) {
 		double totalRuntime = 0d;
 		Parameters.parseParameters(args);
+		// binary records are only written by the background thread
+		if (Parameters.asynchronousEventLog || Parameters.eventLogFormat == Format.BINARY) {
+			try {
+				OutputStream out = (Parameters.eventLogFile == null) ? Log.getOutput() : new FileOutputStream(Parameters.eventLogFile);
+				TaskEventLog.start(Parameters.eventLogFormat, 1 << 16, out);
+			} catch (FileNotFoundException e) {
+				e.printStackTrace();
+			}
+		}
 
+		RunExecutor executor = new RunExecutor(Parameters.numberOfThreads);
 		try {
-			for (int i = 0; i < Parameters.numberOfRuns; i++) {
-				if (!Parameters.outputDatacenterEvents) {
-					Log.disable();
-				}
-				// Initialize the CloudSim package
-				int num_user = 1; // number of grid users
-				Calendar calendar = Calendar.getInstance();
-				boolean trace_flag = false; // mean trace events
-				CloudSim.init(num_user, calendar, trace_flag);
-
-				createDatacenter("Datacenter");
-				AbstractWorkflowScheduler scheduler = WorkflowExample.createScheduler(i);
-				createVms(i, scheduler);
-				Workflow workflow = buildWorkflow(scheduler);
-				submitWorkflow(workflow, scheduler);
-
-				// Start the simulation
-				CloudSim.startSimulation();
-				CloudSim.stopSimulation();
-
-				totalRuntime += scheduler.getRuntime();
-				System.out.println(scheduler.getRuntime() / 60);
+			for (Future<Double> future : executor.submitRuns(Parameters.numberOfRuns)) {
+				double runtime = future.get();
+				totalRuntime += runtime;
+				System.out.println(runtime / 60);
 			}
 
 			Log.printLine("Average runtime in minutes: " + totalRuntime / Parameters.numberOfRuns / 60);
@@ -74,10 +77,60 @@ public class WorkflowExample {
 //			Log.printLine(e.getStackTrace().toString());
 			e.printStackTrace();
 			Log.printLine("The simulation has been terminated due to an unexpected error");
+		} finally {
+			// after an error, other runs may still be logging
+			executor.shutdownAndAwaitTermination();
+			TaskEventLog.stop();
 		}
 
 	}
 
+	public static AbstractWorkflowScheduler runSimulation(int run) {
+		if (!Parameters.outputDatacenterEvents) {
+			Log.disable();
+		}
+		Parameters.setRun(run);
+		TaskEventLog.setRun(run);
+		// Initialize the CloudSim package
+		int num_user = 1; // number of grid users
+		Calendar calendar = Calendar.getInstance();
+		boolean trace_flag = false; // mean trace events
+		CloudSim.init(num_user, calendar, trace_flag, Parameters.getFutureQueue(Parameters.eventQueue));
+
+		// the VMs of a run share a single performance log, which is closed
+		// once the simulation is over
+		VmPerformanceLog performanceLog = null;
+		if (Parameters.outputVmPerformanceLogs) {
+			try {
+				performanceLog = new VmPerformanceLog("output/run_" + run, Parameters.taskSlotsPerVm, Parameters.vmPerformanceLogFormat);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		try {
+			createDatacenter("Datacenter");
+			AbstractWorkflowScheduler scheduler = WorkflowExample.createScheduler(run);
+			createVms(scheduler, performanceLog);
+			Workflow workflow = buildWorkflow(scheduler);
+			submitWorkflow(workflow, scheduler);
+
+			// Start the simulation
+			CloudSim.startSimulation();
+			CloudSim.stopSimulation();
+
+			return scheduler;
+		} finally {
+			if (performanceLog != null) {
+				try {
+					performanceLog.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
 	public static AbstractWorkflowScheduler createScheduler(int i) {
 		try {
 			switch (Parameters.scheduler) {
@@ -103,37 +156,44 @@ public class WorkflowExample {
 		return null;
 	}
 
-	public static void createVms(int run, AbstractWorkflowScheduler scheduler) {
+	public static void createVms(AbstractWorkflowScheduler scheduler, VmPerformanceLog performanceLog) {
 		// Create VMs
-		List<Vm> vmlist = createVMList(scheduler.getId(), run);
+		List<Vm> vmlist = createVMList(scheduler.getId(), performanceLog);
 		scheduler.submitVmList(vmlist);
 	}
 
 	public static Workflow buildWorkflow(AbstractWorkflowScheduler scheduler) {
 		switch (Parameters.experiment) {
 		case MONTAGE_TRACE_1:
-			return new MontageTraceFileReader().parseLogFile(scheduler.getId(), "examples/montage.m17.1.trace", true, true, ".*jpg");
+			return parseWorkflow(new MontageTraceFileReader(), scheduler, "examples/montage.m17.1.trace", ".*jpg");
 		case MONTAGE_TRACE_12:
-			return new MontageTraceFileReader().parseLogFile(scheduler.getId(), "examples/montage.m17.12.trace", true, true, ".*jpg");
+			return parseWorkflow(new MontageTraceFileReader(), scheduler, "examples/montage.m17.12.trace", ".*jpg");
 		case ALIGNMENT_TRACE:
-			return new AlignmentTraceFileReader().parseLogFile(scheduler.getId(), "examples/alignment.caco.geo.chr22.trace2", true, true, null);
+			return parseWorkflow(new AlignmentTraceFileReader(), scheduler, "examples/alignment.caco.geo.chr22.trace2", null);
 		case MONTAGE_25:
-			return new DaxFileReader().parseLogFile(scheduler.getId(), "examples/Montage_25.xml", true, true, null);
+			return parseWorkflow(new DaxFileReader(), scheduler, "examples/Montage_25.xml", null);
 		case MONTAGE_1000:
-			return new DaxFileReader().parseLogFile(scheduler.getId(), "examples/Montage_1000.xml", true, true, null);
+			return parseWorkflow(new DaxFileReader(), scheduler, "examples/Montage_1000.xml", null);
 		case CYBERSHAKE_1000:
-			return new DaxFileReader().parseLogFile(scheduler.getId(), "examples/CyberShake_1000.xml", true, true, null);
+			return parseWorkflow(new DaxFileReader(), scheduler, "examples/CyberShake_1000.xml", null);
 		case EPIGENOMICS_997:
-			return new DaxFileReader().parseLogFile(scheduler.getId(), "examples/Epigenomics_997.xml", true, true, null);
+			return parseWorkflow(new DaxFileReader(), scheduler, "examples/Epigenomics_997.xml", null);
 		case CUNEIFORM_VARIANT_CALL:
-			return new CuneiformLogFileReader().parseLogFile(scheduler.getId(), "examples/i1_s11756_r7_greedyQueue.log", true, true, null);
+			return parseWorkflow(new CuneiformLogFileReader(Parameters.numberOfParsingThreads), scheduler, "examples/i1_s11756_r7_greedyQueue.log", null);
 		case HETEROGENEOUS_TEST_WORKFLOW:
-			return new CuneiformLogFileReader().parseLogFile(scheduler.getId(), "examples/heterogeneous_test_workflow.log", true, true, null);
+			return parseWorkflow(new CuneiformLogFileReader(Parameters.numberOfParsingThreads), scheduler, "examples/heterogeneous_test_workflow.log", null);
 		default:
 		}
 		return null;
 	}
 
+	private static Workflow parseWorkflow(LogFileReader reader, AbstractWorkflowScheduler scheduler, String filePath, String outputFileRegex) {
+		if (Parameters.workflowCacheDirectory != null) {
+			return new WorkflowCache(Parameters.workflowCacheDirectory).parseLogFile(reader, scheduler.getId(), filePath, true, true, outputFileRegex);
+		}
+		return reader.parseLogFile(scheduler.getId(), filePath, true, true, outputFileRegex);
+	}
+
 	public static void submitWorkflow(Workflow workflow, AbstractWorkflowScheduler scheduler) {
 		// Create Cloudlets and send them to Scheduler
 		if (Parameters.outputWorkflowGraph) {
@@ -144,17 +204,16 @@ public class WorkflowExample {
 
 	// all numbers in 1000 (e.g. kb/s)
 	public static Datacenter createDatacenter(String name) {
-		Random numGen;
-		numGen = Parameters.numGen;
 		List<DynamicHost> hostList = new ArrayList<>();
 		int hostId = 0;
 		long storage = 1024 * 1024;
 
 		int ram = 2 * 1024 * Parameters.nCusPerCoreOpteron270 * Parameters.nCoresOpteron270;
 		for (int i = 0; i < Parameters.nOpteron270; i++) {
+			Random numGen = Parameters.getRandomStream(RandomStream.HOST, hostId);
 			double mean = 1d;
 			double dev = Parameters.bwHeterogeneityCV;
-			ContinuousDistribution dist = Parameters.getDistribution(Parameters.bwHeterogeneityDistribution, mean, Parameters.bwHeterogeneityAlpha,
+			ContinuousDistribution dist = Parameters.getDistribution(numGen, Parameters.bwHeterogeneityDistribution, mean, Parameters.bwHeterogeneityAlpha,
 			    Parameters.bwHeterogeneityBeta, dev, Parameters.bwHeterogeneityShape, Parameters.bwHeterogeneityLocation, Parameters.bwHeterogeneityShift,
 			    Parameters.bwHeterogeneityMin, Parameters.bwHeterogeneityMax, Parameters.bwHeterogeneityPopulation);
 			long bwps = 0;
@@ -163,18 +222,18 @@ public class WorkflowExample {
 			}
 			mean = 1d;
 			dev = Parameters.ioHeterogeneityCV;
-			dist = Parameters.getDistribution(Parameters.ioHeterogeneityDistribution, mean, Parameters.ioHeterogeneityAlpha, Parameters.ioHeterogeneityBeta, dev,
-			    Parameters.ioHeterogeneityShape, Parameters.ioHeterogeneityLocation, Parameters.ioHeterogeneityShift, Parameters.ioHeterogeneityMin,
-			    Parameters.ioHeterogeneityMax, Parameters.ioHeterogeneityPopulation);
+			dist = Parameters.getDistribution(numGen, Parameters.ioHeterogeneityDistribution, mean, Parameters.ioHeterogeneityAlpha,
+			    Parameters.ioHeterogeneityBeta, dev, Parameters.ioHeterogeneityShape, Parameters.ioHeterogeneityLocation, Parameters.ioHeterogeneityShift,
+			    Parameters.ioHeterogeneityMin, Parameters.ioHeterogeneityMax, Parameters.ioHeterogeneityPopulation);
 			long iops = 0;
 			while (iops <= 0) {
 				iops = (long) (dist.sample() * Parameters.iopsPerPe);
 			}
 			mean = 1d;
 			dev = Parameters.cpuHeterogeneityCV;
-			dist = Parameters.getDistribution(Parameters.cpuHeterogeneityDistribution, mean, Parameters.cpuHeterogeneityAlpha, Parameters.cpuHeterogeneityBeta, dev,
-			    Parameters.cpuHeterogeneityShape, Parameters.cpuHeterogeneityLocation, Parameters.cpuHeterogeneityShift, Parameters.cpuHeterogeneityMin,
-			    Parameters.cpuHeterogeneityMax, Parameters.cpuHeterogeneityPopulation);
+			dist = Parameters.getDistribution(numGen, Parameters.cpuHeterogeneityDistribution, mean, Parameters.cpuHeterogeneityAlpha,
+			    Parameters.cpuHeterogeneityBeta, dev, Parameters.cpuHeterogeneityShape, Parameters.cpuHeterogeneityLocation, Parameters.cpuHeterogeneityShift,
+			    Parameters.cpuHeterogeneityMin, Parameters.cpuHeterogeneityMax, Parameters.cpuHeterogeneityPopulation);
 			long mips = 0;
 			while (mips <= 0) {
 				mips = (long) (dist.sample() * Parameters.mipsPerCoreOpteron270);
@@ -189,9 +248,10 @@ public class WorkflowExample {
 
 		ram = 2 * 1024 * Parameters.nCusPerCoreOpteron2218 * Parameters.nCoresOpteron2218;
 		for (int i = 0; i < Parameters.nOpteron2218; i++) {
+			Random numGen = Parameters.getRandomStream(RandomStream.HOST, hostId);
 			double mean = 1d;
 			double dev = Parameters.bwHeterogeneityCV;
-			ContinuousDistribution dist = Parameters.getDistribution(Parameters.bwHeterogeneityDistribution, mean, Parameters.bwHeterogeneityAlpha,
+			ContinuousDistribution dist = Parameters.getDistribution(numGen, Parameters.bwHeterogeneityDistribution, mean, Parameters.bwHeterogeneityAlpha,
 			    Parameters.bwHeterogeneityBeta, dev, Parameters.bwHeterogeneityShape, Parameters.bwHeterogeneityLocation, Parameters.bwHeterogeneityShift,
 			    Parameters.bwHeterogeneityMin, Parameters.bwHeterogeneityMax, Parameters.bwHeterogeneityPopulation);
 			long bwps = 0;
@@ -200,18 +260,18 @@ public class WorkflowExample {
 			}
 			mean = 1d;
 			dev = Parameters.ioHeterogeneityCV;
-			dist = Parameters.getDistribution(Parameters.ioHeterogeneityDistribution, mean, Parameters.ioHeterogeneityAlpha, Parameters.ioHeterogeneityBeta, dev,
-			    Parameters.ioHeterogeneityShape, Parameters.ioHeterogeneityLocation, Parameters.ioHeterogeneityShift, Parameters.ioHeterogeneityMin,
-			    Parameters.ioHeterogeneityMax, Parameters.ioHeterogeneityPopulation);
+			dist = Parameters.getDistribution(numGen, Parameters.ioHeterogeneityDistribution, mean, Parameters.ioHeterogeneityAlpha,
+			    Parameters.ioHeterogeneityBeta, dev, Parameters.ioHeterogeneityShape, Parameters.ioHeterogeneityLocation, Parameters.ioHeterogeneityShift,
+			    Parameters.ioHeterogeneityMin, Parameters.ioHeterogeneityMax, Parameters.ioHeterogeneityPopulation);
 			long iops = 0;
 			while (iops <= 0) {
 				iops = (long) (dist.sample() * Parameters.iopsPerPe);
 			}
 			mean = 1d;
 			dev = Parameters.cpuHeterogeneityCV;
-			dist = Parameters.getDistribution(Parameters.cpuHeterogeneityDistribution, mean, Parameters.cpuHeterogeneityAlpha, Parameters.cpuHeterogeneityBeta, dev,
-			    Parameters.cpuHeterogeneityShape, Parameters.cpuHeterogeneityLocation, Parameters.cpuHeterogeneityShift, Parameters.cpuHeterogeneityMin,
-			    Parameters.cpuHeterogeneityMax, Parameters.cpuHeterogeneityPopulation);
+			dist = Parameters.getDistribution(numGen, Parameters.cpuHeterogeneityDistribution, mean, Parameters.cpuHeterogeneityAlpha,
+			    Parameters.cpuHeterogeneityBeta, dev, Parameters.cpuHeterogeneityShape, Parameters.cpuHeterogeneityLocation, Parameters.cpuHeterogeneityShift,
+			    Parameters.cpuHeterogeneityMin, Parameters.cpuHeterogeneityMax, Parameters.cpuHeterogeneityPopulation);
 			long mips = 0;
 			while (mips <= 0) {
 				mips = (long) (dist.sample() * Parameters.mipsPerCoreOpteron2218);
@@ -226,9 +286,10 @@ public class WorkflowExample {
 
 		ram = 2 * 1024 * Parameters.nCusPerCoreXeonE5430 * Parameters.nCoresXeonE5430;
 		for (int i = 0; i < Parameters.nXeonE5430; i++) {
+			Random numGen = Parameters.getRandomStream(RandomStream.HOST, hostId);
 			double mean = 1d;
 			double dev = Parameters.bwHeterogeneityCV;
-			ContinuousDistribution dist = Parameters.getDistribution(Parameters.bwHeterogeneityDistribution, mean, Parameters.bwHeterogeneityAlpha,
+			ContinuousDistribution dist = Parameters.getDistribution(numGen, Parameters.bwHeterogeneityDistribution, mean, Parameters.bwHeterogeneityAlpha,
 			    Parameters.bwHeterogeneityBeta, dev, Parameters.bwHeterogeneityShape, Parameters.bwHeterogeneityLocation, Parameters.bwHeterogeneityShift,
 			    Parameters.bwHeterogeneityMin, Parameters.bwHeterogeneityMax, Parameters.bwHeterogeneityPopulation);
 			long bwps = 0;
@@ -237,18 +298,18 @@ public class WorkflowExample {
 			}
 			mean = 1d;
 			dev = Parameters.ioHeterogeneityCV;
-			dist = Parameters.getDistribution(Parameters.ioHeterogeneityDistribution, mean, Parameters.ioHeterogeneityAlpha, Parameters.ioHeterogeneityBeta, dev,
-			    Parameters.ioHeterogeneityShape, Parameters.ioHeterogeneityLocation, Parameters.ioHeterogeneityShift, Parameters.ioHeterogeneityMin,
-			    Parameters.ioHeterogeneityMax, Parameters.ioHeterogeneityPopulation);
+			dist = Parameters.getDistribution(numGen, Parameters.ioHeterogeneityDistribution, mean, Parameters.ioHeterogeneityAlpha,
+			    Parameters.ioHeterogeneityBeta, dev, Parameters.ioHeterogeneityShape, Parameters.ioHeterogeneityLocation, Parameters.ioHeterogeneityShift,
+			    Parameters.ioHeterogeneityMin, Parameters.ioHeterogeneityMax, Parameters.ioHeterogeneityPopulation);
 			long iops = 0;
 			while (iops <= 0) {
 				iops = (long) (dist.sample() * Parameters.iopsPerPe);
 			}
 			mean = 1d;
 			dev = Parameters.cpuHeterogeneityCV;
-			dist = Parameters.getDistribution(Parameters.cpuHeterogeneityDistribution, mean, Parameters.cpuHeterogeneityAlpha, Parameters.cpuHeterogeneityBeta, dev,
-			    Parameters.cpuHeterogeneityShape, Parameters.cpuHeterogeneityLocation, Parameters.cpuHeterogeneityShift, Parameters.cpuHeterogeneityMin,
-			    Parameters.cpuHeterogeneityMax, Parameters.cpuHeterogeneityPopulation);
+			dist = Parameters.getDistribution(numGen, Parameters.cpuHeterogeneityDistribution, mean, Parameters.cpuHeterogeneityAlpha,
+			    Parameters.cpuHeterogeneityBeta, dev, Parameters.cpuHeterogeneityShape, Parameters.cpuHeterogeneityLocation, Parameters.cpuHeterogeneityShift,
+			    Parameters.cpuHeterogeneityMin, Parameters.cpuHeterogeneityMax, Parameters.cpuHeterogeneityPopulation);
 			long mips = 0;
 			while (mips <= 0) {
 				mips = (long) (dist.sample() * Parameters.mipsPerCoreXeonE5430);
@@ -283,7 +344,7 @@ public class WorkflowExample {
 		return datacenter;
 	}
 
-	public static List<Vm> createVMList(int userId, int run) {
+	public static List<Vm> createVMList(int userId, VmPerformanceLog performanceLog) {
 
 		// Creates a container to store VMs. This list is passed to the broker
 		// later
@@ -297,9 +358,9 @@ public class WorkflowExample {
 		Vm[] vm = new DynamicVm[Parameters.nVms];
 
 		for (int i = 0; i < Parameters.nVms; i++) {
-			DynamicModel dynamicModel = new DynamicModel();
+			DynamicModel dynamicModel = new DynamicModel(Parameters.getRandomStream(RandomStream.VM, i));
 			vm[i] = new DynamicVm(i, userId, Parameters.numberOfCusPerPe, Parameters.numberOfPes, Parameters.ram, storage, vmm, new CloudletSchedulerGreedyDivided(),
-			    dynamicModel, "output/run_" + run + "_vm_" + i + ".csv", Parameters.taskSlotsPerVm);
+			    dynamicModel, performanceLog, Parameters.taskSlotsPerVm);
 			list.add(vm[i]);
 		}
 
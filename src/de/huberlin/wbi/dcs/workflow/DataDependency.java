@@ -6,8 +6,13 @@ public class DataDependency {
 
 	File file;
 
-	public DataDependency(File file) {
+	// the number of data dependencies that have been added to the workflow
+	// before this one; unlike the file name, it identifies the data dependency
+	private final int id;
+
+	public DataDependency(File file, int id) {
 		setFile(file);
+		this.id = id;
 	}
 
 	@Override
@@ -19,13 +24,19 @@ public class DataDependency {
 		return file;
 	}
 
+	public int getId() {
+		return id;
+	}
+
 	private void setFile(File file) {
 		this.file = file;
 	}
 
+	// data dependencies with the same file would collide in hash-based
+	// collections, whose iteration order would then depend on identity hash codes
 	@Override
 	public int hashCode() {
-		return getFile().getName().hashCode();
+		return getId();
 	}
 
 }
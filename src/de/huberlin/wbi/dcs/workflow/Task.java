@@ -16,7 +16,9 @@ public class Task extends HeterogeneousCloudlet implements Comparable<Task> {
 
 	private int depth;
 
-	private static int maxDepth;
+	// the position of this task in the topological order of its workflow's
+	// compact graph
+	private int index;
 
 	private boolean speculativeCopy;
 
@@ -40,6 +42,7 @@ public class Task extends HeterogeneousCloudlet implements Comparable<Task> {
 		this(task.getName(), task.getParams(), task.getWorkflow(), task.getUserId(), task.getCloudletId(), task.getMi(), task.getIo(), task.getBw(), task
 		    .getNumberOfPes(), task.getCloudletFileSize(), task.getCloudletOutputSize(), task.getUtilizationModelCpu(), task.getUtilizationModelRam(), task
 		    .getUtilizationModelBw());
+		this.index = task.getIndex();
 	}
 
 	public String getName() {
@@ -71,8 +74,12 @@ public class Task extends HeterogeneousCloudlet implements Comparable<Task> {
 		return workflow;
 	}
 
-	public static int getMaxDepth() {
-		return maxDepth;
+	public int getIndex() {
+		return index;
+	}
+
+	void setIndex(int index) {
+		this.index = index;
 	}
 
 	public int getDepth() {
@@ -81,9 +88,6 @@ public class Task extends HeterogeneousCloudlet implements Comparable<Task> {
 
 	public void setDepth(int depth) {
 		this.depth = depth;
-		if (depth > maxDepth) {
-			maxDepth = depth;
-		}
 	}
 
 	@Override
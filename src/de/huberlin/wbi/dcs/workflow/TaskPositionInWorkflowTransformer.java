@@ -16,7 +16,7 @@ public class TaskPositionInWorkflowTransformer implements Transformer<Task, Poin
 		this.width = width - 40;
 		this.height = height - 40;
 		this.breadth = breadth;
-		breadthIndexes = new int[Task.getMaxDepth() + 1];
+		breadthIndexes = new int[breadth.length];
 	}
 
 	@Override
@@ -25,7 +25,7 @@ public class TaskPositionInWorkflowTransformer implements Transformer<Task, Poin
 		double depth = task.getDepth();
 
 		double xcontigs = breadth[task.getDepth()];
-		double ycontigs = Task.getMaxDepth() + 1;
+		double ycontigs = breadth.length;
 
 		int xpos = (int) (((width * breadthIndexes[task.getDepth()]++ / xcontigs) + (width * breadthIndexes[task.getDepth()] / xcontigs)) / 2d) + 20;
 		int ypos = (int) (((height * depth / ycontigs) + (height * (depth + 1) / ycontigs)) / 2d) + 20;
@@ -29,6 +29,12 @@ public class Workflow {
 
 	private Graph<Task, DataDependency> workflow;
 
+	// built on demand and discarded whenever the workflow changes, along with
+	// the depth of the tasks and the number of tasks per depth
+	private WorkflowGraph compactGraph;
+
+	private int maxDepth;
+
 	private int[] breadth;
 
 	public Workflow() {
@@ -37,38 +43,81 @@ public class Workflow {
 
 	public void addTask(Task task) {
 		workflow.addVertex(task);
+		compactGraph = null;
 	}
 
 	public void addFile(File file, Task taskGeneratingThisFile, List<Task> tasksRequiringThisFile) {
-		int depth = taskGeneratingThisFile.getDepth() + 1;
 		for (Task t : tasksRequiringThisFile) {
-			workflow.addEdge(new DataDependency(file), taskGeneratingThisFile, t);
-			t.incNDataDependencies();
-			setDepth(t, depth);
+			addFile(file, taskGeneratingThisFile, t);
 		}
 	}
 
-	private void computeWidthArray() {
-		setBreadth(new int[Task.getMaxDepth() + 1]);
-		for (Task t : workflow.getVertices()) {
-			int depth = t.getDepth();
-			getBreadth()[depth]++;
-		}
+	public DataDependency addFile(File file, Task taskGeneratingThisFile, Task taskRequiringThisFile) {
+		compactGraph = null;
+		DataDependency dataDependency = new DataDependency(file, workflow.getEdgeCount());
+		workflow.addEdge(dataDependency, taskGeneratingThisFile, taskRequiringThisFile);
+		taskRequiringThisFile.incNDataDependencies();
+		return dataDependency;
 	}
 
-	private void setDepth(Task task, int depth) {
-		if (task.getDepth() < depth) {
-			task.setDepth(depth);
-			for (Task successor : workflow.getSuccessors(task)) {
-				setDepth(successor, depth + 1);
+	// sets the depth of each task to the length of the longest path leading
+	// to it from a task without predecessors, which requires a single pass
+	// over the tasks in topological order
+	private void computeDepths() {
+		Collection<Task> vertices = workflow.getVertices();
+		Task[] tasks = vertices.toArray(new Task[vertices.size()]);
+		int nTasks = tasks.length;
+		for (int i = 0; i < nTasks; i++) {
+			tasks[i].setIndex(i);
+		}
+
+		int[] depth = new int[nTasks];
+		int[] nUnvisitedIncomingEdges = new int[nTasks];
+		int[] queue = new int[nTasks];
+		int head = 0;
+		int tail = 0;
+		for (int i = 0; i < nTasks; i++) {
+			nUnvisitedIncomingEdges[i] = workflow.inDegree(tasks[i]);
+			if (nUnvisitedIncomingEdges[i] == 0) {
+				queue[tail++] = i;
+			}
+		}
+		maxDepth = 0;
+		while (head < tail) {
+			int i = queue[head++];
+			tasks[i].setDepth(depth[i]);
+			maxDepth = Math.max(maxDepth, depth[i]);
+			for (DataDependency outgoingEdge : workflow.getOutEdges(tasks[i])) {
+				int child = workflow.getDest(outgoingEdge).getIndex();
+				depth[child] = Math.max(depth[child], depth[i] + 1);
+				if (--nUnvisitedIncomingEdges[child] == 0) {
+					queue[tail++] = child;
+				}
 			}
 		}
+
+		breadth = new int[maxDepth + 1];
+		for (Task t : tasks) {
+			breadth[t.getDepth()]++;
+		}
 	}
 
 	public Graph<Task, DataDependency> getGraph() {
 		return workflow;
 	}
 
+	/**
+	 * Returns a compact, array-based view of this workflow's graph, which is built once the
+	 * workflow has been fully parsed and is cheaper to traverse than the graph itself.
+	 */
+	public WorkflowGraph getCompactGraph() {
+		if (compactGraph == null) {
+			computeDepths();
+			compactGraph = new WorkflowGraph(workflow);
+		}
+		return compactGraph;
+	}
+
 	public Collection<Task> getTasks() {
 		return workflow.getVertices();
 	}
@@ -99,7 +148,7 @@ public class Workflow {
 	}
 
 	public void visualize(int width, int height) {
-		computeWidthArray();
+		getCompactGraph();
 		Dimension size = new Dimension(width, height);
 
 		StaticLayout<Task, DataDependency> sl = new StaticLayout<>(workflow, new TaskPositionInWorkflowTransformer(width, height, getBreadth()));
@@ -188,7 +237,13 @@ public class Workflow {
 		// jf.setVisible(true);
 	}
 
+	public int getMaxDepth() {
+		getCompactGraph();
+		return maxDepth;
+	}
+
 	public int[] getBreadth() {
+		getCompactGraph();
 		return breadth;
 	}
 
@@ -0,0 +1,104 @@
+package de.huberlin.wbi.dcs.workflow;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * An immutable view of a workflow's graph in compressed sparse row format. The tasks are identified
+ * by their index in a topological order, i.e., ordered by depth and cloudlet id (see
+ * {@link Task#compareTo(Task)}), such that every task has a greater index than all of its
+ * predecessors. For each task, the indexes of its children and parents are stored in consecutive
+ * ranges of a single array each. The children and parents of a task are kept in the order in which
+ * the underlying graph enumerates the task's outgoing and incoming data dependencies.
+ */
+public class WorkflowGraph {
+
+	private final Task[] tasks;
+
+	private final int[] childOffsets;
+	private final int[] children;
+	private final DataDependency[] outgoingDataDependencies;
+
+	private final int[] parentOffsets;
+	private final int[] parents;
+
+	public WorkflowGraph(Graph<Task, DataDependency> graph) {
+		Collection<Task> vertices = graph.getVertices();
+		tasks = vertices.toArray(new Task[vertices.size()]);
+		Arrays.sort(tasks);
+		for (int i = 0; i < tasks.length; i++) {
+			tasks[i].setIndex(i);
+		}
+
+		int nDataDependencies = graph.getEdgeCount();
+		childOffsets = new int[tasks.length + 1];
+		children = new int[nDataDependencies];
+		outgoingDataDependencies = new DataDependency[nDataDependencies];
+		parentOffsets = new int[tasks.length + 1];
+		parents = new int[nDataDependencies];
+		int nChildren = 0;
+		int nParents = 0;
+		for (int i = 0; i < tasks.length; i++) {
+			childOffsets[i] = nChildren;
+			for (DataDependency outgoingEdge : graph.getOutEdges(tasks[i])) {
+				outgoingDataDependencies[nChildren] = outgoingEdge;
+				children[nChildren++] = graph.getDest(outgoingEdge).getIndex();
+			}
+			parentOffsets[i] = nParents;
+			for (DataDependency incomingEdge : graph.getInEdges(tasks[i])) {
+				parents[nParents++] = graph.getSource(incomingEdge).getIndex();
+			}
+		}
+		childOffsets[tasks.length] = nChildren;
+		parentOffsets[tasks.length] = nParents;
+	}
+
+	public int getNTasks() {
+		return tasks.length;
+	}
+
+	public Task getTask(int task) {
+		return tasks[task];
+	}
+
+	/**
+	 * Returns the index of the given task in this graph, or -1 if the task is not part of it. Unlike
+	 * {@link Task#getIndex()}, the index is looked up in the topological order of this graph.
+	 */
+	public int indexOf(Task task) {
+		int i = Arrays.binarySearch(tasks, task);
+		return (i >= 0) ? i : -1;
+	}
+
+	public int getNChildren(int task) {
+		return childOffsets[task + 1] - childOffsets[task];
+	}
+
+	/**
+	 * Returns the index of the given task's <tt>k</tt>-th child.
+	 */
+	public int getChild(int task, int k) {
+		return children[childOffsets[task] + k];
+	}
+
+	/**
+	 * Returns the data dependency between the given task and its <tt>k</tt>-th child.
+	 */
+	public DataDependency getOutgoingDataDependency(int task, int k) {
+		return outgoingDataDependencies[childOffsets[task] + k];
+	}
+
+	public int getNParents(int task) {
+		return parentOffsets[task + 1] - parentOffsets[task];
+	}
+
+	/**
+	 * Returns the index of the given task's <tt>k</tt>-th parent.
+	 */
+	public int getParent(int task, int k) {
+		return parents[parentOffsets[task] + k];
+	}
+
+}
@@ -5,13 +5,14 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.cloudbus.cloudsim.ParameterException;
 
 import de.huberlin.wbi.dcs.workflow.Task;
 import de.huberlin.wbi.dcs.workflow.Workflow;
 
-public class AlignmentTraceFileReader extends LogFileReader {
+public class AlignmentTraceFileReader extends StreamingLogFileReader {
 
 	@Override
 	protected void fillDataStructures(int userId, String filePath, boolean fileNames, boolean kernelTime, Workflow workflow) {
@@ -19,6 +20,14 @@ public class AlignmentTraceFileReader extends LogFileReader {
 
 			String line = logfile.readLine();
 			String[] splitLine;
+
+			// the files of the current task, which are registered once the
+			// task has been created
+			List<String> inputFileNames = new ArrayList<>();
+			List<Integer> inputFileSizes = new ArrayList<>();
+			List<String> outputFileNames = new ArrayList<>();
+			List<Integer> outputFileSizes = new ArrayList<>();
+
 			while (line != null) {
 				splitLine = line.split("\t");
 				String name = splitLine[2];
@@ -26,6 +35,10 @@ public class AlignmentTraceFileReader extends LogFileReader {
 				int timeInMs = 0;
 				int inputSize = 0;
 				int outputSize = 0;
+				inputFileNames.clear();
+				inputFileSizes.clear();
+				outputFileNames.clear();
+				outputFileSizes.clear();
 
 				do {
 					splitLine = line.split("\t");
@@ -36,11 +49,8 @@ public class AlignmentTraceFileReader extends LogFileReader {
 					int fileSize = Integer.parseInt(splitLine[4]) / 1024;
 					fileSize = (fileSize > 0) ? fileSize : 1;
 
-					if (!fileNameToFile.containsKey(fileName)) {
-						fileNameToFile.put(fileName, new org.cloudbus.cloudsim.File(fileName, fileSize));
-						fileNameToConsumingTaskIds.put(fileName, new ArrayList<Long>());
-					}
-					fileNameToConsumingTaskIds.get(fileName).add((long) cloudletId);
+					inputFileNames.add(fileName);
+					inputFileSizes.add(fileSize);
 					inputSize += fileSize;
 				} while ((line = logfile.readLine()).contains("input-file"));
 
@@ -60,17 +70,20 @@ public class AlignmentTraceFileReader extends LogFileReader {
 					int fileSize = Integer.parseInt(splitLine[4]) / 1024;
 					fileSize = (fileSize > 0) ? fileSize : 1;
 
-					if (!fileNameToFile.containsKey(fileName)) {
-						fileNameToFile.put(fileName, new org.cloudbus.cloudsim.File(fileName, fileSize));
-						fileNameToConsumingTaskIds.put(fileName, new ArrayList<Long>());
-					}
-					fileNameToProducingTaskId.put(fileName, (long) cloudletId);
+					outputFileNames.add(fileName);
+					outputFileSizes.add(fileSize);
 					outputSize += fileSize;
 				}
 
 				Task task = new Task(name, params, workflow, userId, cloudletId, timeInMs, (inputSize + outputSize), 0, 1, inputSize, outputSize, utilizationModel,
 				    utilizationModel, utilizationModel);
-				taskIdToTask.put((long) cloudletId, task);
+				workflow.addTask(task);
+				for (int i = 0; i < inputFileNames.size(); i++) {
+					consumeFile(inputFileNames.get(i), inputFileSizes.get(i), task, workflow);
+				}
+				for (int i = 0; i < outputFileNames.size(); i++) {
+					produceFile(outputFileNames.get(i), outputFileSizes.get(i), task, workflow);
+				}
 				cloudletId++;
 			}
 
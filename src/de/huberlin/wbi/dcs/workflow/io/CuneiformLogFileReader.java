@@ -3,9 +3,25 @@ package de.huberlin.wbi.dcs.workflow.io;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import org.cloudbus.cloudsim.File;
 import org.cloudbus.cloudsim.ParameterException;
 import org.json.JSONException;
 
@@ -13,80 +29,292 @@ import de.huberlin.wbi.cuneiform.core.semanticmodel.JsonReportEntry;
 import de.huberlin.wbi.dcs.workflow.Task;
 import de.huberlin.wbi.dcs.workflow.Workflow;
 
-public class CuneiformLogFileReader extends LogFileReader {
+/**
+ * A reader for Cuneiform traces, which contain one JSON report entry per line. If more than one
+ * thread is used, the trace is mapped into memory and split at line boundaries into (at least) one
+ * chunk per thread, whose lines are tokenized concurrently. The report entries of the chunks are
+ * applied to the workflow in the order in which they appear in the trace, such that the resulting
+ * workflow is the same as when parsing the trace sequentially. At most one chunk per thread is
+ * tokenized ahead of the chunk being applied, such that the report entries of only a few chunks
+ * are kept in memory at a time.
+ */
+public class CuneiformLogFileReader extends StreamingLogFileReader {
+
+	// the size of a chunk, unless there are fewer chunks than threads; it is
+	// small enough for a chunk to be mapped into memory even if its boundary
+	// has to be moved to the end of a long line
+	private static final long CHUNK_SIZE = 1 << 24;
+
+	private final int numberOfThreads;
+
+	// the tasks by invocation id
+	private final TaskMap tasks;
+
+	public CuneiformLogFileReader() {
+		this(1);
+	}
+
+	public CuneiformLogFileReader(int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+		tasks = new TaskMap();
+	}
 
 	@Override
 	protected void fillDataStructures(int userId, String filePath, boolean fileNames, boolean kernelTime, Workflow workflow) {
-		try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-			String line;
-			while ((line = reader.readLine()) != null) {
-				JsonReportEntry e = new JsonReportEntry(line);
-				if (e.hasInvocId()) {
-					Task task = createOrGetTask(e.getInvocId(), e.getTaskName(), workflow, userId);
-					switch (e.getKey()) {
-					case JsonReportEntry.KEY_INVOC_TIME:
-						task.incMi(e.getValueJsonObj().getLong("realTime"));
-						break;
-					case JsonReportEntry.KEY_FILE_SIZE_STAGEIN:
-						String fileName = e.getFile();
-						long fileSize = Long.parseLong(e.getValueRawString());
-						fileSize = (fileSize > 0 && fileSize < 1024) ? 1 : fileSize / 1024;
-						if (fileSize > 0) {
-							createOrGetFile(fileName, (int) fileSize);
-							task.incIo(fileSize);
-							fileNameToConsumingTaskIds.get(fileName).add(e.getInvocId());
+		try {
+			if (numberOfThreads > 1) {
+				fillDataStructuresInParallel(userId, filePath, workflow);
+			} else {
+				try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						JsonReportEntry e = new JsonReportEntry(line);
+						if (e.hasInvocId()) {
+							apply(e, userId, workflow);
 						}
-						break;
-					case JsonReportEntry.KEY_FILE_SIZE_STAGEOUT:
-						fileName = e.getFile();
-						fileSize = Long.parseLong(e.getValueRawString());
-						fileSize = (fileSize > 0 && fileSize < 1024) ? 1 : fileSize / 1024;
-						if (fileSize > 0) {
-							createOrGetFile(fileName, (int) fileSize);
-							task.incIo(fileSize);
-							fileNameToProducingTaskId.put(fileName, e.getInvocId());
-						}
-						break;
-					// case HiwayDBI.KEY_INVOC_TIME_STAGEIN:
-					// task.setBw(task.getBw()
-					// + e.getValueJsonObj().getLong("realTime"));
-					// break;
-					// case HiwayDBI.KEY_INVOC_TIME_STAGEOUT:
-					// task.setBw(task.getBw()
-					// + e.getValueJsonObj().getLong("realTime"));
-					// break;
-					default:
 					}
 				}
-
 			}
 		} catch (IOException e1) {
 			e1.printStackTrace();
 		} catch (JSONException e1) {
 			e1.printStackTrace();
+		} catch (ParameterException e1) {
+			e1.printStackTrace();
+		} catch (InterruptedException e1) {
+			e1.printStackTrace();
+		}
+	}
+
+	private void fillDataStructuresInParallel(int userId, String filePath, Workflow workflow) throws IOException, JSONException, ParameterException,
+	    InterruptedException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+			long size = channel.size();
+			int nChunks = (int) Math.max(numberOfThreads, (size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+			long[] boundaries = new long[nChunks + 1];
+			for (int i = 1; i < nChunks; i++) {
+				boundaries[i] = getNextLineStart(channel, Math.max(boundaries[i - 1], i * (size / nChunks)), size);
+			}
+			boundaries[nChunks] = size;
+
+			ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+			try {
+				// the chunks being tokenized, in the order of the trace
+				Queue<Future<List<JsonReportEntry>>> chunks = new ArrayDeque<>(numberOfThreads);
+				int nextChunk = 0;
+				for (; nextChunk < Math.min(numberOfThreads, nChunks); nextChunk++) {
+					chunks.add(executor.submit(new ChunkTokenizer(channel, boundaries[nextChunk], boundaries[nextChunk + 1])));
+				}
+				while (!chunks.isEmpty()) {
+					List<JsonReportEntry> entries = chunks.remove().get();
+					if (nextChunk < nChunks) {
+						chunks.add(executor.submit(new ChunkTokenizer(channel, boundaries[nextChunk], boundaries[nextChunk + 1])));
+						nextChunk++;
+					}
+					for (JsonReportEntry e : entries) {
+						apply(e, userId, workflow);
+					}
+				}
+			} catch (ExecutionException e1) {
+				Throwable cause = e1.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof JSONException) {
+					throw (JSONException) cause;
+				}
+				throw new RuntimeException(cause);
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	// returns the position of the first line starting at or after the given
+	// position
+	private static long getNextLineStart(FileChannel channel, long position, long size) throws IOException {
+		if (position == 0) {
+			return 0;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		long offset = position - 1;
+		while (offset < size) {
+			buffer.clear();
+			int n = channel.read(buffer, offset);
+			for (int i = 0; i < n; i++) {
+				if (buffer.get(i) == '\n') {
+					return offset + i + 1;
+				}
+			}
+			offset += n;
+		}
+		return size;
+	}
+
+	/**
+	 * Tokenizes the lines of a chunk of a trace. Of the report entries that are irrelevant for the
+	 * workflow, only the first one of each task is kept, since the order in which the tasks are
+	 * first mentioned determines the order in which they are created.
+	 */
+	private static class ChunkTokenizer implements Callable<List<JsonReportEntry>> {
+
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+
+		public ChunkTokenizer(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public List<JsonReportEntry> call() throws IOException, JSONException {
+			List<JsonReportEntry> entries = new ArrayList<>();
+			Set<Long> mentionedTasks = new HashSet<>();
+			MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+			Charset charset = Charset.defaultCharset();
+			byte[] line = new byte[256];
+			int length = 0;
+			while (length >= 0) {
+				boolean endOfChunk = !chunk.hasRemaining();
+				byte b = endOfChunk ? (byte) '\n' : chunk.get();
+				if (b == '\n') {
+					if (length > 0 && line[length - 1] == '\r') {
+						length--;
+					}
+					if (length > 0 || !endOfChunk) {
+						JsonReportEntry e = new JsonReportEntry(new String(line, 0, length, charset));
+						if (e.hasInvocId() && (mentionedTasks.add(e.getInvocId()) || isRelevant(e.getKey()))) {
+							entries.add(e);
+						}
+					}
+					length = endOfChunk ? -1 : 0;
+				} else {
+					if (length == line.length) {
+						line = Arrays.copyOf(line, 2 * length);
+					}
+					line[length++] = b;
+				}
+			}
+			return entries;
+		}
+
+	}
+
+	private static boolean isRelevant(String key) {
+		return key.equals(JsonReportEntry.KEY_INVOC_TIME) || key.equals(JsonReportEntry.KEY_FILE_SIZE_STAGEIN)
+		    || key.equals(JsonReportEntry.KEY_FILE_SIZE_STAGEOUT);
+	}
+
+	private void apply(JsonReportEntry e, int userId, Workflow workflow) throws JSONException, ParameterException {
+		Task task = createOrGetTask(e.getInvocId(), e.getTaskName(), workflow, userId);
+		switch (e.getKey()) {
+		case JsonReportEntry.KEY_INVOC_TIME:
+			task.incMi(e.getValueJsonObj().getLong("realTime"));
+			break;
+		case JsonReportEntry.KEY_FILE_SIZE_STAGEIN:
+			String fileName = e.getFile();
+			long fileSize = Long.parseLong(e.getValueRawString());
+			fileSize = (fileSize > 0 && fileSize < 1024) ? 1 : fileSize / 1024;
+			if (fileSize > 0) {
+				task.incIo(fileSize);
+				consumeFile(fileName, (int) fileSize, task, workflow);
+			}
+			break;
+		case JsonReportEntry.KEY_FILE_SIZE_STAGEOUT:
+			fileName = e.getFile();
+			fileSize = Long.parseLong(e.getValueRawString());
+			fileSize = (fileSize > 0 && fileSize < 1024) ? 1 : fileSize / 1024;
+			if (fileSize > 0) {
+				task.incIo(fileSize);
+				produceFile(fileName, (int) fileSize, task, workflow);
+			}
+			break;
+		// case HiwayDBI.KEY_INVOC_TIME_STAGEIN:
+		// task.setBw(task.getBw()
+		// + e.getValueJsonObj().getLong("realTime"));
+		// break;
+		// case HiwayDBI.KEY_INVOC_TIME_STAGEOUT:
+		// task.setBw(task.getBw()
+		// + e.getValueJsonObj().getLong("realTime"));
+		// break;
+		default:
 		}
 	}
 
 	private Task createOrGetTask(long taskId, String taskName, Workflow workflow, int userId) {
-		if (!taskIdToTask.containsKey(taskId)) {
-			Task task = new Task(taskName, "", workflow, userId, cloudletId++, 0, 0, 0, 1, 0, 0, utilizationModel, utilizationModel, utilizationModel);
-			taskIdToTask.put(taskId, task);
+		Task task = tasks.get(taskId);
+		if (task == null) {
+			task = new Task(taskName, "", workflow, userId, cloudletId++, 0, 0, 0, 1, 0, 0, utilizationModel, utilizationModel, utilizationModel);
+			workflow.addTask(task);
+			tasks.put(taskId, task);
 		}
-		return taskIdToTask.get(taskId);
+		return task;
 	}
 
-	private File createOrGetFile(String fileName, int fileSize) {
-		if (!fileNameToFile.containsKey(fileName)) {
-			File file;
-			try {
-				file = new File(fileName, fileSize);
-				fileNameToFile.put(fileName, file);
-				fileNameToConsumingTaskIds.put(fileName, new ArrayList<Long>());
-			} catch (ParameterException e) {
-				e.printStackTrace();
+	@Override
+	protected void populateEdges(int userId, String outputFileRegex, Workflow workflow) {
+		super.populateEdges(userId, outputFileRegex, workflow);
+		tasks.clear();
+	}
+
+	// maps invocation ids to tasks by open addressing, such that the ids are
+	// not boxed
+	private static class TaskMap {
+
+		private long[] keys;
+		private Task[] values;
+		private int size;
+
+		public TaskMap() {
+			clear();
+		}
+
+		public Task get(long taskId) {
+			return values[find(keys, values, taskId)];
+		}
+
+		public void put(long taskId, Task task) {
+			if (2 * (size + 1) > keys.length) {
+				long[] oldKeys = keys;
+				Task[] oldValues = values;
+				keys = new long[2 * oldKeys.length];
+				values = new Task[keys.length];
+				for (int j = 0; j < oldKeys.length; j++) {
+					if (oldValues[j] != null) {
+						int i = find(keys, values, oldKeys[j]);
+						keys[i] = oldKeys[j];
+						values[i] = oldValues[j];
+					}
+				}
+			}
+			int i = find(keys, values, taskId);
+			if (values[i] == null) {
+				keys[i] = taskId;
+				size++;
+			}
+			values[i] = task;
+		}
+
+		public void clear() {
+			keys = new long[16];
+			values = new Task[16];
+			size = 0;
+		}
+
+		// returns the position of the given id, or the free position at which
+		// it would be inserted
+		private static int find(long[] keys, Task[] values, long taskId) {
+			int mask = keys.length - 1;
+			long h = taskId * 0x9E3779B97F4A7C15L;
+			int i = (int) (h ^ (h >>> 32)) & mask;
+			while (values[i] != null && keys[i] != taskId) {
+				i = (i + 1) & mask;
 			}
+			return i;
 		}
-		return fileNameToFile.get(fileName);
+
 	}
 
 }
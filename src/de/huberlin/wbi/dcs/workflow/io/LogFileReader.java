@@ -4,17 +4,19 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.cloudbus.cloudsim.File;
 import org.cloudbus.cloudsim.UtilizationModel;
 import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.core.CloudSim;
 
 import de.huberlin.wbi.dcs.workflow.Task;
 import de.huberlin.wbi.dcs.workflow.Workflow;
 
 public abstract class LogFileReader {
 
-	protected static int cloudletId = 0;
+	protected int cloudletId = 0;
 
 	protected Map<String, File> fileNameToFile;
 	protected Map<String, Long> fileNameToProducingTaskId;
@@ -33,9 +35,13 @@ public abstract class LogFileReader {
 
 	public Workflow parseLogFile(int userId, String filePath, boolean fileNames, boolean kernelTime, String outputFileRegex) {
 		Workflow workflow = new Workflow();
+		// tasks get ids that are unique among the workflows of a simulation
+		cloudletId = CloudSim.getNextCloudletId();
 		fillDataStructures(userId, filePath, fileNames, kernelTime, workflow);
 		populateNodes(workflow);
 		populateEdges(userId, outputFileRegex == null ? ".*" : outputFileRegex, workflow);
+		CloudSim.setNextCloudletId(cloudletId);
+		workflow.getCompactGraph();
 		return workflow;
 	}
 
@@ -49,6 +55,7 @@ public abstract class LogFileReader {
 	}
 
 	protected void populateEdges(int userId, String outputFileRegex, Workflow workflow) {
+		Pattern outputFilePattern = Pattern.compile(outputFileRegex);
 		for (String fileName : fileNameToFile.keySet()) {
 			org.cloudbus.cloudsim.File file = fileNameToFile.get(fileName);
 
@@ -66,7 +73,7 @@ public abstract class LogFileReader {
 				    utilizationModel, utilizationModel, utilizationModel);
 				workflow.addTask(taskGeneratingThisFile);
 			}
-			if (tasksRequiringThisFile.size() == 0 && fileName.matches(outputFileRegex)) {
+			if (tasksRequiringThisFile.size() == 0 && outputFilePattern.matcher(fileName).matches()) {
 				Task taskRequiringThisFile = new Task("upload", fileName, workflow, userId, cloudletId++, 0, file.getSize(), file.getSize(), 1, file.getSize(), 0,
 				    utilizationModel, utilizationModel, utilizationModel);
 				workflow.addTask(taskRequiringThisFile);
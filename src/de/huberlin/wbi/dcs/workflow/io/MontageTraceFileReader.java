@@ -5,13 +5,18 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
 
 import org.cloudbus.cloudsim.ParameterException;
 
 import de.huberlin.wbi.dcs.workflow.Task;
 import de.huberlin.wbi.dcs.workflow.Workflow;
 
-public class MontageTraceFileReader extends LogFileReader {
+public class MontageTraceFileReader extends StreamingLogFileReader {
+
+	private static final Pattern FIELD_SEPARATOR = Pattern.compile(" : ");
+	private static final Pattern TIME_SEPARATOR = Pattern.compile("m|\\.|s");
 
 	@Override
 	protected void fillDataStructures(int userId, String filePath, boolean fileNames, boolean kernelTime, Workflow workflow) {
@@ -20,8 +25,15 @@ public class MontageTraceFileReader extends LogFileReader {
 			String line = logfile.readLine();
 			String[] splitLine;
 
+			// the files of the current task, which are registered once the
+			// task has been created
+			List<String> inputFileNames = new ArrayList<>();
+			List<Integer> inputFileSizes = new ArrayList<>();
+			List<String> outputFileNames = new ArrayList<>();
+			List<Integer> outputFileSizes = new ArrayList<>();
+
 			while (line != null) {
-				splitLine = line.split(" : ");
+				splitLine = FIELD_SEPARATOR.split(line);
 				String name = splitLine[1];
 				String params = "";
 				if (splitLine.length > 3) {
@@ -31,9 +43,13 @@ public class MontageTraceFileReader extends LogFileReader {
 				int timeInMs = 0;
 				int inputSize = 0;
 				int outputSize = 0;
+				inputFileNames.clear();
+				inputFileSizes.clear();
+				outputFileNames.clear();
+				outputFileSizes.clear();
 
 				while ((line = logfile.readLine()).contains("input")) {
-					splitLine = line.split(" : ");
+					splitLine = FIELD_SEPARATOR.split(line);
 					String fileName = splitLine[3];
 					if (fileNames) {
 						fileName = fileName.substring(Math.max(0, fileName.lastIndexOf('/') + 1));
@@ -44,16 +60,13 @@ public class MontageTraceFileReader extends LogFileReader {
 					}
 					fileSize = (fileSize > 0) ? fileSize : 1;
 
-					if (!fileNameToFile.containsKey(fileName)) {
-						fileNameToFile.put(fileName, new org.cloudbus.cloudsim.File(fileName, fileSize));
-						fileNameToConsumingTaskIds.put(fileName, new ArrayList<Long>());
-					}
-					fileNameToConsumingTaskIds.get(fileName).add((long) cloudletId);
+					inputFileNames.add(fileName);
+					inputFileSizes.add(fileSize);
 					inputSize += fileSize;
 				}
 
 				for (int i = 0; i < 2; i++) {
-					String[] userTime = logfile.readLine().split("\t")[1].split("m|\\.|s");
+					String[] userTime = TIME_SEPARATOR.split(logfile.readLine().split("\t")[1]);
 					timeInMs += Integer.parseInt(userTime[0]) * 60 * 1000 + Integer.parseInt(userTime[1]) * 1000 + Integer.parseInt(userTime[2]);
 					if (!kernelTime) {
 						logfile.readLine();
@@ -62,7 +75,7 @@ public class MontageTraceFileReader extends LogFileReader {
 				}
 
 				while ((line = logfile.readLine()) != null && line.contains("output")) {
-					splitLine = line.split(" : ");
+					splitLine = FIELD_SEPARATOR.split(line);
 					String fileName = splitLine[3];
 					if (fileNames) {
 						fileName = fileName.substring(Math.max(0, fileName.lastIndexOf('/') + 1));
@@ -73,17 +86,20 @@ public class MontageTraceFileReader extends LogFileReader {
 					}
 					fileSize = (fileSize > 0) ? fileSize : 1;
 
-					if (!fileNameToFile.containsKey(fileName)) {
-						fileNameToFile.put(fileName, new org.cloudbus.cloudsim.File(fileName, fileSize));
-						fileNameToConsumingTaskIds.put(fileName, new ArrayList<Long>());
-					}
-					fileNameToProducingTaskId.put(fileName, (long) cloudletId);
+					outputFileNames.add(fileName);
+					outputFileSizes.add(fileSize);
 					outputSize += fileSize;
 				}
 
 				Task task = new Task(name, params, workflow, userId, cloudletId, timeInMs, (inputSize + outputSize), 0, 1, inputSize, outputSize, utilizationModel,
 				    utilizationModel, utilizationModel);
-				taskIdToTask.put((long) cloudletId, task);
+				workflow.addTask(task);
+				for (int i = 0; i < inputFileNames.size(); i++) {
+					consumeFile(inputFileNames.get(i), inputFileSizes.get(i), task, workflow);
+				}
+				for (int i = 0; i < outputFileNames.size(); i++) {
+					produceFile(outputFileNames.get(i), outputFileSizes.get(i), task, workflow);
+				}
 				cloudletId++;
 			}
 
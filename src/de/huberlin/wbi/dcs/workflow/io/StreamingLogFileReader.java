@@ -0,0 +1,154 @@
+package de.huberlin.wbi.dcs.workflow.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.cloudbus.cloudsim.File;
+import org.cloudbus.cloudsim.ParameterException;
+
+import de.huberlin.wbi.dcs.workflow.DataDependency;
+import de.huberlin.wbi.dcs.workflow.Task;
+import de.huberlin.wbi.dcs.workflow.Workflow;
+
+/**
+ * A reader for traces that are parsed in a single pass, adding each task to the workflow as soon as
+ * it has been read and each data dependency as soon as both the task producing and the task
+ * consuming a file have been read. Hence, apart from the workflow itself, only the files that have
+ * not been both produced and consumed yet and the consumers of files whose producer has not been
+ * read yet are kept in memory. Once a file has been linked to a consumer, it is only kept as one of
+ * its data dependencies. Each file name is stored once, no matter how often the file is mentioned in
+ * the trace. A consumer depends on the last producer of a file read before it, or, if there is
+ * none, on its first producer read afterwards. Files without a producer are provided by a download
+ * task and files without a consumer are collected by an upload task once the whole trace has been
+ * read.
+ */
+public abstract class StreamingLogFileReader extends LogFileReader {
+
+	private static class FileState {
+
+		private final File file;
+
+		private Task producer;
+
+		// the consumers of this file that have been read before its producer,
+		// if any
+		private List<Task> pendingConsumers;
+
+		private boolean consumed;
+
+		public FileState(File file) {
+			this.file = file;
+		}
+
+	}
+
+	// the files that have not been linked to a consumer by their current
+	// producer, by name, in the order they were first mentioned in
+	private Map<String, FileState> fileStates;
+
+	// the other files by name, each with one of the data dependencies linking
+	// it to a consumer, from which the file and its producer are looked up
+	private Map<String, DataDependency> linkedFiles;
+
+	public StreamingLogFileReader() {
+		fileStates = new LinkedHashMap<>();
+		linkedFiles = new HashMap<>();
+	}
+
+	/**
+	 * Registers that the given file is consumed by the given task, which has already been added to
+	 * the workflow. The file is created with the given size, unless it has been mentioned before.
+	 */
+	protected void consumeFile(String fileName, int fileSize, Task task, Workflow workflow) throws ParameterException {
+		DataDependency linked = linkedFiles.get(fileName);
+		if (linked != null) {
+			task.addInputFile(linked.getFile());
+			workflow.addFile(linked.getFile(), workflow.getGraph().getSource(linked), task);
+			return;
+		}
+
+		FileState state = getOrCreateFileState(fileName, fileSize);
+		task.addInputFile(state.file);
+		state.consumed = true;
+		if (state.producer != null) {
+			fileStates.remove(fileName);
+			linkedFiles.put(fileName, workflow.addFile(state.file, state.producer, task));
+		} else {
+			if (state.pendingConsumers == null) {
+				state.pendingConsumers = new ArrayList<>();
+			}
+			state.pendingConsumers.add(task);
+		}
+	}
+
+	/**
+	 * Registers that the given file is produced by the given task, which has already been added to
+	 * the workflow. The file is created with the given size, unless it has been mentioned before.
+	 */
+	protected void produceFile(String fileName, int fileSize, Task task, Workflow workflow) throws ParameterException {
+		DataDependency linked = linkedFiles.remove(fileName);
+		if (linked != null) {
+			// consumers read from now on depend on the new producer
+			FileState state = new FileState(linked.getFile());
+			state.producer = task;
+			state.consumed = true;
+			fileStates.put(fileName, state);
+			return;
+		}
+
+		FileState state = getOrCreateFileState(fileName, fileSize);
+		state.producer = task;
+		if (state.pendingConsumers != null) {
+			DataDependency dataDependency = null;
+			for (Task consumer : state.pendingConsumers) {
+				dataDependency = workflow.addFile(state.file, task, consumer);
+			}
+			fileStates.remove(fileName);
+			linkedFiles.put(fileName, dataDependency);
+		}
+	}
+
+	private FileState getOrCreateFileState(String fileName, int fileSize) throws ParameterException {
+		FileState state = fileStates.get(fileName);
+		if (state == null) {
+			state = new FileState(new File(fileName, fileSize));
+			fileStates.put(fileName, state);
+		}
+		return state;
+	}
+
+	@Override
+	protected void populateNodes(Workflow workflow) {
+		// the tasks have been added while reading the trace
+	}
+
+	@Override
+	protected void populateEdges(int userId, String outputFileRegex, Workflow workflow) {
+		Pattern outputFilePattern = Pattern.compile(outputFileRegex);
+		for (FileState state : fileStates.values()) {
+			File file = state.file;
+			if (state.producer == null) {
+				state.producer = new Task("download", file.getName(), workflow, userId, cloudletId++, 0, file.getSize(), file.getSize(), 1, 0, file.getSize(),
+				    utilizationModel, utilizationModel, utilizationModel);
+				workflow.addTask(state.producer);
+				if (state.pendingConsumers != null) {
+					workflow.addFile(file, state.producer, state.pendingConsumers);
+				}
+			}
+			if (!state.consumed && outputFilePattern.matcher(file.getName()).matches()) {
+				Task taskRequiringThisFile = new Task("upload", file.getName(), workflow, userId, cloudletId++, 0, file.getSize(), file.getSize(), 1, file.getSize(),
+				    0, utilizationModel, utilizationModel, utilizationModel);
+				workflow.addTask(taskRequiringThisFile);
+				workflow.addFile(file, state.producer, Collections.singletonList(taskRequiringThisFile));
+			}
+		}
+		fileStates.clear();
+		linkedFiles.clear();
+	}
+
+}
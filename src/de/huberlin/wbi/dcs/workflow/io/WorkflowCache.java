@@ -0,0 +1,323 @@
+package de.huberlin.wbi.dcs.workflow.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.File;
+import org.cloudbus.cloudsim.ParameterException;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import de.huberlin.wbi.dcs.workflow.DataDependency;
+import de.huberlin.wbi.dcs.workflow.Task;
+import de.huberlin.wbi.dcs.workflow.Workflow;
+
+/**
+ * A cache of parsed workflows in a compact binary format, which holds the tasks in the order in
+ * which the workflow enumerates them and the data dependencies in the order in which they were
+ * added, such that a loaded workflow is simulated exactly like the parsed one. A workflow is
+ * written to the cache the first time its input is parsed and is identified by a hash of the
+ * input and the parameters it was parsed with, such that changing either leads to parsing it
+ * anew. Cached workflows are memory-mapped and read directly from the mapping. The cloudlet ids of
+ * the tasks are stored relative to the lowest one and are drawn from the current simulation when
+ * the workflow is loaded, just like when it is parsed.
+ */
+public class WorkflowCache {
+
+	private static final int MAGIC = 0x44435357; // "DCSW"
+
+	private static final int VERSION = 2;
+
+	private final Path directory;
+
+	public WorkflowCache(String directory) {
+		this.directory = Paths.get(directory);
+	}
+
+	/**
+	 * Loads the workflow parsed from the given input from the cache or, if it has not been cached
+	 * yet or its cache file cannot be read, parses it with the given reader and writes it to the
+	 * cache.
+	 */
+	public Workflow parseLogFile(LogFileReader reader, int userId, String filePath, boolean fileNames, boolean kernelTime, String outputFileRegex) {
+		Path cacheFile = null;
+		try {
+			cacheFile = directory.resolve(getKey(reader, filePath, fileNames, kernelTime, outputFileRegex) + ".wf");
+			if (Files.exists(cacheFile)) {
+				return readWorkflow(cacheFile, userId);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} catch (ParameterException e) {
+			e.printStackTrace();
+		} catch (RuntimeException e) {
+			// a corrupt file that has slipped through the checks of readWorkflow
+			e.printStackTrace();
+		}
+
+		Workflow workflow = reader.parseLogFile(userId, filePath, fileNames, kernelTime, outputFileRegex);
+		if (cacheFile != null) {
+			Path tempFile = null;
+			try {
+				Files.createDirectories(directory);
+				// workflows may be parsed by several runs at the same time, so the
+				// cache file is only moved into place once it is complete
+				tempFile = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+				try (OutputStream out = Files.newOutputStream(tempFile)) {
+					writeWorkflow(workflow, out);
+				}
+				Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				e.printStackTrace();
+			} finally {
+				// only left behind if writing or moving it failed
+				if (tempFile != null) {
+					try {
+						Files.deleteIfExists(tempFile);
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+		}
+		return workflow;
+	}
+
+	private static String getKey(LogFileReader reader, String filePath, boolean fileNames, boolean kernelTime, String outputFileRegex)
+	    throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		String parameters = VERSION + "\n" + reader.getClass().getName() + "\n" + fileNames + "\n" + kernelTime + "\n" + outputFileRegex + "\n";
+		digest.update(parameters.getBytes(StandardCharsets.UTF_8));
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+				digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Integer.MAX_VALUE, size - position)));
+			}
+		}
+		StringBuilder key = new StringBuilder();
+		for (byte b : digest.digest()) {
+			key.append(String.format("%02x", b));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Writes the given workflow in binary format. Each file is written once, along with the
+	 * position of the tasks and files it refers to.
+	 */
+	public static void writeWorkflow(Workflow workflow, OutputStream outputStream) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+		List<Task> tasks = new ArrayList<>(workflow.getTasks());
+		Map<Task, Integer> taskIndexes = new HashMap<>();
+		int firstCloudletId = Integer.MAX_VALUE;
+		for (Task task : tasks) {
+			taskIndexes.put(task, taskIndexes.size());
+			firstCloudletId = Math.min(firstCloudletId, task.getCloudletId());
+		}
+		List<DataDependency> dataDependencies = new ArrayList<>(workflow.getGraph().getEdges());
+		Collections.sort(dataDependencies, new Comparator<DataDependency>() {
+			@Override
+			public int compare(DataDependency d1, DataDependency d2) {
+				return Integer.compare(d1.getId(), d2.getId());
+			}
+		});
+		List<File> files = new ArrayList<>();
+		Map<File, Integer> fileIndexes = new HashMap<>();
+		for (Task task : tasks) {
+			for (File file : task.getInputFiles()) {
+				getFileIndex(file, files, fileIndexes);
+			}
+		}
+		for (DataDependency dataDependency : dataDependencies) {
+			getFileIndex(dataDependency.getFile(), files, fileIndexes);
+		}
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(files.size());
+		for (File file : files) {
+			writeString(file.getName(), out);
+			out.writeInt(file.getSize());
+		}
+		out.writeInt(tasks.size());
+		for (Task task : tasks) {
+			writeString(task.getName(), out);
+			writeString(task.getParams(), out);
+			out.writeInt(task.getCloudletId() - firstCloudletId);
+			out.writeLong(task.getMi());
+			out.writeLong(task.getIo());
+			out.writeLong(task.getBw());
+			out.writeInt(task.getNumberOfPes());
+			out.writeLong(task.getCloudletFileSize());
+			out.writeLong(task.getCloudletOutputSize());
+			out.writeInt(task.getInputFiles().size());
+			for (File file : task.getInputFiles()) {
+				out.writeInt(fileIndexes.get(file));
+			}
+		}
+		out.writeInt(dataDependencies.size());
+		for (DataDependency dataDependency : dataDependencies) {
+			out.writeInt(fileIndexes.get(dataDependency.getFile()));
+			out.writeInt(taskIndexes.get(workflow.getGraph().getSource(dataDependency)));
+			out.writeInt(taskIndexes.get(workflow.getGraph().getDest(dataDependency)));
+		}
+		out.flush();
+	}
+
+	// files do not override equals, so distinct files may share a name
+	private static int getFileIndex(File file, List<File> files, Map<File, Integer> fileIndexes) {
+		Integer index = fileIndexes.get(file);
+		if (index == null) {
+			index = files.size();
+			files.add(file);
+			fileIndexes.put(file, index);
+		}
+		return index;
+	}
+
+	private static void writeString(String s, DataOutputStream out) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a workflow written by {@link #writeWorkflow(Workflow, OutputStream)}, whose tasks are
+	 * assigned to the given user and get the next cloudlet ids of the current simulation. The whole
+	 * file is decoded before any task is created, such that a truncated or corrupt file leads to an
+	 * {@link IOException} without leaving a partial workflow behind.
+	 */
+	public static Workflow readWorkflow(Path path, int userId) throws IOException, ParameterException {
+		MappedByteBuffer in;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (in.remaining() < 8 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+			throw new IOException(path + " is not a cached workflow of version " + VERSION);
+		}
+
+		File[] files;
+		String[] names;
+		String[] params;
+		int[] cloudletIds;
+		long[] lengths;
+		int[] pesNumbers;
+		int[][] inputFiles;
+		int[] dependencies;
+		try {
+			files = new File[readLength(in)];
+			for (int i = 0; i < files.length; i++) {
+				String name = readString(in);
+				files[i] = new File(name, in.getInt());
+			}
+
+			int nTasks = readLength(in);
+			names = new String[nTasks];
+			params = new String[nTasks];
+			cloudletIds = new int[nTasks];
+			lengths = new long[5 * nTasks];
+			pesNumbers = new int[nTasks];
+			inputFiles = new int[nTasks][];
+			for (int i = 0; i < nTasks; i++) {
+				names[i] = readString(in);
+				params[i] = readString(in);
+				cloudletIds[i] = in.getInt();
+				lengths[5 * i] = in.getLong();
+				lengths[5 * i + 1] = in.getLong();
+				lengths[5 * i + 2] = in.getLong();
+				pesNumbers[i] = in.getInt();
+				lengths[5 * i + 3] = in.getLong();
+				lengths[5 * i + 4] = in.getLong();
+				inputFiles[i] = new int[readLength(in)];
+				for (int j = 0; j < inputFiles[i].length; j++) {
+					inputFiles[i][j] = readIndex(in, files.length);
+				}
+			}
+
+			dependencies = new int[3 * readLength(in)];
+			for (int i = 0; i < dependencies.length; i += 3) {
+				dependencies[i] = readIndex(in, files.length);
+				dependencies[i + 1] = readIndex(in, nTasks);
+				dependencies[i + 2] = readIndex(in, nTasks);
+			}
+			if (in.hasRemaining()) {
+				throw new IOException(path + " has trailing data");
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException(path + " is truncated", e);
+		}
+
+		Workflow workflow = new Workflow();
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		Task[] tasks = new Task[names.length];
+		int firstCloudletId = CloudSim.getNextCloudletId();
+		int nextCloudletId = firstCloudletId;
+		for (int i = 0; i < tasks.length; i++) {
+			int cloudletId = firstCloudletId + cloudletIds[i];
+			nextCloudletId = Math.max(nextCloudletId, cloudletId + 1);
+			tasks[i] = new Task(names[i], params[i], workflow, userId, cloudletId, lengths[5 * i], lengths[5 * i + 1], lengths[5 * i + 2], pesNumbers[i],
+			    lengths[5 * i + 3], lengths[5 * i + 4], utilizationModel, utilizationModel, utilizationModel);
+			for (int j : inputFiles[i]) {
+				tasks[i].addInputFile(files[j]);
+			}
+			workflow.addTask(tasks[i]);
+		}
+
+		for (int i = 0; i < dependencies.length; i += 3) {
+			workflow.addFile(files[dependencies[i]], tasks[dependencies[i + 1]], Collections.singletonList(tasks[dependencies[i + 2]]));
+		}
+		CloudSim.setNextCloudletId(nextCloudletId);
+		workflow.getCompactGraph();
+		return workflow;
+	}
+
+	// reads a number of elements, each of which takes at least one byte
+	private static int readLength(ByteBuffer in) throws IOException {
+		int length = in.getInt();
+		if (length < 0 || length > in.remaining()) {
+			throw new IOException("Invalid length " + length + " at position " + (in.position() - 4) + " of a cached workflow");
+		}
+		return length;
+	}
+
+	private static int readIndex(ByteBuffer in, int size) throws IOException {
+		int index = in.getInt();
+		if (index < 0 || index >= size) {
+			throw new IOException("Invalid index " + index + " of " + size + " at position " + (in.position() - 4) + " of a cached workflow");
+		}
+		return index;
+	}
+
+	private static String readString(ByteBuffer in) throws IOException {
+		byte[] bytes = new byte[readLength(in)];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -7,16 +7,15 @@ import java.util.Queue;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Host;
-import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
 
 import de.huberlin.wbi.dcs.DynamicHost;
 import de.huberlin.wbi.dcs.examples.Parameters;
-import de.huberlin.wbi.dcs.workflow.DataDependency;
 import de.huberlin.wbi.dcs.workflow.Task;
+import de.huberlin.wbi.dcs.workflow.WorkflowGraph;
+import de.huberlin.wbi.dcs.workflow.scheduler.TaskEventLog.Event;
 
 public abstract class AbstractReplicationScheduler extends AbstractWorkflowScheduler {
 
@@ -32,8 +31,7 @@ public abstract class AbstractReplicationScheduler extends AbstractWorkflowSched
 	}
 
 	private void submitSpeculativeTask(Task task, Vm vm) {
-		Log.printLine(CloudSim.clock() + ": " + getName() + ": VM # " + vm.getId() + " starts executing speculative copy of Task # " + task.getCloudletId() + " \""
-		    + task.getName() + " " + task.getParams() + " \"");
+		TaskEventLog.log(Event.SPECULATIVE_STARTED, this, vm.getId(), task);
 		task.setVmId(vm.getId());
 		if (numGen.nextDouble() < Parameters.likelihoodOfFailure) {
 			task.setScheduledToFail(true);
@@ -85,17 +83,13 @@ public abstract class AbstractReplicationScheduler extends AbstractWorkflowSched
 			}
 
 			if (task.isSpeculativeCopy()) {
-				Log.printLine(CloudSim.clock() + ": " + getName() + ": VM # " + speculativeTask.getVmId() + " completed speculative copy of Task # "
-				    + speculativeTask.getCloudletId() + " \"" + speculativeTask.getName() + " " + speculativeTask.getParams() + " \"");
-				Log.printLine(CloudSim.clock() + ": " + getName() + ": VM # " + originalTask.getVmId() + " cancelled Task # " + originalTask.getCloudletId() + " \""
-				    + originalTask.getName() + " " + originalTask.getParams() + " \"");
+				TaskEventLog.log(Event.SPECULATIVE_COMPLETED, this, speculativeTask.getVmId(), speculativeTask);
+				TaskEventLog.log(Event.CANCELLED, this, originalTask.getVmId(), originalTask);
 				availableVms.get(originalTask.getVmId()).getCloudletScheduler().cloudletCancel(originalTask.getCloudletId());
 			} else {
-				Log.printLine(CloudSim.clock() + ": " + getName() + ": VM # " + originalTask.getVmId() + " completed Task # " + originalTask.getCloudletId() + " \""
-				    + originalTask.getName() + " " + originalTask.getParams() + " \"");
+				TaskEventLog.log(Event.COMPLETED, this, originalTask.getVmId(), originalTask);
 				if (speculativeTask != null) {
-					Log.printLine(CloudSim.clock() + ": " + getName() + ": VM # " + speculativeTask.getVmId() + " cancelled speculative copy of Task # "
-					    + speculativeTask.getCloudletId() + " \"" + speculativeTask.getName() + " " + speculativeTask.getParams() + " \"");
+					TaskEventLog.log(Event.SPECULATIVE_CANCELLED, this, speculativeTask.getVmId(), speculativeTask);
 					availableVms.get(speculativeTask.getVmId()).getCloudletScheduler().cloudletCancel(speculativeTask.getCloudletId());
 				}
 			}
@@ -112,12 +106,13 @@ public abstract class AbstractReplicationScheduler extends AbstractWorkflowSched
 
 			// update the task queue by traversing the successor nodes in the
 			// workflow
-			for (DataDependency outgoingEdge : originalTask.getWorkflow().getGraph().getOutEdges(originalTask)) {
+			WorkflowGraph graph = originalTask.getWorkflow().getCompactGraph();
+			for (int k = 0; k < graph.getNChildren(originalTask.getIndex()); k++) {
 				if (host instanceof DynamicHost) {
 					DynamicHost dHost = (DynamicHost) host;
-					dHost.addFile(outgoingEdge.getFile());
+					dHost.addFile(graph.getOutgoingDataDependency(originalTask.getIndex(), k).getFile());
 				}
-				Task child = originalTask.getWorkflow().getGraph().getDest(outgoingEdge);
+				Task child = graph.getTask(graph.getChild(originalTask.getIndex(), k));
 				child.decNDataDependencies();
 				if (child.readyToExecute()) {
 					taskReady(child);
@@ -131,11 +126,9 @@ public abstract class AbstractReplicationScheduler extends AbstractWorkflowSched
 		} else {
 			Task speculativeTask = speculativeTasks.remove(task.getCloudletId());
 			if (task.isSpeculativeCopy()) {
-				Log.printLine(CloudSim.clock() + ": " + getName() + ": VM # " + task.getVmId() + " encountered an error with speculative copy of Task # "
-				    + task.getCloudletId() + " \"" + task.getName() + " " + task.getParams() + " \"");
+				TaskEventLog.log(Event.SPECULATIVE_FAILED, this, task.getVmId(), task);
 			} else {
-				Log.printLine(CloudSim.clock() + ": " + getName() + ": VM # " + task.getVmId() + " encountered an error with Task # " + task.getCloudletId() + " \""
-				    + task.getName() + " " + task.getParams() + " \"");
+				TaskEventLog.log(Event.FAILED, this, task.getVmId(), task);
 				tasks.remove(task.getCloudletId());
 				if (speculativeTask != null) {
 					speculativeTask.setSpeculativeCopy(false);
@@ -152,7 +145,7 @@ public abstract class AbstractReplicationScheduler extends AbstractWorkflowSched
 		if (tasksRemaining()) {
 			submitTasks();
 		} else if (signalFinished() || (idleTaskSlots.size() == getVmsCreatedList().size() * getTaskSlotsPerVm())) {
-			Log.printLine(CloudSim.clock() + ": " + getName() + ": All Tasks executed. Finishing...");
+			TaskEventLog.log(Event.FINISHED, this, -1, null);
 			terminate();
 			clearDatacenters();
 			finishExecution();
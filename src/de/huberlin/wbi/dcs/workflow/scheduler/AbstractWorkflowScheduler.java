@@ -12,22 +12,22 @@ import java.util.Random;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.DatacenterBroker;
 import org.cloudbus.cloudsim.Host;
-import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
 
 import de.huberlin.wbi.dcs.DynamicHost;
-import de.huberlin.wbi.dcs.DynamicVm;
 import de.huberlin.wbi.dcs.examples.Parameters;
-import de.huberlin.wbi.dcs.workflow.DataDependency;
+import de.huberlin.wbi.dcs.examples.Parameters.RandomStream;
 import de.huberlin.wbi.dcs.workflow.Task;
 import de.huberlin.wbi.dcs.workflow.Workflow;
+import de.huberlin.wbi.dcs.workflow.WorkflowGraph;
+import de.huberlin.wbi.dcs.workflow.scheduler.TaskEventLog.Event;
 
 public abstract class AbstractWorkflowScheduler extends DatacenterBroker implements WorkflowScheduler {
 
-	protected static Random numGen = new Random(Parameters.seed);
+	protected Random numGen;
 
 	protected List<Workflow> workflows;
 	protected Map<Integer, Vm> availableVms;
@@ -39,6 +39,7 @@ public abstract class AbstractWorkflowScheduler extends DatacenterBroker impleme
 
 	public AbstractWorkflowScheduler(String name, int taskSlotsPerVm) throws Exception {
 		super(name);
+		numGen = Parameters.getRandomStream(RandomStream.SCHEDULER, 0);
 		workflows = new ArrayList<>();
 		availableVms = new HashMap<>();
 		this.taskSlotsPerVm = taskSlotsPerVm;
@@ -55,12 +56,13 @@ public abstract class AbstractWorkflowScheduler extends DatacenterBroker impleme
 	}
 
 	public void submitWorkflow(Workflow workflow) {
+		// determines the depth of the workflow's tasks
+		workflow.getCompactGraph();
 		workflows.add(workflow);
 	}
 
 	protected void submitTask(Task task, Vm vm) {
-		Log.printLine(CloudSim.clock() + ": " + getName() + ": VM # " + vm.getId() + " starts executing Task # " + task.getCloudletId() + " \"" + task.getName()
-		    + " " + task.getParams() + " \"");
+		TaskEventLog.log(Event.STARTED, this, vm.getId(), task);
 		task.setVmId(vm.getId());
 		if (numGen.nextDouble() < Parameters.likelihoodOfFailure) {
 			task.setScheduledToFail(true);
@@ -118,12 +120,6 @@ public abstract class AbstractWorkflowScheduler extends DatacenterBroker impleme
 
 	@Override
 	protected void clearDatacenters() {
-		for (Vm vm : getVmsCreatedList()) {
-			if (vm instanceof DynamicVm) {
-				DynamicVm dVm = (DynamicVm) vm;
-				dVm.closePerformanceLog();
-			}
-		}
 		super.clearDatacenters();
 		workflowRuntime = CloudSim.clock();
 	}
@@ -149,8 +145,7 @@ public abstract class AbstractWorkflowScheduler extends DatacenterBroker impleme
 		Host host = vm.getHost();
 
 		if (task.getCloudletStatus() == Cloudlet.SUCCESS) {
-			Log.printLine(CloudSim.clock() + ": " + getName() + ": VM # " + task.getVmId() + " completed Task # " + task.getCloudletId() + " \"" + task.getName()
-			    + " " + task.getParams() + " \"");
+			TaskEventLog.log(Event.COMPLETED, this, task.getVmId(), task);
 
 			// free task slots occupied by finished / cancelled tasks
 			idleTaskSlots.add(vm);
@@ -158,12 +153,13 @@ public abstract class AbstractWorkflowScheduler extends DatacenterBroker impleme
 
 			// update the task queue by traversing the successor nodes in the
 			// workflow
-			for (DataDependency outgoingEdge : task.getWorkflow().getGraph().getOutEdges(task)) {
+			WorkflowGraph graph = task.getWorkflow().getCompactGraph();
+			for (int k = 0; k < graph.getNChildren(task.getIndex()); k++) {
 				if (host instanceof DynamicHost) {
 					DynamicHost dHost = (DynamicHost) host;
-					dHost.addFile(outgoingEdge.getFile());
+					dHost.addFile(graph.getOutgoingDataDependency(task.getIndex(), k).getFile());
 				}
-				Task child = task.getWorkflow().getGraph().getDest(outgoingEdge);
+				Task child = graph.getTask(graph.getChild(task.getIndex(), k));
 				child.decNDataDependencies();
 				if (child.readyToExecute()) {
 					taskReady(child);
@@ -172,8 +168,7 @@ public abstract class AbstractWorkflowScheduler extends DatacenterBroker impleme
 
 		} else {
 
-			Log.printLine(CloudSim.clock() + ": " + getName() + ": VM # " + task.getVmId() + " encountered an error with Task # " + task.getCloudletId() + " \""
-			    + task.getName() + " " + task.getParams() + " \"");
+			TaskEventLog.log(Event.FAILED, this, task.getVmId(), task);
 			runningTasks.remove(task.getCloudletId());
 
 			if (!task.isSpeculativeCopy()) {
@@ -188,7 +183,7 @@ public abstract class AbstractWorkflowScheduler extends DatacenterBroker impleme
 		if (tasksRemaining()) {
 			submitTasks();
 		} else if (signalFinished() || (idleTaskSlots.size() == getVmsCreatedList().size() * getTaskSlotsPerVm())) {
-			Log.printLine(CloudSim.clock() + ": " + getName() + ": All Tasks executed. Finishing...");
+			TaskEventLog.log(Event.FINISHED, this, -1, null);
 			terminate();
 			clearDatacenters();
 			finishExecution();
@@ -1,9 +1,11 @@
 package de.huberlin.wbi.dcs.workflow.scheduler;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 
@@ -19,20 +21,38 @@ public class C3 extends AbstractWorkflowScheduler {
 	private double outlookWeight = 2;
 	// private int nClones = 2;
 
-	// one job queue for each task category, identified by name
-	protected Map<String, Queue<Task>> queuePerTaskCategory;
-	protected Map<String, Integer> remainingTasksPerCategory;
+	// the task categories and VMs, identified by their index in the
+	// following arrays and maps
+	protected List<String> categories;
+	protected Map<String, Integer> categoryIndex;
+	protected List<Vm> vms;
+	protected Map<Vm, Integer> vmIndex;
+
+	// one job queue for each task category
+	protected List<Queue<Task>> queuePerTaskCategory;
+	protected int[] remainingTasksPerCategory;
 
 	// for each task category, remember two figures:
 	// (1) how many task instances of this category have been successfully
 	// executed
 	// (2) how much time has been spent in total for task instances of this
 	// category
-	protected Map<String, Integer> taskExecutionsPerTaskCategory;
-	protected Map<String, Double> timeSpentPerTaskCategory;
+	protected int[] taskExecutionsPerTaskCategory;
+	protected double[] timeSpentPerTaskCategory;
+
+	// for each task category and each VM, remember the last execution time
+	protected double[][] lastRuntimePerTaskCategoryAndVm;
+
+	// for each task category, the sum of the last execution times on all VMs
+	// and the sum of the VMs' suitabilities, i.e., their inverse normalized
+	// runtimes; both only change when a task of this category succeeds
+	protected double[] sumOfRuntimesPerTaskCategory;
+	protected double[] sumOfSuitabilitiesPerTaskCategory;
 
-	// for each VM and each task category, remember the last execution time
-	protected Map<Vm, Map<String, Double>> lastRuntimePerTaskCategoryAndVm;
+	// working arrays of getNextTask, reused across calls
+	private double[] shareOfRemainingRuntimePerCategory;
+	private double[] suitabilityOfThisVmByCategory;
+	private double[] likelihoodOfExecutionPerCategory;
 
 	// protected Map<Integer, Task> speculativeTasks;
 
@@ -51,165 +71,167 @@ public class C3 extends AbstractWorkflowScheduler {
 
 	public C3(String name, int taskSlotsPerVm) throws Exception {
 		super(name, taskSlotsPerVm);
-		queuePerTaskCategory = new HashMap<>();
-		remainingTasksPerCategory = new HashMap<>();
-		taskExecutionsPerTaskCategory = new HashMap<>();
-		timeSpentPerTaskCategory = new HashMap<>();
-		lastRuntimePerTaskCategoryAndVm = new HashMap<>();
+		categories = new ArrayList<>();
+		categoryIndex = new HashMap<>();
+		vms = new ArrayList<>();
+		vmIndex = new HashMap<>();
+		queuePerTaskCategory = new ArrayList<>();
+		remainingTasksPerCategory = new int[0];
+		taskExecutionsPerTaskCategory = new int[0];
+		timeSpentPerTaskCategory = new double[0];
+		lastRuntimePerTaskCategoryAndVm = new double[0][];
+		sumOfRuntimesPerTaskCategory = new double[0];
+		sumOfSuitabilitiesPerTaskCategory = new double[0];
+		shareOfRemainingRuntimePerCategory = new double[0];
+		suitabilityOfThisVmByCategory = new double[0];
+		likelihoodOfExecutionPerCategory = new double[0];
 	}
 
 	@Override
 	public void reschedule(Collection<Task> tasks, Collection<Vm> vms) {
 		for (Vm vm : vms) {
-			if (!lastRuntimePerTaskCategoryAndVm.containsKey(vm)) {
-				Map<String, Double> m = new HashMap<>();
-				lastRuntimePerTaskCategoryAndVm.put(vm, m);
+			if (!vmIndex.containsKey(vm)) {
+				vmIndex.put(vm, this.vms.size());
+				this.vms.add(vm);
 			}
 		}
 		for (Task task : tasks) {
-			if (!remainingTasksPerCategory.containsKey(task.getName())) {
-				remainingTasksPerCategory.put(task.getName(), 0);
-				Queue<Task> q = new LinkedList<>();
-				queuePerTaskCategory.put(task.getName(), q);
-				taskExecutionsPerTaskCategory.put(task.getName(), 0);
-				timeSpentPerTaskCategory.put(task.getName(), 0d);
-				for (Vm vm : vms) {
-					lastRuntimePerTaskCategoryAndVm.get(vm).put(task.getName(), 0d);
-				}
+			if (!categoryIndex.containsKey(task.getName())) {
+				categoryIndex.put(task.getName(), categories.size());
+				categories.add(task.getName());
+				queuePerTaskCategory.add(new LinkedList<Task>());
 			}
-			remainingTasksPerCategory.put(task.getName(), remainingTasksPerCategory.get(task.getName()) + 1);
+		}
+
+		int nCategories = categories.size();
+		int nVms = this.vms.size();
+		remainingTasksPerCategory = Arrays.copyOf(remainingTasksPerCategory, nCategories);
+		taskExecutionsPerTaskCategory = Arrays.copyOf(taskExecutionsPerTaskCategory, nCategories);
+		timeSpentPerTaskCategory = Arrays.copyOf(timeSpentPerTaskCategory, nCategories);
+		sumOfRuntimesPerTaskCategory = Arrays.copyOf(sumOfRuntimesPerTaskCategory, nCategories);
+		sumOfSuitabilitiesPerTaskCategory = Arrays.copyOf(sumOfSuitabilitiesPerTaskCategory, nCategories);
+		lastRuntimePerTaskCategoryAndVm = Arrays.copyOf(lastRuntimePerTaskCategoryAndVm, nCategories);
+		for (int cat = 0; cat < nCategories; cat++) {
+			double[] lastRuntimePerVm = lastRuntimePerTaskCategoryAndVm[cat];
+			lastRuntimePerTaskCategoryAndVm[cat] = (lastRuntimePerVm == null) ? new double[nVms] : Arrays.copyOf(lastRuntimePerVm, nVms);
+		}
+		shareOfRemainingRuntimePerCategory = new double[nCategories];
+		suitabilityOfThisVmByCategory = new double[nCategories];
+		likelihoodOfExecutionPerCategory = new double[nCategories];
+
+		for (Task task : tasks) {
+			remainingTasksPerCategory[categoryIndex.get(task.getName())]++;
 		}
 	}
 
 	@Override
 	public Task getNextTask(Vm vm) {
+		int nCategories = categories.size();
+		int v = vmIndex.get(vm);
+
 		// (2) Curiosity is encouraged: if there is a task category, which
 		// has not been executed yet by this Vm, execute it
-		for (String cat : queuePerTaskCategory.keySet()) {
-			if (queuePerTaskCategory.get(cat).size() > 0 && lastRuntimePerTaskCategoryAndVm.get(vm).get(cat) == 0d) {
-				Task task = queuePerTaskCategory.get(cat).remove();
-				remainingTasksPerCategory.put(task.getName(), remainingTasksPerCategory.get(task.getName()) - 1);
-				return task;
+		for (int cat = 0; cat < nCategories; cat++) {
+			if (queuePerTaskCategory.get(cat).size() > 0 && lastRuntimePerTaskCategoryAndVm[cat][v] == 0d) {
+				return removeTask(cat);
 			}
 		}
 
 		// (3) Otherwise, commence with default routine
 		// (a) compute the share each task category with ready-to-execute
 		// tasks contributes to overall runtime
-		Map<String, Double> shareOfRemainingRuntimePerCategory = new HashMap<>();
 		double sumOfShares = 0d;
-		for (String cat : queuePerTaskCategory.keySet()) {
+		for (int cat = 0; cat < nCategories; cat++) {
 			if (queuePerTaskCategory.get(cat).size() < 1) {
+				shareOfRemainingRuntimePerCategory[cat] = 0d;
 				continue;
 			}
 			// this vaue can't be zero since if it were zero, the task would
 			// have been selected for execution in (2)
-			int taskExecutions = taskExecutionsPerTaskCategory.get(cat);
-			double timeSpent = timeSpentPerTaskCategory.get(cat);
-			int remainingTasks = remainingTasksPerCategory.get(cat);
+			int taskExecutions = taskExecutionsPerTaskCategory[cat];
+			double timeSpent = timeSpentPerTaskCategory[cat];
+			int remainingTasks = remainingTasksPerCategory[cat];
 			double shareOfRemainingRuntime = remainingTasks * (timeSpent / taskExecutions);
 			sumOfShares += shareOfRemainingRuntime;
-			shareOfRemainingRuntimePerCategory.put(cat, shareOfRemainingRuntime);
-		}
-		for (String cat : shareOfRemainingRuntimePerCategory.keySet()) {
-			shareOfRemainingRuntimePerCategory.put(cat, shareOfRemainingRuntimePerCategory.get(cat) / sumOfShares);
+			shareOfRemainingRuntimePerCategory[cat] = shareOfRemainingRuntime;
 		}
 
-		// (b) compute the suitability of each vm to execute each task
-		Map<String, Double> suitabilityOfThisVmByCategory = new HashMap<>();
+		// (b) compute the suitability of this vm to execute each task, i.e.,
+		// its inverse runtime normalized by the runtimes of all vms, which is
+		// normalized again by the suitabilities of all vms
 		double sumOfSuitabilities = 0d;
-		for (String cat : shareOfRemainingRuntimePerCategory.keySet()) {
-			Map<Vm, Double> runtimeForCategoryByVm = new HashMap<>();
-			double sum = 0d;
-			for (Vm runningVm : lastRuntimePerTaskCategoryAndVm.keySet()) {
-				double lastRuntime = lastRuntimePerTaskCategoryAndVm.get(runningVm).get(cat);
-				sum += lastRuntime;
-				if (lastRuntime > 0d) {
-					runtimeForCategoryByVm.put(runningVm, lastRuntime);
-				}
-			}
-			// normalize runtimes to sum up to 1
-			for (Vm runningVm : runtimeForCategoryByVm.keySet()) {
-				runtimeForCategoryByVm.put(runningVm, runtimeForCategoryByVm.get(runningVm) / sum);
-			}
-
-			// suitability = inverse runtime
-			Map<Vm, Double> suitabilityForCategoryByVm = new HashMap<>();
-			sum = 0d;
-			for (Vm runningVm : runtimeForCategoryByVm.keySet()) {
-				double suitability = 1d / runtimeForCategoryByVm.get(runningVm);
-				sum += suitability;
-				suitabilityForCategoryByVm.put(runningVm, suitability);
-			}
-			// normalize again...
-			for (Vm runningVm : suitabilityForCategoryByVm.keySet()) {
-				suitabilityForCategoryByVm.put(runningVm, suitabilityForCategoryByVm.get(runningVm) / sum);
+		for (int cat = 0; cat < nCategories; cat++) {
+			if (queuePerTaskCategory.get(cat).size() < 1) {
+				continue;
 			}
-
-			double suitability = suitabilityForCategoryByVm.get(vm);
+			double runtime = lastRuntimePerTaskCategoryAndVm[cat][v] / sumOfRuntimesPerTaskCategory[cat];
+			double suitability = (1d / runtime) / sumOfSuitabilitiesPerTaskCategory[cat];
 			sumOfSuitabilities += suitability;
-			suitabilityOfThisVmByCategory.put(cat, suitability);
-		}
-		for (String cat : suitabilityOfThisVmByCategory.keySet()) {
-			suitabilityOfThisVmByCategory.put(cat, suitabilityOfThisVmByCategory.get(cat) / sumOfSuitabilities);
+			suitabilityOfThisVmByCategory[cat] = suitability;
 		}
 
 		// (c) compute the (normalized) product of necessity to execute a
 		// given task (due to large runtime of this category) and
 		// suitability of this vm
-		Map<String, Double> likelihoofOfExecutionPerCategory = new HashMap<>();
 		double sumOfLikelihoods = 0d;
-		for (String cat : shareOfRemainingRuntimePerCategory.keySet()) {
-			double likelihood = Math.pow(shareOfRemainingRuntimePerCategory.get(cat), outlookWeight)
-			    * Math.pow(suitabilityOfThisVmByCategory.get(cat), conservatismWeight);
+		for (int cat = 0; cat < nCategories; cat++) {
+			if (queuePerTaskCategory.get(cat).size() < 1) {
+				likelihoodOfExecutionPerCategory[cat] = 0d;
+				continue;
+			}
+			double likelihood = Math.pow(shareOfRemainingRuntimePerCategory[cat] / sumOfShares, outlookWeight)
+			    * Math.pow(suitabilityOfThisVmByCategory[cat] / sumOfSuitabilities, conservatismWeight);
 			sumOfLikelihoods += likelihood;
-			likelihoofOfExecutionPerCategory.put(cat, likelihood);
-		}
-		for (String cat : likelihoofOfExecutionPerCategory.keySet()) {
-			likelihoofOfExecutionPerCategory.put(cat, likelihoofOfExecutionPerCategory.get(cat) / sumOfLikelihoods);
+			likelihoodOfExecutionPerCategory[cat] = likelihood;
 		}
 
 		// (d) sample and submit task
 		if (doSample) {
-			Iterator<String> catIt = likelihoofOfExecutionPerCategory.keySet().iterator();
-			String cat = catIt.next();
-			double sample = numGen.nextDouble();
-			sumOfLikelihoods = 0d;
-			while (sample > (sumOfLikelihoods += likelihoofOfExecutionPerCategory.get(cat))) {
-				cat = catIt.next();
+			double sample = numGen.nextDouble() * sumOfLikelihoods;
+			int lastCat = -1;
+			double cumulativeLikelihood = 0d;
+			for (int cat = 0; cat < nCategories; cat++) {
+				if (queuePerTaskCategory.get(cat).size() < 1) {
+					continue;
+				}
+				lastCat = cat;
+				if (sample <= (cumulativeLikelihood += likelihoodOfExecutionPerCategory[cat])) {
+					break;
+				}
 			}
-			Task task = queuePerTaskCategory.get(cat).remove();
-			remainingTasksPerCategory.put(task.getName(), remainingTasksPerCategory.get(task.getName()) - 1);
-			return task;
+			return removeTask(lastCat);
 		}
 		double maxLikelihood = 0;
-		String maxCat = null;
-		for (String cat : likelihoofOfExecutionPerCategory.keySet()) {
-			if (likelihoofOfExecutionPerCategory.get(cat) > maxLikelihood) {
-				maxLikelihood = likelihoofOfExecutionPerCategory.get(cat);
+		int maxCat = -1;
+		for (int cat = 0; cat < nCategories; cat++) {
+			if (likelihoodOfExecutionPerCategory[cat] > maxLikelihood) {
+				maxLikelihood = likelihoodOfExecutionPerCategory[cat];
 				maxCat = cat;
 			}
 		}
-		Task task = queuePerTaskCategory.get(maxCat).remove();
-		remainingTasksPerCategory.put(task.getName(), remainingTasksPerCategory.get(task.getName()) - 1);
-		return task;
+		return removeTask(maxCat);
+	}
+
+	private Task removeTask(int cat) {
+		remainingTasksPerCategory[cat]--;
+		return queuePerTaskCategory.get(cat).remove();
 	}
 
 	@Override
 	public void taskFailed(Task task, Vm vm) {
-		remainingTasksPerCategory.put(task.getName(), remainingTasksPerCategory.get(task.getName()) + 1);
+		remainingTasksPerCategory[categoryIndex.get(task.getName())]++;
 	}
 
 	@Override
 	public void taskReady(Task task) {
-		queuePerTaskCategory.get(task.getName()).add(task);
+		queuePerTaskCategory.get(categoryIndex.get(task.getName())).add(task);
 		// sortQueuesByNumberOfSuccessors();
 	}
 
 	@Override
 	public boolean tasksRemaining() {
 		boolean tasksInQueue = false;
-		for (Queue<Task> queue : queuePerTaskCategory.values()) {
+		for (Queue<Task> queue : queuePerTaskCategory) {
 			if (queue.size() > 0) {
 				tasksInQueue = true;
 				break;
@@ -221,9 +243,28 @@ public class C3 extends AbstractWorkflowScheduler {
 	@Override
 	public void taskSucceeded(Task task, Vm vm) {
 		double runtime = task.getFinishTime() - task.getExecStartTime();
-		taskExecutionsPerTaskCategory.put(task.getName(), taskExecutionsPerTaskCategory.get(task.getName()) + 1);
-		timeSpentPerTaskCategory.put(task.getName(), timeSpentPerTaskCategory.get(task.getName()) + runtime);
-		lastRuntimePerTaskCategoryAndVm.get(vm).put(task.getName(), runtime);
+		int cat = categoryIndex.get(task.getName());
+		taskExecutionsPerTaskCategory[cat]++;
+		timeSpentPerTaskCategory[cat] += runtime;
+		double[] lastRuntimePerVm = lastRuntimePerTaskCategoryAndVm[cat];
+		lastRuntimePerVm[vmIndex.get(vm)] = runtime;
+
+		// update the sums used to normalize runtimes and suitabilities of
+		// this category, which are recomputed rather than adjusted by the
+		// difference to the previous runtime to avoid accumulating rounding
+		// errors
+		double sumOfRuntimes = 0d;
+		for (double lastRuntime : lastRuntimePerVm) {
+			sumOfRuntimes += lastRuntime;
+		}
+		double sumOfSuitabilities = 0d;
+		for (double lastRuntime : lastRuntimePerVm) {
+			if (lastRuntime > 0d) {
+				sumOfSuitabilities += 1d / (lastRuntime / sumOfRuntimes);
+			}
+		}
+		sumOfRuntimesPerTaskCategory[cat] = sumOfRuntimes;
+		sumOfSuitabilitiesPerTaskCategory[cat] = sumOfSuitabilities;
 	}
 
 	@Override
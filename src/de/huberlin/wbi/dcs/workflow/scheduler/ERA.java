@@ -5,6 +5,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
@@ -17,7 +18,7 @@ import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
 
-import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.special.Erf;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 
@@ -31,16 +32,25 @@ public class ERA extends AbstractReplicationScheduler {
 	public static boolean printEstimatesVsRuntimes = false;
 	public static boolean logarithmize = false;
 
+	private static final double SQRT2 = Math.sqrt(2d);
+
 	protected DecimalFormat df;
 	protected int runId;
 
 	protected Map<String, Queue<Task>> readyTasksPerBot;
 	protected Map<String, Set<Task>> runningTasksPerBot;
 	protected Map<Vm, Map<String, WienerProcessModel>> runtimePerBotPerVm;
+	protected Map<String, BotEstimates> estimatesPerBot;
 
 	protected List<Task> replicas;
 	protected Set<Task> todo;
 
+	// the quantile of the last estimate and the inverse error function of
+	// 2 * quantile - 1, from which the quantile of any normal distribution
+	// can be derived
+	private double quantile = Double.NaN;
+	private double erfInvOfQuantile;
+
 	public class Runtime {
 		public final double timestamp;
 		public final double runtime;
@@ -61,15 +71,26 @@ public class ERA extends AbstractReplicationScheduler {
 		protected int vmId;
 
 		protected Deque<Runtime> measurements;
-		protected Queue<Double> differences;
-		protected double sumOfDifferences;
 		protected Deque<Runtime> estimates;
 
+		// running moments of the differences between consecutive measurements,
+		// normalized by the square root of the time between them (Welford)
+		protected int numberOfDifferences;
+		protected double meanOfDifferences;
+		protected double sumOfSquaredDeviations;
+
+		// the last estimate, which remains valid until the next measurement
+		private double estimateTimestamp = Double.NaN;
+		private double estimateQuantile = Double.NaN;
+		private double estimate;
+
+		// the estimates of all VMs for this bag of tasks
+		protected BotEstimates botEstimates;
+
 		public WienerProcessModel(String botName, int vmId) {
 			this.botName = botName;
 			this.vmId = vmId;
 			measurements = new LinkedList<>();
-			differences = new LinkedList<>();
 			estimates = new LinkedList<>();
 		}
 
@@ -93,10 +114,16 @@ public class ERA extends AbstractReplicationScheduler {
 			if (!measurements.isEmpty()) {
 				Runtime lastMeasurement = measurements.getLast();
 				double difference = (measurement.runtime - lastMeasurement.runtime) / Math.sqrt(measurement.timestamp - lastMeasurement.timestamp);
-				sumOfDifferences += difference;
-				differences.add(difference);
+				numberOfDifferences++;
+				double deviation = difference - meanOfDifferences;
+				meanOfDifferences += deviation / numberOfDifferences;
+				sumOfSquaredDeviations += deviation * (difference - meanOfDifferences);
 			}
 			measurements.add(measurement);
+			estimateTimestamp = Double.NaN;
+			if (botEstimates != null) {
+				botEstimates.invalidate();
+			}
 		}
 
 		public double getEstimate(double timestamp, double quantile) {
@@ -104,29 +131,28 @@ public class ERA extends AbstractReplicationScheduler {
 				return logarithmize ? Math.pow(Math.E, measurements.getLast().runtime) : Math.max(measurements.getLast().runtime, Double.MIN_NORMAL);
 			}
 
-			if (differences.size() < 2) {
+			if (numberOfDifferences < 2) {
 				return 0d;
 			}
 
-			Runtime lastMeasurement = measurements.getLast();
+			if (timestamp != estimateTimestamp || quantile != estimateQuantile) {
+				Runtime lastMeasurement = measurements.getLast();
 
-			double variance = 0d;
-			double avgDifference = sumOfDifferences / differences.size();
-			for (double difference : differences) {
-				variance += Math.pow(difference - avgDifference, 2d);
-			}
-			variance /= differences.size() - 1;
+				double variance = sumOfSquaredDeviations / (numberOfDifferences - 1);
+				variance *= timestamp - lastMeasurement.timestamp;
 
-			variance *= timestamp - lastMeasurement.timestamp;
+				// the quantile of the normal distribution with the last measurement as
+				// mean and the given variance, computed as by commons-math
+				estimate = lastMeasurement.runtime;
+				if (variance > 0d) {
+					estimate = lastMeasurement.runtime + Math.sqrt(variance) * SQRT2 * getErfInvOfQuantile(quantile);
+				}
 
-			double estimate = lastMeasurement.runtime;
-			if (variance > 0d) {
-				NormalDistribution nd = new NormalDistribution(lastMeasurement.runtime, Math.sqrt(variance));
-				estimate = nd.inverseCumulativeProbability(quantile);
+				estimate = logarithmize ? Math.pow(Math.E, estimate) : Math.max(estimate, Double.MIN_NORMAL);
+				estimateTimestamp = timestamp;
+				estimateQuantile = quantile;
 			}
 
-			estimate = logarithmize ? Math.pow(Math.E, estimate) : Math.max(estimate, Double.MIN_NORMAL);
-
 			if (printEstimatesVsRuntimes) {
 				Runtime runtime = new Runtime(timestamp, estimate);
 				estimates.add(runtime);
@@ -135,11 +161,89 @@ public class ERA extends AbstractReplicationScheduler {
 		}
 	}
 
+	/**
+	 * The non-zero estimates of all VMs for a bag of tasks at a given time, aggregated into their sum,
+	 * number, minimum, and second smallest value. Since the estimates change with time, the aggregates
+	 * are determined anew whenever they are requested for another time or after a runtime has been
+	 * added to one of the VMs' models. Hence, all VMs that request a task at the same time share a
+	 * single pass over the VMs per bag of tasks.
+	 */
+	public class BotEstimates {
+		protected List<WienerProcessModel> models;
+
+		private double timestamp = Double.NaN;
+		private double quantile = Double.NaN;
+
+		protected double sum;
+		protected int num;
+		protected double min;
+		protected WienerProcessModel argMin;
+		protected double secondMin;
+
+		public BotEstimates() {
+			models = new ArrayList<>();
+		}
+
+		public void add(WienerProcessModel model) {
+			models.add(model);
+			model.botEstimates = this;
+			invalidate();
+		}
+
+		public void invalidate() {
+			timestamp = Double.NaN;
+		}
+
+		public void aggregate(double timestamp, double quantile) {
+			if (timestamp == this.timestamp && quantile == this.quantile) {
+				return;
+			}
+			sum = 0d;
+			num = 0;
+			min = Double.MAX_VALUE;
+			argMin = null;
+			secondMin = Double.MAX_VALUE;
+			for (WienerProcessModel model : models) {
+				double e = model.getEstimate(timestamp, quantile);
+				if (e == 0)
+					continue;
+				sum += e;
+				num++;
+				if (e < min) {
+					secondMin = min;
+					min = e;
+					argMin = model;
+				} else if (e < secondMin) {
+					secondMin = e;
+				}
+			}
+			this.timestamp = timestamp;
+			this.quantile = quantile;
+		}
+
+		// the smallest estimate of all VMs but the one of the given model
+		public double getMinExcluding(WienerProcessModel model) {
+			return (model == argMin) ? secondMin : min;
+		}
+	}
+
+	private double getErfInvOfQuantile(double quantile) {
+		if (quantile != this.quantile) {
+			if (quantile < 0d || quantile > 1d) {
+				throw new IllegalArgumentException("Quantile must be between 0.0 and 1.0");
+			}
+			erfInvOfQuantile = Erf.erfInv(2 * quantile - 1);
+			this.quantile = quantile;
+		}
+		return erfInvOfQuantile;
+	}
+
 	public ERA(String name, int taskSlotsPerVm, int runId) throws Exception {
 		super(name, taskSlotsPerVm);
 		readyTasksPerBot = new HashMap<>();
 		runningTasksPerBot = new HashMap<>();
 		runtimePerBotPerVm = new HashMap<>();
+		estimatesPerBot = new HashMap<>();
 		replicas = new LinkedList<>();
 		this.runId = runId;
 		Locale loc = new Locale("en");
@@ -166,6 +270,11 @@ public class ERA extends AbstractReplicationScheduler {
 			for (Vm vm : vms) {
 				runtimePerBotPerVm.get(vm).put(bot, new WienerProcessModel(bot, vm.getId()));
 			}
+			BotEstimates botEstimates = new BotEstimates();
+			for (Map<String, WienerProcessModel> runtimePerBot : runtimePerBotPerVm.values()) {
+				botEstimates.add(runtimePerBot.get(bot));
+			}
+			estimatesPerBot.put(bot, botEstimates);
 		}
 
 		todo = new HashSet<>(tasks);
@@ -178,68 +287,66 @@ public class ERA extends AbstractReplicationScheduler {
 		Map<String, Queue<Task>> b_ready = readyTasksPerBot;
 		Map<String, Set<Task>> b_run = runningTasksPerBot;
 
-		Map<String, Queue<Task>> b_select = b_ready;
+		// when replicating, the running tasks are candidates, of which the first
+		// one of the selected bag of tasks is copied
+		Map<String, ? extends Collection<Task>> b_select = b_ready;
 		if (b_ready.isEmpty()) {
-			b_select = new HashMap<>();
-			for (Entry<String, Set<Task>> e : b_run.entrySet()) {
-				Queue<Task> tasks = new LinkedList<>(e.getValue());
-				b_select.put(e.getKey(), tasks);
-			}
+			b_select = b_run;
 			replicate = true;
 		}
 
-		Set<Vm> m = runtimePerBotPerVm.keySet();
-		Queue<Task> b_min = null;
+		Map<String, WienerProcessModel> runtimePerBot = runtimePerBotPerVm.get(vm);
+		double quantile = replicate ? 0.5 : alpha;
+		String b_min = null;
 		double s_min = Double.MAX_VALUE;
-		for (Entry<String, Queue<Task>> b_i : b_select.entrySet()) {
-			double e_j = runtimePerBotPerVm.get(vm).get(b_i.getKey()).getEstimate(CloudSim.clock(), replicate ? 0.5 : alpha);
+		for (Entry<String, ? extends Collection<Task>> b_i : b_select.entrySet()) {
+			WienerProcessModel model = runtimePerBot.get(b_i.getKey());
+			double e_vm = model.getEstimate(CloudSim.clock(), quantile);
+			double e_j = e_vm;
 			if (e_j == 0) {
 				if (!replicate) {
-					b_min = b_i.getValue();
+					b_min = b_i.getKey();
 					break;
 				}
 				e_j = Double.MAX_VALUE;
 			}
 
-			double e_min = Double.MAX_VALUE;
-			double e_sum = e_j;
-			int e_num = 1;
-			for (Vm k : m) {
-				double e_k = runtimePerBotPerVm.get(k).get(b_i.getKey()).getEstimate(CloudSim.clock(), replicate ? 0.5 : alpha);
-				if (k.equals(vm) || e_k == 0)
-					continue;
-				if (e_k < e_min) {
-					e_min = e_k;
-				}
-				e_sum += e_k;
-				e_num++;
+			// the estimates of all VMs other than this one
+			BotEstimates e = estimatesPerBot.get(b_i.getKey());
+			e.aggregate(CloudSim.clock(), quantile);
+			double e_min = e.getMinExcluding(model);
+			double e_sum = e_j + e.sum;
+			int e_num = 1 + e.num;
+			if (e_vm != 0) {
+				e_sum -= e_vm;
+				e_num--;
 			}
 
 			double s = (e_j - e_min) / (e_sum / e_num);
 			if (s < s_min) {
 				s_min = s;
-				b_min = b_i.getValue();
+				b_min = b_i.getKey();
 			}
 		}
 
-		if (b_min != null && !b_min.isEmpty()) {
-			Task task = b_min.remove();
-
+		if (b_min != null && !b_select.get(b_min).isEmpty()) {
 			if (replicate) {
-				task = new Task(task);
+				Task task = new Task(b_run.get(b_min).iterator().next());
 				task.setSpeculativeCopy(true);
 				replicas.add(task);
-			} else {
-				if (!runningTasksPerBot.containsKey(task.getName())) {
-					Set<Task> s = new HashSet<>();
-					runningTasksPerBot.put(task.getName(), s);
-				}
-				runningTasksPerBot.get(task.getName()).add(task);
+				return task;
+			}
 
-				if (readyTasksPerBot.get(task.getName()).isEmpty()) {
-					readyTasksPerBot.remove(task.getName());
-				}
+			Queue<Task> q = b_ready.get(b_min);
+			Task task = q.remove();
+			if (!runningTasksPerBot.containsKey(task.getName())) {
+				Set<Task> s = new HashSet<>();
+				runningTasksPerBot.put(task.getName(), s);
+			}
+			runningTasksPerBot.get(task.getName()).add(task);
 
+			if (q.isEmpty()) {
+				readyTasksPerBot.remove(task.getName());
 			}
 
 			return task;
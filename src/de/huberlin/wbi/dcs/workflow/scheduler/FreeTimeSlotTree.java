@@ -0,0 +1,249 @@
+package de.huberlin.wbi.dcs.workflow.scheduler;
+
+import java.util.Arrays;
+
+/**
+ * The free time slots of a VM, i.e., disjoint intervals identified by their start time, stored in a
+ * treap ordered by start time, whose nodes are augmented with the maximum length of all time slots
+ * in their subtree. Besides finding, inserting, and removing time slots in O(log n) expected time,
+ * this allows finding the earliest time slot after a given time that is longer than a given
+ * duration in O(log n) expected time. The nodes are kept in primitive arrays, which are only
+ * reallocated when the tree outgrows them, and the priorities of the treap are drawn from a
+ * generator with a fixed seed, such that the tree does not interfere with the simulation's random
+ * numbers.
+ */
+public class FreeTimeSlotTree {
+
+	private static final int NIL = -1;
+
+	private double[] start;
+	private double[] length;
+	private double[] maxLength;
+	private int[] left;
+	private int[] right;
+	private int[] priority;
+
+	private int root;
+	private int size;
+
+	// nodes freed by removals, linked via their left child
+	private int free;
+	private int used;
+
+	private int seed;
+
+	public FreeTimeSlotTree() {
+		int capacity = 16;
+		start = new double[capacity];
+		length = new double[capacity];
+		maxLength = new double[capacity];
+		left = new int[capacity];
+		right = new int[capacity];
+		priority = new int[capacity];
+		root = NIL;
+		free = NIL;
+		seed = 0x2545F491;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the start of the latest time slot starting at or before the given time, or NaN if
+	 * there is none.
+	 */
+	public double floor(double time) {
+		double floor = Double.NaN;
+		int node = root;
+		while (node != NIL) {
+			if (start[node] <= time) {
+				floor = start[node];
+				node = right[node];
+			} else {
+				node = left[node];
+			}
+		}
+		return floor;
+	}
+
+	/**
+	 * Returns the length of the time slot starting at the given time, or NaN if there is none.
+	 */
+	public double getLength(double slotStart) {
+		int node = find(slotStart);
+		return (node == NIL) ? Double.NaN : length[node];
+	}
+
+	/**
+	 * Returns the start of the earliest time slot starting after the given time, which is longer
+	 * than the given duration, or NaN if there is none.
+	 */
+	public double firstStartAfter(double time, double duration) {
+		int node = firstAfter(root, time, duration);
+		return (node == NIL) ? Double.NaN : start[node];
+	}
+
+	/**
+	 * Adds a time slot or, if there already is a time slot with the given start, sets its length.
+	 */
+	public void put(double slotStart, double slotLength) {
+		root = put(root, slotStart, slotLength);
+	}
+
+	public void remove(double slotStart) {
+		root = remove(root, slotStart);
+	}
+
+	private int find(double slotStart) {
+		int node = root;
+		while (node != NIL && start[node] != slotStart) {
+			node = (slotStart < start[node]) ? left[node] : right[node];
+		}
+		return node;
+	}
+
+	private int firstAfter(int node, double time, double duration) {
+		while (node != NIL && maxLength[node] > duration) {
+			if (start[node] <= time) {
+				node = right[node];
+				continue;
+			}
+			int first = firstAfter(left[node], time, duration);
+			if (first != NIL) {
+				return first;
+			}
+			if (length[node] > duration) {
+				return node;
+			}
+			node = right[node];
+		}
+		return NIL;
+	}
+
+	private int put(int node, double slotStart, double slotLength) {
+		if (node == NIL) {
+			return newNode(slotStart, slotLength);
+		}
+		// the arrays may be reallocated by the recursive call, so its result
+		// is only assigned afterwards
+		if (slotStart == start[node]) {
+			length[node] = slotLength;
+		} else if (slotStart < start[node]) {
+			int l = put(left[node], slotStart, slotLength);
+			left[node] = l;
+			if (priority[left[node]] > priority[node]) {
+				node = rotateRight(node);
+			}
+		} else {
+			int r = put(right[node], slotStart, slotLength);
+			right[node] = r;
+			if (priority[right[node]] > priority[node]) {
+				node = rotateLeft(node);
+			}
+		}
+		update(node);
+		return node;
+	}
+
+	private int remove(int node, double slotStart) {
+		if (node == NIL) {
+			return NIL;
+		}
+		if (slotStart == start[node]) {
+			int merged = merge(left[node], right[node]);
+			freeNode(node);
+			return merged;
+		}
+		if (slotStart < start[node]) {
+			left[node] = remove(left[node], slotStart);
+		} else {
+			right[node] = remove(right[node], slotStart);
+		}
+		update(node);
+		return node;
+	}
+
+	// merges two subtrees, all of whose keys in the first are smaller than in the second
+	private int merge(int a, int b) {
+		if (a == NIL) {
+			return b;
+		}
+		if (b == NIL) {
+			return a;
+		}
+		if (priority[a] > priority[b]) {
+			right[a] = merge(right[a], b);
+			update(a);
+			return a;
+		}
+		left[b] = merge(a, left[b]);
+		update(b);
+		return b;
+	}
+
+	private int rotateRight(int node) {
+		int l = left[node];
+		left[node] = right[l];
+		right[l] = node;
+		update(node);
+		return l;
+	}
+
+	private int rotateLeft(int node) {
+		int r = right[node];
+		right[node] = left[r];
+		left[r] = node;
+		update(node);
+		return r;
+	}
+
+	private void update(int node) {
+		double max = length[node];
+		if (left[node] != NIL && maxLength[left[node]] > max) {
+			max = maxLength[left[node]];
+		}
+		if (right[node] != NIL && maxLength[right[node]] > max) {
+			max = maxLength[right[node]];
+		}
+		maxLength[node] = max;
+	}
+
+	private int newNode(double slotStart, double slotLength) {
+		int node;
+		if (free != NIL) {
+			node = free;
+			free = left[node];
+		} else {
+			if (used == start.length) {
+				int capacity = 2 * used;
+				start = Arrays.copyOf(start, capacity);
+				length = Arrays.copyOf(length, capacity);
+				maxLength = Arrays.copyOf(maxLength, capacity);
+				left = Arrays.copyOf(left, capacity);
+				right = Arrays.copyOf(right, capacity);
+				priority = Arrays.copyOf(priority, capacity);
+			}
+			node = used++;
+		}
+		start[node] = slotStart;
+		length[node] = slotLength;
+		maxLength[node] = slotLength;
+		left[node] = NIL;
+		right[node] = NIL;
+		// xorshift
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		priority[node] = seed;
+		size++;
+		return node;
+	}
+
+	private void freeNode(int node) {
+		left[node] = free;
+		free = node;
+		size--;
+	}
+
+}
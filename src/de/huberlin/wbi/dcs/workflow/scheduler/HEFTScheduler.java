@@ -1,58 +1,153 @@
 package de.huberlin.wbi.dcs.workflow.scheduler;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
-import org.cloudbus.cloudsim.core.CloudSim;
 
 import de.huberlin.wbi.dcs.DynamicVm;
 import de.huberlin.wbi.dcs.examples.Parameters;
-import de.huberlin.wbi.dcs.workflow.DataDependency;
 import de.huberlin.wbi.dcs.workflow.Task;
+import de.huberlin.wbi.dcs.workflow.WorkflowGraph;
+import de.huberlin.wbi.dcs.workflow.scheduler.TaskEventLog.Event;
 
 // currently assumes no data transfer times (similar to CloudSim)
 // and is provided with runtime estimates per VM as if there were only one taskslot per Vm
 public class HEFTScheduler extends StaticRoundRobinScheduler {
 
-	public class TaskUpwardRankComparator implements Comparator<Task> {
+	public class TaskUpwardRankComparator implements Comparator<Integer> {
+
+		private final double[] upwardRanks;
+
+		public TaskUpwardRankComparator(double[] upwardRanks) {
+			this.upwardRanks = upwardRanks;
+		}
+
+		@Override
+		public int compare(Integer task1, Integer task2) {
+			return Double.compare(upwardRanks[task2], upwardRanks[task1]);
+		}
+
+	}
+
+	// the minimum number of tasks or vms evaluated by a single thread, such
+	// that planning for at most this many tasks or vms does not fork at all
+	private static final int MIN_GRAIN = 64;
+
+	// evaluates the tasks or vms in a range in parallel by splitting it in
+	// halves until it contains at most a given number of elements
+	private abstract static class RangeAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		protected final int from;
+		protected final int to;
+		private final int grain;
+
+		public RangeAction(int from, int to, int grain) {
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				computeDirectly();
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(split(from, mid), split(mid, to));
+			}
+		}
+
+		protected int getGrain() {
+			return grain;
+		}
+
+		protected abstract void computeDirectly();
+
+		protected abstract RangeAction split(int from, int to);
+
+	}
+
+	private class AverageComputationCostAction extends RangeAction {
+
+		private static final long serialVersionUID = 1L;
+
+		public AverageComputationCostAction(int from, int to, int grain) {
+			super(from, to, grain);
+		}
 
 		@Override
-		public int compare(Task task1, Task task2) {
-			return Double.compare(upwardRanks.get(task2), upwardRanks.get(task1));
+		protected void computeDirectly() {
+			computeAverageComputationCosts(from, to);
+		}
+
+		@Override
+		protected RangeAction split(int from, int to) {
+			return new AverageComputationCostAction(from, to, getGrain());
 		}
 
 	}
 
-	Map<Task, Double> readyTimePerTask;
-	Map<Vm, TreeSet<Double>> freeTimeSlotStartsPerVm;
-	Map<Vm, Map<Double, Double>> freeTimeSlotLengthsPerVm;
+	private class EarliestStartAction extends RangeAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int task;
 
-	Map<Task, Double> distortedMiPerTask;
-	Map<Task, Double> distortedIoPerTask;
-	Map<Task, Double> distortedBwPerTask;
+		public EarliestStartAction(int task, int from, int to, int grain) {
+			super(from, to, grain);
+			this.task = task;
+		}
+
+		@Override
+		protected void computeDirectly() {
+			computeEarliestStarts(task, from, to);
+		}
 
-	Map<Task, Double> upwardRanks;
+		@Override
+		protected RangeAction split(int from, int to) {
+			return new EarliestStartAction(task, from, to, getGrain());
+		}
+
+	}
+
+	Map<Vm, FreeTimeSlotTree> freeTimeSlotsPerVm;
+
+	// the threads evaluating tasks and vms in parallel, created on the first
+	// call to reschedule if more than one planning thread is requested
+	private ForkJoinPool pool;
+
+	// the tasks and vms of the current call to reschedule, identified by
+	// their index in the following arrays; the children of each task are
+	// stored in consecutive ranges of a single array
+	Task[] taskArray;
+	int[] childOffsets;
+	int[] children;
+	double[] distortedMiPerTask;
+	double[] distortedIoPerTask;
+	double[] distortedBwPerTask;
+	double[] averageComputationCostPerTask;
+	double[] readyTimePerTask;
+
+	Vm[] vmArray;
+	FreeTimeSlotTree[] freeTimeSlotsArray;
+	double[] mipsPerVm;
+	double[] ioPerVm;
+	double[] bwPerVm;
+	double[] earliestStartPerVm;
 
 	public HEFTScheduler(String name, int taskSlotsPerVm) throws Exception {
 		super(name, taskSlotsPerVm);
-		readyTimePerTask = new HashMap<>();
-		freeTimeSlotStartsPerVm = new HashMap<>();
-		freeTimeSlotLengthsPerVm = new HashMap<>();
-		distortedMiPerTask = new HashMap<>();
-		distortedIoPerTask = new HashMap<>();
-		distortedBwPerTask = new HashMap<>();
-		upwardRanks = new HashMap<>();
+		freeTimeSlotsPerVm = new HashMap<>();
 	}
 
 	@Override
@@ -62,135 +157,282 @@ public class HEFTScheduler extends StaticRoundRobinScheduler {
 				Queue<Task> q = new LinkedList<>();
 				readyTasks.put(vm, q);
 
-				TreeSet<Double> occupiedTimeSlotStarts = new TreeSet<>();
-				occupiedTimeSlotStarts.add(0d);
-				freeTimeSlotStartsPerVm.put(vm, occupiedTimeSlotStarts);
-				Map<Double, Double> freeTimeSlotLengths = new HashMap<>();
-				freeTimeSlotLengths.put(0d, Double.MAX_VALUE);
-				freeTimeSlotLengthsPerVm.put(vm, freeTimeSlotLengths);
+				FreeTimeSlotTree freeTimeSlots = new FreeTimeSlotTree();
+				freeTimeSlots.put(0d, Double.MAX_VALUE);
+				freeTimeSlotsPerVm.put(vm, freeTimeSlots);
 			}
 		}
 
-		List<Task> sortedTasks = new ArrayList<>(tasks);
-		Collections.sort(sortedTasks);
+		if (tasks.isEmpty()) {
+			return;
+		}
+
+		try {
+			plan(tasks, vms);
+		} finally {
+			// the planning state is only valid during a single call
+			taskArray = null;
+			childOffsets = null;
+			children = null;
+			distortedMiPerTask = null;
+			distortedIoPerTask = null;
+			distortedBwPerTask = null;
+			averageComputationCostPerTask = null;
+			readyTimePerTask = null;
+			vmArray = null;
+			freeTimeSlotsArray = null;
+			mipsPerVm = null;
+			ioPerVm = null;
+			bwPerVm = null;
+			earliestStartPerVm = null;
+		}
+	}
+
+	private void plan(Collection<Task> tasks, Collection<Vm> vms) {
+		// the tasks are identified by their index in a topological order, i.e.,
+		// ordered by depth and cloudlet id, such that successors have a greater
+		// index than their predecessors
+		int nTasks = tasks.size();
+		taskArray = tasks.toArray(new Task[nTasks]);
+		Arrays.sort(taskArray);
+		indexChildren();
+
+		// the speeds of the vms
+		int nVms = vms.size();
+		vmArray = vms.toArray(new Vm[nVms]);
+		freeTimeSlotsArray = new FreeTimeSlotTree[nVms];
+		mipsPerVm = new double[nVms];
+		ioPerVm = new double[nVms];
+		bwPerVm = new double[nVms];
+		earliestStartPerVm = new double[nVms];
+		for (int v = 0; v < nVms; v++) {
+			Vm vm = vmArray[v];
+			freeTimeSlotsArray[v] = freeTimeSlotsPerVm.get(vm);
+			mipsPerVm[v] = vm.getNumberOfPes() * vm.getMips();
+			ioPerVm[v] = (vm instanceof DynamicVm) ? ((DynamicVm) vm).getIo() : Double.NaN;
+			bwPerVm[v] = vm.getBw();
+		}
 
 		// distort runtime estimates
-		for (Task task : sortedTasks) {
-			distortedMiPerTask.put(task, Math.max(0d, task.getMi() + task.getMi() * numGen.nextGaussian() * Parameters.distortionCV));
-			distortedIoPerTask.put(task, Math.max(0d, task.getIo() + task.getIo() * numGen.nextGaussian() * Parameters.distortionCV));
-			distortedBwPerTask.put(task, Math.max(0d, task.getBw() + task.getBw() * numGen.nextGaussian() * Parameters.distortionCV));
+		distortedMiPerTask = new double[nTasks];
+		distortedIoPerTask = new double[nTasks];
+		distortedBwPerTask = new double[nTasks];
+		for (int i = 0; i < nTasks; i++) {
+			Task task = taskArray[i];
+			distortedMiPerTask[i] = Math.max(0d, task.getMi() + task.getMi() * numGen.nextGaussian() * Parameters.distortionCV);
+			distortedIoPerTask[i] = Math.max(0d, task.getIo() + task.getIo() * numGen.nextGaussian() * Parameters.distortionCV);
+			distortedBwPerTask[i] = Math.max(0d, task.getBw() + task.getBw() * numGen.nextGaussian() * Parameters.distortionCV);
+		}
+
+		// the vms are evaluated in parallel, if requested; since each task
+		// and vm is evaluated on its own and the results are combined in the
+		// same order as in sequential planning, the schedule does not depend
+		// on the number of threads
+		int threads = Parameters.numberOfPlanningThreads;
+		if (threads > 1 && pool == null) {
+			pool = new ForkJoinPool(threads);
 		}
+		int taskGrain = getGrain(nTasks, threads);
+		int vmGrain = getGrain(nVms, threads);
 
 		// compute upward ranks of all tasks
-		for (int i = sortedTasks.size() - 1; i >= 0; i--) {
-			Task task = sortedTasks.get(i);
-			readyTimePerTask.put(task, 0d);
+		averageComputationCostPerTask = new double[nTasks];
+		if (threads > 1 && nTasks > taskGrain) {
+			pool.invoke(new AverageComputationCostAction(0, nTasks, taskGrain));
+		} else {
+			computeAverageComputationCosts(0, nTasks);
+		}
+		double[] upwardRanks = new double[nTasks];
+		for (int i = nTasks - 1; i >= 0; i--) {
 			double maxSuccessorRank = 0;
-			for (DataDependency outgoingEdge : task.getWorkflow().getGraph().getOutEdges(task)) {
-				Task child = task.getWorkflow().getGraph().getDest(outgoingEdge);
-				if (upwardRanks.get(child) > maxSuccessorRank) {
-					maxSuccessorRank = upwardRanks.get(child);
-				}
-			}
-
-			double averageComputationCost = 0;
-			for (Vm vm : vms) {
-				double miSeconds = distortedMiPerTask.get(task) / (vm.getNumberOfPes() * vm.getMips());
-				double ioSeconds = 0;
-				if (vm instanceof DynamicVm) {
-					DynamicVm dVm = (DynamicVm) vm;
-					ioSeconds = distortedIoPerTask.get(task) / dVm.getIo();
+			for (int k = childOffsets[i]; k < childOffsets[i + 1]; k++) {
+				int child = children[k];
+				if (upwardRanks[child] > maxSuccessorRank) {
+					maxSuccessorRank = upwardRanks[child];
 				}
-				double bwSeconds = distortedBwPerTask.get(task) / vm.getBw();
-				averageComputationCost += Math.max(Math.max(miSeconds, ioSeconds), bwSeconds);
 			}
-			averageComputationCost /= vms.size();
 
 			// note that the upward rank of a task will always be greater than
 			// that of its successors
-			upwardRanks.put(task, averageComputationCost + maxSuccessorRank);
+			upwardRanks[i] = averageComputationCostPerTask[i] + maxSuccessorRank;
 		}
 
 		// Phase 1: Task Prioritizing (sort by decreasing order of rank)
-		Collections.sort(sortedTasks, new TaskUpwardRankComparator());
+		Integer[] prioritizedTasks = new Integer[nTasks];
+		for (int i = 0; i < nTasks; i++) {
+			prioritizedTasks[i] = i;
+		}
+		Arrays.sort(prioritizedTasks, new TaskUpwardRankComparator(upwardRanks));
 
 		// Phase 2: Processor Selection
-		for (Task task : sortedTasks) {
-			double readyTime = readyTimePerTask.get(task);
+		readyTimePerTask = new double[nTasks];
+		for (int i : prioritizedTasks) {
+			Task task = taskArray[i];
+			if (threads > 1 && nVms > vmGrain) {
+				pool.invoke(new EarliestStartAction(i, 0, nVms, vmGrain));
+			} else {
+				computeEarliestStarts(i, 0, nVms);
+			}
 
-			Vm bestVm = null;
+			int bestVm = -1;
 			double bestVmFreeTimeSlotActualStart = Double.MAX_VALUE;
 			double bestFinish = Double.MAX_VALUE;
 
-			for (Vm vm : vms) {
-				double miSeconds = distortedMiPerTask.get(task) / (vm.getNumberOfPes() * vm.getMips());
-				double ioSeconds = 0;
-				if (vm instanceof DynamicVm) {
-					DynamicVm dVm = (DynamicVm) vm;
-					ioSeconds = distortedIoPerTask.get(task) / dVm.getIo();
-				}
-				double bwSeconds = distortedBwPerTask.get(task) / vm.getBw();
-				double computationCost = Math.max(Math.max(miSeconds, ioSeconds), bwSeconds);
-
-				// the readytime of this task will have been set by now, as all
-				// predecessor tasks have a higher upward rank and thus have
-				// been assigned to a vm already
-				TreeSet<Double> freeTimeSlotStarts = freeTimeSlotStartsPerVm.get(vm);
-				Map<Double, Double> freeTimeSlotLengths = freeTimeSlotLengthsPerVm.get(vm);
-
-				SortedSet<Double> freeTimeSlotStartsAfterReadyTime = (freeTimeSlotStarts.floor(readyTime) != null) ? freeTimeSlotStarts.tailSet(freeTimeSlotStarts
-				    .floor(readyTime)) : freeTimeSlotStarts.tailSet(freeTimeSlotStarts.ceiling(readyTime));
-
-				for (double freeTimeSlotStart : freeTimeSlotStartsAfterReadyTime) {
-					double freeTimeSlotActualStart = Math.max(readyTime, freeTimeSlotStart);
-					if (freeTimeSlotActualStart + computationCost > bestFinish)
-						break;
-					double freeTimeSlotLength = freeTimeSlotLengths.get(freeTimeSlotStart);
-					if (freeTimeSlotActualStart > freeTimeSlotStart)
-						freeTimeSlotLength -= freeTimeSlotActualStart - freeTimeSlotStart;
-					if (computationCost < freeTimeSlotLength) {
-						bestVm = vm;
-						bestVmFreeTimeSlotActualStart = freeTimeSlotActualStart;
-						bestFinish = freeTimeSlotActualStart + computationCost;
-					}
+			for (int v = 0; v < nVms; v++) {
+				double computationCost = getComputationCost(i, v);
+				double freeTimeSlotActualStart = earliestStartPerVm[v];
+				if (freeTimeSlotActualStart + computationCost <= bestFinish) {
+					bestVm = v;
+					bestVmFreeTimeSlotActualStart = freeTimeSlotActualStart;
+					bestFinish = freeTimeSlotActualStart + computationCost;
 				}
 			}
 
-			if (bestVm != null) {
+			if (bestVm != -1) {
 
 				// assign task to vm
-				schedule.put(task, bestVm);
-				Log.printLine(CloudSim.clock() + ": " + getName() + ": Assigning Task # " + task.getCloudletId() + " \"" + task.getName() + " " + task.getParams()
-				    + " \"" + " to VM # " + bestVm.getId());
+				Vm vm = vmArray[bestVm];
+				schedule.put(task, vm);
+				TaskEventLog.log(Event.ASSIGNED, this, vm.getId(), task);
 
 				// update readytime of all successor tasks
-				for (DataDependency outgoingEdge : task.getWorkflow().getGraph().getOutEdges(task)) {
-					Task child = task.getWorkflow().getGraph().getDest(outgoingEdge);
-					if (bestFinish > readyTimePerTask.get(child)) {
-						readyTimePerTask.put(child, bestFinish);
+				for (int k = childOffsets[i]; k < childOffsets[i + 1]; k++) {
+					int child = children[k];
+					if (bestFinish > readyTimePerTask[child]) {
+						readyTimePerTask[child] = bestFinish;
 					}
 				}
 
-				double timeslotStart = freeTimeSlotStartsPerVm.get(bestVm).floor(bestVmFreeTimeSlotActualStart);
-				double timeslotLength = freeTimeSlotLengthsPerVm.get(bestVm).get(timeslotStart);
+				FreeTimeSlotTree freeTimeSlots = freeTimeSlotsArray[bestVm];
+				double timeslotStart = freeTimeSlots.floor(bestVmFreeTimeSlotActualStart);
+				double timeslotLength = freeTimeSlots.getLength(timeslotStart);
 				double diff = bestVmFreeTimeSlotActualStart - timeslotStart;
 				// add time slots before and after
 				if (bestVmFreeTimeSlotActualStart > timeslotStart) {
-					freeTimeSlotLengthsPerVm.get(bestVm).put(timeslotStart, diff);
+					freeTimeSlots.put(timeslotStart, diff);
 				} else {
-					freeTimeSlotStartsPerVm.get(bestVm).remove(timeslotStart);
-					freeTimeSlotLengthsPerVm.get(bestVm).remove(timeslotStart);
+					freeTimeSlots.remove(timeslotStart);
 				}
 
 				double computationCost = bestFinish - bestVmFreeTimeSlotActualStart;
 				double actualTimeSlotLength = timeslotLength - diff;
 				if (computationCost < actualTimeSlotLength) {
-					freeTimeSlotStartsPerVm.get(bestVm).add(bestFinish);
-					freeTimeSlotLengthsPerVm.get(bestVm).put(bestFinish, actualTimeSlotLength - computationCost);
+					freeTimeSlots.put(bestFinish, actualTimeSlotLength - computationCost);
 				}
 
 			}
 		}
+	}
+
+	@Override
+	public void shutdownEntity() {
+		try {
+			super.shutdownEntity();
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+	}
+
+	// an even share of the given number of tasks or vms per thread, but no
+	// less than the minimum grain
+	private static int getGrain(int n, int threads) {
+		return Math.max(MIN_GRAIN, (n + threads - 1) / threads);
+	}
+
+	// looks up the children of the tasks in the graphs of their workflows;
+	// children that are not among the tasks to be planned are ignored
+	private void indexChildren() {
+		int nTasks = taskArray.length;
+		Map<WorkflowGraph, int[]> indexesPerGraph = new HashMap<>();
+		WorkflowGraph[] graphPerTask = new WorkflowGraph[nTasks];
+		int[] graphIndexPerTask = new int[nTasks];
+		for (int i = 0; i < nTasks; i++) {
+			Task task = taskArray[i];
+			WorkflowGraph graph = task.getWorkflow().getCompactGraph();
+			int graphIndex = graph.indexOf(task);
+			if (graphIndex < 0) {
+				throw new IllegalArgumentException("Task " + task.getName() + " #" + task.getCloudletId() + " is not part of its workflow");
+			}
+			int[] indexes = indexesPerGraph.get(graph);
+			if (indexes == null) {
+				indexes = new int[graph.getNTasks()];
+				Arrays.fill(indexes, -1);
+				indexesPerGraph.put(graph, indexes);
+			}
+			indexes[graphIndex] = i;
+			graphPerTask[i] = graph;
+			graphIndexPerTask[i] = graphIndex;
+		}
+
+		childOffsets = new int[nTasks + 1];
+		int nChildren = 0;
+		for (int i = 0; i < nTasks; i++) {
+			nChildren += graphPerTask[i].getNChildren(graphIndexPerTask[i]);
+		}
+		children = new int[nChildren];
+		nChildren = 0;
+		for (int i = 0; i < nTasks; i++) {
+			childOffsets[i] = nChildren;
+			WorkflowGraph graph = graphPerTask[i];
+			int[] indexes = indexesPerGraph.get(graph);
+			for (int k = 0; k < graph.getNChildren(graphIndexPerTask[i]); k++) {
+				int child = indexes[graph.getChild(graphIndexPerTask[i], k)];
+				if (child >= 0) {
+					children[nChildren++] = child;
+				}
+			}
+		}
+		childOffsets[nTasks] = nChildren;
+	}
+
+	private void computeAverageComputationCosts(int from, int to) {
+		int nVms = vmArray.length;
+		for (int i = from; i < to; i++) {
+			double averageComputationCost = 0;
+			for (int v = 0; v < nVms; v++) {
+				averageComputationCost += getComputationCost(i, v);
+			}
+			averageComputationCost /= nVms;
+			averageComputationCostPerTask[i] = averageComputationCost;
+		}
+	}
+
+	// the earliest start of the given task on each of the given vms, i.e.,
+	// the start of the earliest free time slot long enough to execute it
+	private void computeEarliestStarts(int task, int from, int to) {
+		// the readytime of this task will have been set by now, as all
+		// predecessor tasks have a higher upward rank and thus have
+		// been assigned to a vm already
+		double readyTime = readyTimePerTask[task];
+		for (int v = from; v < to; v++) {
+			double computationCost = getComputationCost(task, v);
+			FreeTimeSlotTree freeTimeSlots = freeTimeSlotsArray[v];
+
+			// the earliest free time slot long enough to execute the task
+			// is either the one containing its ready time or the first
+			// sufficiently long one starting afterwards
+			double freeTimeSlotActualStart = Double.NaN;
+			double freeTimeSlotStart = freeTimeSlots.floor(readyTime);
+			if (!Double.isNaN(freeTimeSlotStart)) {
+				double freeTimeSlotLength = freeTimeSlots.getLength(freeTimeSlotStart);
+				if (readyTime > freeTimeSlotStart)
+					freeTimeSlotLength -= readyTime - freeTimeSlotStart;
+				if (computationCost < freeTimeSlotLength)
+					freeTimeSlotActualStart = readyTime;
+			}
+			if (Double.isNaN(freeTimeSlotActualStart)) {
+				freeTimeSlotActualStart = freeTimeSlots.firstStartAfter(readyTime, computationCost);
+			}
+			earliestStartPerVm[v] = freeTimeSlotActualStart;
+		}
+	}
 
+	private double getComputationCost(int task, int vm) {
+		double miSeconds = distortedMiPerTask[task] / mipsPerVm[vm];
+		double ioSeconds = Double.isNaN(ioPerVm[vm]) ? 0 : distortedIoPerTask[task] / ioPerVm[vm];
+		double bwSeconds = distortedBwPerTask[task] / bwPerVm[vm];
+		return Math.max(Math.max(miSeconds, ioSeconds), bwSeconds);
 	}
 }
@@ -10,11 +10,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 
-import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
-import org.cloudbus.cloudsim.core.CloudSim;
 
 import de.huberlin.wbi.dcs.workflow.Task;
+import de.huberlin.wbi.dcs.workflow.scheduler.TaskEventLog.Event;
 
 /*
  * The StaticRoundRobinScheduler distributes tasks evenly among Vms prior to execution.
@@ -60,8 +59,7 @@ public class StaticRoundRobinScheduler extends AbstractWorkflowScheduler {
 			}
 			Vm vm = vmIt.next();
 			schedule.put(task, vm);
-			Log.printLine(CloudSim.clock() + ": " + getName() + ": Assigning Task # " + task.getCloudletId() + " \"" + task.getName() + " " + task.getParams()
-			    + " \"" + " to VM # " + vm.getId());
+			TaskEventLog.log(Event.ASSIGNED, this, vm.getId(), task);
 		}
 	}
 
@@ -0,0 +1,427 @@
+package de.huberlin.wbi.dcs.workflow.scheduler;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+
+import de.huberlin.wbi.dcs.workflow.Task;
+
+/**
+ * The log of the events of the tasks a workflow scheduler assigns to VMs. An event is only turned
+ * into a message if the {@link Log} is enabled. By default, it is then printed right away. Once
+ * the log has been started, an event is instead stored as a record in a bounded lock-free ring
+ * buffer, which a background thread drains in batches. This thread formats the records and writes
+ * them to the log's output. Everything else printed to the {@link Log} passes through the same
+ * buffer, such that the order of the messages of a simulation is retained. Records are either
+ * written as text, which reads exactly like the messages printed right away, or in a binary
+ * format. Since runs simulated in parallel share the log, each record holds the index of the run
+ * it stems from (see {@link #setRun(int)}), and each line of text is prefixed with it. The binary
+ * format starts with a header of two ints (magic number and version). Each record starts with a
+ * byte that holds its event's ordinal or, for any other message, -1, followed by the index of the
+ * run (int). An event is followed by the simulation time (double), the id of the scheduler (int),
+ * the id of the VM (int), and the id of the task (int), the last two of which are -1 if they do
+ * not apply. Any other message is followed by its length (int) and its bytes.
+ */
+public class TaskEventLog {
+
+	public enum Event {
+		ASSIGNED(null),
+		STARTED(" starts executing Task # "),
+		SPECULATIVE_STARTED(" starts executing speculative copy of Task # "),
+		COMPLETED(" completed Task # "),
+		SPECULATIVE_COMPLETED(" completed speculative copy of Task # "),
+		CANCELLED(" cancelled Task # "),
+		SPECULATIVE_CANCELLED(" cancelled speculative copy of Task # "),
+		FAILED(" encountered an error with Task # "),
+		SPECULATIVE_FAILED(" encountered an error with speculative copy of Task # "),
+		FINISHED(null);
+
+		private final String description;
+
+		private Event(String description) {
+			this.description = description;
+		}
+	}
+
+	public enum Format {
+		TEXT, BINARY
+	}
+
+	private static final int MAGIC = 0x44435345; // "DCSE"
+
+	private static final int VERSION = 2;
+
+	private static final int MESSAGE = -1;
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	private static final int BATCH_SIZE = 1024;
+
+	private static final Event[] EVENTS = Event.values();
+
+	// the index of the run simulated by the current thread, which is
+	// inherited by the threads a simulation starts
+	private static final ThreadLocal<Integer> run = new InheritableThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return -1;
+		}
+	};
+
+	private static volatile RingBuffer buffer;
+
+	private static Thread writer;
+
+	// the output of the log before it was started
+	private static OutputStream output;
+
+	private static OutputStream recordOutput;
+
+	/**
+	 * Logs an event of the given task, which has been assigned to the given VM by the given
+	 * scheduler. Events that concern no task in particular are logged with a task of null and a VM
+	 * id of -1.
+	 */
+	public static void log(Event event, SimEntity scheduler, int vmId, Task task) {
+		if (Log.isDisabled()) {
+			return;
+		}
+		RingBuffer b = buffer;
+		// the buffer rejects the event if the log has been stopped meanwhile
+		if (b == null || !b.put(event.ordinal(), getRun(), CloudSim.clock(), scheduler, vmId, task, null)) {
+			StringBuilder message = new StringBuilder();
+			appendText(message, event, getRun(), CloudSim.clock(), scheduler.getName(), vmId, task);
+			Log.printLine(message.toString());
+		}
+	}
+
+	/**
+	 * Sets the index of the run simulated by the current thread, which is logged with each of its
+	 * events and messages. It is -1 unless set.
+	 */
+	public static void setRun(int index) {
+		run.set(index);
+	}
+
+	public static int getRun() {
+		return run.get();
+	}
+
+	/**
+	 * Starts logging asynchronously in the given format to the given output, using a ring buffer
+	 * with room for the given number of records (rounded up to a power of two). Until the log is
+	 * stopped, the {@link Log}'s output is replaced by the ring buffer.
+	 */
+	public static synchronized void start(final Format format, int capacity, final OutputStream out) {
+		if (buffer != null) {
+			return;
+		}
+		final OutputStream logOutput = Log.getOutput();
+		output = logOutput;
+		recordOutput = out;
+		final RingBuffer ringBuffer = new RingBuffer(Integer.highestOneBit(Math.max(2, capacity) * 2 - 1));
+		writer = new Thread("TaskEventLog") {
+			@Override
+			public void run() {
+				try {
+					drain(ringBuffer, format, out);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+		buffer = ringBuffer;
+		Log.setOutput(new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] bytes, int off, int len) throws IOException {
+				byte[] copy = new byte[len];
+				System.arraycopy(bytes, off, copy, 0, len);
+				if (!ringBuffer.put(MESSAGE, getRun(), 0, null, -1, null, copy)) {
+					// printed by a thread that still held this stream when the log was stopped
+					logOutput.write(bytes, off, len);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Waits until all records have been written and restores the {@link Log}'s output. The output
+	 * the records have been written to is closed, unless it is the {@link Log}'s output. Records
+	 * that are logged from now on, even by threads that have not noticed yet that the log has been
+	 * stopped, are printed right away.
+	 */
+	public static synchronized void stop() {
+		RingBuffer b = buffer;
+		if (b == null) {
+			return;
+		}
+		buffer = null;
+		Log.setOutput(output);
+		b.close();
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writer = null;
+		if (recordOutput != output) {
+			try {
+				recordOutput.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		recordOutput = null;
+	}
+
+	private static void drain(RingBuffer b, Format format, OutputStream out) throws IOException {
+		DataOutputStream binary = null;
+		StringBuilder text = null;
+		if (format == Format.BINARY) {
+			binary = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+			binary.writeInt(MAGIC);
+			binary.writeInt(VERSION);
+		} else {
+			text = new StringBuilder(1 << 16);
+		}
+		Record record = new Record();
+		// the runs whose last message did not end with a line separator
+		BitSet midLine = new BitSet();
+		while (true) {
+			// read the end before draining, such that no record put before
+			// closing the buffer is missed
+			long end = b.getEnd();
+			int n = 0;
+			while (n < BATCH_SIZE && b.poll(record)) {
+				if (binary != null) {
+					writeBinary(binary, record);
+				} else {
+					if (record.kind == MESSAGE) {
+						appendMessage(text, record.run, new String(record.message), midLine);
+					} else {
+						appendText(text, EVENTS[record.kind], record.run, record.time, record.schedulerName, record.vmId, record.task);
+						text.append(LINE_SEPARATOR);
+					}
+				}
+				record.clear();
+				n++;
+			}
+			if (n > 0) {
+				if (binary != null) {
+					binary.flush();
+				} else {
+					out.write(text.toString().getBytes());
+					out.flush();
+					text.setLength(0);
+				}
+			} else if (b.head == end) {
+				return;
+			} else {
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+			}
+		}
+	}
+
+	private static void writeBinary(DataOutputStream out, Record record) throws IOException {
+		out.writeByte(record.kind);
+		out.writeInt(record.run);
+		if (record.kind == MESSAGE) {
+			out.writeInt(record.message.length);
+			out.write(record.message);
+		} else {
+			out.writeDouble(record.time);
+			out.writeInt(record.schedulerId);
+			out.writeInt(record.vmId);
+			out.writeInt(record.task == null ? -1 : record.task.getCloudletId());
+		}
+	}
+
+	private static void appendText(StringBuilder message, Event event, int run, double time, String schedulerName, int vmId, Task task) {
+		appendRun(message, run);
+		message.append(time).append(": ").append(schedulerName).append(": ");
+		switch (event) {
+		case ASSIGNED:
+			message.append("Assigning Task # ").append(task.getCloudletId()).append(" \"").append(task.getName()).append(" ").append(task.getParams())
+			    .append(" \"").append(" to VM # ").append(vmId);
+			break;
+		case FINISHED:
+			message.append("All Tasks executed. Finishing...");
+			break;
+		default:
+			message.append("VM # ").append(vmId).append(event.description).append(task.getCloudletId()).append(" \"").append(task.getName()).append(" ")
+			    .append(task.getParams()).append(" \"");
+		}
+	}
+
+	// prefixes each line of the given message that starts a line of its run
+	private static void appendMessage(StringBuilder text, int run, String message, BitSet midLine) {
+		if (run < 0) {
+			text.append(message);
+			return;
+		}
+		int start = 0;
+		while (start < message.length()) {
+			if (!midLine.get(run)) {
+				appendRun(text, run);
+			}
+			int end = message.indexOf('\n', start) + 1;
+			if (end == 0) {
+				text.append(message, start, message.length());
+				midLine.set(run);
+				return;
+			}
+			text.append(message, start, end);
+			midLine.clear(run);
+			start = end;
+		}
+	}
+
+	private static void appendRun(StringBuilder text, int run) {
+		if (run >= 0) {
+			text.append("[run ").append(run).append("] ");
+		}
+	}
+
+	private static class Record {
+
+		private int kind;
+		private int run;
+		private double time;
+		private String schedulerName;
+		private int schedulerId;
+		private int vmId;
+		private Task task;
+		private byte[] message;
+
+		private void clear() {
+			schedulerName = null;
+			task = null;
+			message = null;
+		}
+
+	}
+
+	/**
+	 * A bounded queue of records, which may be put by several threads and are polled by a single
+	 * thread. Each slot has a sequence number, which tells whether it is free to be written for a
+	 * given position or holds the record put at a given position. Producers claim positions by
+	 * incrementing the tail and wait while the queue is full, such that no record is lost. Closing
+	 * the queue sets the sign bit of the tail, after which no more positions can be claimed, such
+	 * that every record is either rejected or put before the end of the queue.
+	 */
+	private static class RingBuffer {
+
+		private final Record[] records;
+		private final AtomicLongArray sequences;
+		private final int mask;
+
+		private static final long CLOSED = Long.MIN_VALUE;
+
+		private final AtomicLong tail = new AtomicLong();
+		private long head;
+
+		public RingBuffer(int capacity) {
+			records = new Record[capacity];
+			sequences = new AtomicLongArray(capacity);
+			for (int i = 0; i < capacity; i++) {
+				records[i] = new Record();
+				sequences.set(i, i);
+			}
+			mask = capacity - 1;
+		}
+
+		/**
+		 * Puts a record, waiting while the queue is full.
+		 *
+		 * @return false, if the record has been rejected because the queue is closed
+		 */
+		public boolean put(int kind, int run, double time, SimEntity scheduler, int vmId, Task task, byte[] message) {
+			long position;
+			int slot;
+			while (true) {
+				position = tail.get();
+				if ((position & CLOSED) != 0) {
+					return false;
+				}
+				slot = (int) position & mask;
+				long difference = sequences.get(slot) - position;
+				if (difference == 0) {
+					if (tail.compareAndSet(position, position + 1)) {
+						break;
+					}
+				} else if (difference < 0) {
+					// the queue is full
+					Thread.yield();
+				}
+			}
+			Record record = records[slot];
+			record.kind = kind;
+			record.run = run;
+			record.time = time;
+			if (scheduler != null) {
+				record.schedulerName = scheduler.getName();
+				record.schedulerId = scheduler.getId();
+			}
+			record.vmId = vmId;
+			record.task = task;
+			record.message = message;
+			sequences.lazySet(slot, position + 1);
+			return true;
+		}
+
+		public void close() {
+			long position;
+			do {
+				position = tail.get();
+			} while ((position & CLOSED) == 0 && !tail.compareAndSet(position, position | CLOSED));
+		}
+
+		/**
+		 * Gets the position after the last record, or -1 if the queue has not been closed yet.
+		 */
+		public long getEnd() {
+			long position = tail.get();
+			return (position & CLOSED) != 0 ? position & ~CLOSED : -1;
+		}
+
+		public boolean poll(Record target) {
+			int slot = (int) head & mask;
+			if (sequences.get(slot) != head + 1) {
+				return false;
+			}
+			Record record = records[slot];
+			target.kind = record.kind;
+			target.run = record.run;
+			target.time = record.time;
+			target.schedulerName = record.schedulerName;
+			target.schedulerId = record.schedulerId;
+			target.vmId = record.vmId;
+			target.task = record.task;
+			target.message = record.message;
+			record.clear();
+			sequences.lazySet(slot, head + mask + 1);
+			head++;
+			return true;
+		}
+
+	}
+
+}
@@ -57,6 +57,18 @@ public class Datacenter extends SimEntity {
 	/** The scheduling interval. */
 	private double schedulingInterval;
 
+	/**
+	 * The hosts whose processing has to be updated, in the order of the host list, or
+	 * <tt>null</tt> if they have to be determined again.
+	 */
+	private List<Host> activeHostList;
+
+	/** The host list from which the active hosts have been determined. */
+	private List<? extends Host> activeHostListSource;
+
+	/** The size of the host list from which the active hosts have been determined. */
+	private int activeHostListSourceSize;
+
 	/**
 	 * Allocates a new PowerDatacenter object.
 	 * 
@@ -903,7 +915,8 @@ public class Datacenter extends SimEntity {
 		// R: for term is to allow loop at simulation start. Otherwise, one initial
 		// simulation step is skipped and schedulers are not properly initialized
 		if (CloudSim.clock() < 0.111 || CloudSim.clock() > getLastProcessTime() + 0.001) {
-			List<? extends Host> list = getVmAllocationPolicy().getHostList();
+			// hosts without VMs would not change their state anyway
+			List<? extends Host> list = getActiveHostList();
 			double smallerTime = Double.MAX_VALUE;
 			// for each host...
 			for (int i = 0; i < list.size(); i++) {
@@ -926,6 +939,38 @@ public class Datacenter extends SimEntity {
 		}
 	}
 
+	/**
+	 * Gets the hosts whose processing has to be updated, i.e., the hosts with VMs and the hosts that
+	 * have to be updated regardless of their VMs. The list is only determined again after VMs have
+	 * been added to or removed from a host or the host list has changed.
+	 * 
+	 * @return the active hosts, in the order of the host list
+	 * @see Host#requiresVmsProcessing()
+	 */
+	protected List<? extends Host> getActiveHostList() {
+		List<? extends Host> hostList = getVmAllocationPolicy().getHostList();
+		if (activeHostList == null || hostList != activeHostListSource
+				|| hostList.size() != activeHostListSourceSize) {
+			activeHostList = new ArrayList<Host>();
+			for (Host host : hostList) {
+				if (host.requiresVmsProcessing()) {
+					activeHostList.add(host);
+				}
+			}
+			activeHostListSource = hostList;
+			activeHostListSourceSize = hostList.size();
+		}
+		return activeHostList;
+	}
+
+	/**
+	 * Causes the active hosts to be determined again. This method is called by the hosts of this
+	 * datacenter whenever VMs are added or removed.
+	 */
+	protected void invalidateActiveHostList() {
+		activeHostList = null;
+	}
+
 	/**
 	 * Verifies if some cloudlet inside this PowerDatacenter already finished. If yes, send it to
 	 * the User/Broker
@@ -934,7 +979,7 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void checkCloudletCompletion() {
-		List<? extends Host> list = getVmAllocationPolicy().getHostList();
+		List<? extends Host> list = getActiveHostList();
 		for (int i = 0; i < list.size(); i++) {
 			Host host = list.get(i);
 			for (Vm vm : host.getVmList()) {
@@ -105,6 +105,17 @@ public class Host {
 		return smallerTime;
 	}
 
+	/**
+	 * Checks whether calling {@link #updateVmsProcessing(double)} has any effect. This is not the
+	 * case for a host without VMs, which is hence skipped by its datacenter. Subclasses whose
+	 * update has side effects regardless of the VMs have to override this method.
+	 * 
+	 * @return true, if the processing of the host has to be updated
+	 */
+	public boolean requiresVmsProcessing() {
+		return !getVmList().isEmpty();
+	}
+
 	/**
 	 * Adds the migrating in vm.
 	 * 
@@ -143,6 +154,7 @@ public class Host {
 
 			getVmsMigratingIn().add(vm);
 			getVmList().add(vm);
+			vmListChanged();
 			updateVmsProcessing(CloudSim.clock());
 			vm.getHost().updateVmsProcessing(CloudSim.clock());
 		}
@@ -157,6 +169,7 @@ public class Host {
 		vmDeallocate(vm);
 		getVmsMigratingIn().remove(vm);
 		getVmList().remove(vm);
+		vmListChanged();
 		getVmScheduler().getVmsMigratingIn().remove(vm.getUid());
 		vm.setInMigration(false);
 	}
@@ -168,6 +181,7 @@ public class Host {
 		for (Vm vm : getVmsMigratingIn()) {
 			if (!getVmList().contains(vm)) {
 				getVmList().add(vm);
+				vmListChanged();
 			}
 			if (!getVmScheduler().getVmsMigratingIn().contains(vm.getUid())) {
 				getVmScheduler().getVmsMigratingIn().add(vm.getUid());
@@ -230,6 +244,7 @@ public class Host {
 
 		setStorage(getStorage() - vm.getSize());
 		getVmList().add(vm);
+		vmListChanged();
 		vm.setHost(this);
 		return true;
 	}
@@ -245,6 +260,7 @@ public class Host {
 		if (vm != null) {
 			vmDeallocate(vm);
 			getVmList().remove(vm);
+			vmListChanged();
 			vm.setHost(null);
 		}
 	}
@@ -262,6 +278,7 @@ public class Host {
 			setStorage(getStorage() + vm.getSize());
 		}
 		getVmList().clear();
+		vmListChanged();
 	}
 
 	/**
@@ -619,4 +636,13 @@ public class Host {
 		this.datacenter = datacenter;
 	}
 
+	/**
+	 * Informs the datacenter that VMs have been added to or removed from this host.
+	 */
+	private void vmListChanged() {
+		if (getDatacenter() != null) {
+			getDatacenter().invalidateActiveHostList();
+		}
+	}
+
 }
@@ -8,14 +8,15 @@
 
 package org.cloudbus.cloudsim;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.lists.PeList;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+import org.cloudbus.cloudsim.util.TimeSeries;
 
 /**
  * The class of a host supporting dynamic workloads and performance degradation.
@@ -31,8 +32,8 @@ public class HostDynamicWorkload extends Host {
 	/** The previous utilization mips. */
 	private double previousUtilizationMips;
 
-	/** The state history. */
-	private final List<HostStateHistoryEntry> stateHistory = new LinkedList<HostStateHistoryEntry>();
+	/** The state history of allocated mips, requested mips, and activity (1 if active, else 0). */
+	private final TimeSeries stateHistory = new TimeSeries(3);
 
 	/**
 	 * Instantiates a new host.
@@ -56,6 +57,16 @@ public class HostDynamicWorkload extends Host {
 		setPreviousUtilizationMips(0);
 	}
 
+	/**
+	 * The utilization and state history of the host is updated even if it has no VMs.
+	 * 
+	 * @return true
+	 */
+	@Override
+	public boolean requiresVmsProcessing() {
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see cloudsim.Host#updateVmsProcessing(double)
@@ -266,11 +277,36 @@ public class HostDynamicWorkload extends Host {
 	}
 
 	/**
-	 * Gets the state history.
+	 * Gets the state history as a read-only list, the entries of which are created on access.
 	 * 
 	 * @return the state history
 	 */
 	public List<HostStateHistoryEntry> getStateHistory() {
+		return new AbstractList<HostStateHistoryEntry>() {
+
+			@Override
+			public HostStateHistoryEntry get(int index) {
+				return new HostStateHistoryEntry(
+						stateHistory.getTime(index),
+						stateHistory.getValue(index, 0),
+						stateHistory.getValue(index, 1),
+						stateHistory.getValue(index, 2) == 1);
+			}
+
+			@Override
+			public int size() {
+				return stateHistory.size();
+			}
+
+		};
+	}
+
+	/**
+	 * Gets the state history of allocated mips, requested mips, and activity (1 if active, else 0).
+	 * 
+	 * @return the state history
+	 */
+	public TimeSeries getStateHistorySeries() {
 		return stateHistory;
 	}
 
@@ -286,19 +322,8 @@ public class HostDynamicWorkload extends Host {
 			void
 			addStateHistoryEntry(double time, double allocatedMips, double requestedMips, boolean isActive) {
 
-		HostStateHistoryEntry newState = new HostStateHistoryEntry(
-				time,
-				allocatedMips,
-				requestedMips,
-				isActive);
-		if (!getStateHistory().isEmpty()) {
-			HostStateHistoryEntry previousState = getStateHistory().get(getStateHistory().size() - 1);
-			if (previousState.getTime() == time) {
-				getStateHistory().set(getStateHistory().size() - 1, newState);
-				return;
-			}
-		}
-		getStateHistory().add(newState);
+		// an entry at the same time as the previous one replaces the latter
+		stateHistory.add(time, allocatedMips, requestedMips, isActive ? 1 : 0);
 	}
 
 }
@@ -7,10 +7,12 @@
 
 package org.cloudbus.cloudsim;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
+import org.cloudbus.cloudsim.util.TimeSeries;
+
 /**
  * Vm represents a VM: it runs inside a Host, sharing hostList with other VMs. It processes
  * cloudlets. This processing happens according to a policy, defined by the CloudletScheduler. Each
@@ -74,7 +76,7 @@ public class Vm {
 	private boolean beingInstantiated;
 
 	/** The mips allocation history. */
-	private final List<VmStateHistoryEntry> stateHistory = new LinkedList<VmStateHistoryEntry>();
+	private final TimeSeries stateHistory = new TimeSeries(3);
 
 	/**
 	 * Creates a new VMCharacteristics object.
@@ -280,6 +282,17 @@ public class Vm {
 		this.id = id;
 	}
 
+	/**
+	 * Returns the id as hash code, such that the iteration order of hash-based collections of VMs
+	 * does not depend on identity hash codes, which differ between runs and threads.
+	 * 
+	 * @return the hash code
+	 */
+	@Override
+	public int hashCode() {
+		return getId();
+	}
+
 	/**
 	 * Sets the user id.
 	 * 
@@ -570,11 +583,37 @@ public class Vm {
 	}
 
 	/**
-	 * Gets the state history.
+	 * Gets the state history as a read-only list, the entries of which are created on access.
 	 * 
 	 * @return the state history
 	 */
 	public List<VmStateHistoryEntry> getStateHistory() {
+		return new AbstractList<VmStateHistoryEntry>() {
+
+			@Override
+			public VmStateHistoryEntry get(int index) {
+				return new VmStateHistoryEntry(
+						stateHistory.getTime(index),
+						stateHistory.getValue(index, 0),
+						stateHistory.getValue(index, 1),
+						stateHistory.getValue(index, 2) == 1);
+			}
+
+			@Override
+			public int size() {
+				return stateHistory.size();
+			}
+
+		};
+	}
+
+	/**
+	 * Gets the state history of allocated mips, requested mips, and migration (1 if in migration,
+	 * else 0).
+	 * 
+	 * @return the state history
+	 */
+	public TimeSeries getStateHistorySeries() {
 		return stateHistory;
 	}
 
@@ -591,19 +630,8 @@ public class Vm {
 			double allocatedMips,
 			double requestedMips,
 			boolean isInMigration) {
-		VmStateHistoryEntry newState = new VmStateHistoryEntry(
-				time,
-				allocatedMips,
-				requestedMips,
-				isInMigration);
-		if (!getStateHistory().isEmpty()) {
-			VmStateHistoryEntry previousState = getStateHistory().get(getStateHistory().size() - 1);
-			if (previousState.getTime() == time) {
-				getStateHistory().set(getStateHistory().size() - 1, newState);
-				return;
-			}
-		}
-		getStateHistory().add(newState);
+		// an entry at the same time as the previous one replaces the latter
+		stateHistory.add(time, allocatedMips, requestedMips, isInMigration ? 1 : 0);
 	}
 
 }
@@ -9,13 +9,12 @@
 package org.cloudbus.cloudsim.core;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
@@ -29,6 +28,9 @@ import org.cloudbus.cloudsim.core.predicates.PredicateNone;
  * network. Later, nodes in such file are mapped to CloudSim entities. Delay calculated from the
  * BRITE model are added to the messages send through CloudSim. Messages using the old model are
  * converted to the apropriate methods with the correct parameters.
+ * <p>
+ * The state of a simulation is kept in a {@link SimulationContext} per thread, such that several
+ * simulations can run in parallel, each in a thread of its own.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -39,28 +41,18 @@ public class CloudSim {
 	/** The Constant CLOUDSIM_VERSION_STRING. */
 	private static final String CLOUDSIM_VERSION_STRING = "3.0";
 
-	/** The id of CIS entity. */
-	private static int cisId = -1;
-
-	/** The id of CloudSimShutdown entity. */
-	@SuppressWarnings("unused")
-	private static int shutdownId = -1;
-
-	/** The CIS object. */
-	private static CloudInformationService cis = null;
-
 	/** The Constant NOT_FOUND. */
 	private static final int NOT_FOUND = -1;
 
-	/** The trace flag. */
-	@SuppressWarnings("unused")
-	private static boolean traceFlag = false;
+	/** The simulation contexts of the threads, which are inherited by threads they start. */
+	private static final ThreadLocal<SimulationContext> contexts = new InheritableThreadLocal<SimulationContext>() {
 
-	/** The calendar. */
-	private static Calendar calendar = null;
+		@Override
+		protected SimulationContext initialValue() {
+			return new SimulationContext();
+		}
 
-	/** The termination time. */
-	private static double terminateAt = -1;
+	};
 
 	/**
 	 * Initialises all the common attributes.
@@ -68,28 +60,30 @@ public class CloudSim {
 	 * @param _calendar the _calendar
 	 * @param _traceFlag the _trace flag
 	 * @param numUser number of users
+	 * @param futureQueue the future event queue
 	 * @throws Exception This happens when creating this entity before initialising CloudSim package
 	 *             or this entity name is <tt>null</tt> or empty
 	 * @pre $none
 	 * @post $none
 	 */
-	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser)
-			throws Exception {
-		initialize();
+	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser,
+			FutureQueue futureQueue) throws Exception {
+		initialize(futureQueue);
+		SimulationContext ctx = getContext();
 		// NOTE: the order for the below 3 lines are important
-		traceFlag = _traceFlag;
+		ctx.traceFlag = _traceFlag;
 
 		// Set the current Wall clock time as the starting time of
 		// simulation
 		if (_calendar == null) {
-			calendar = Calendar.getInstance();
+			ctx.calendar = Calendar.getInstance();
 		} else {
-			calendar = _calendar;
+			ctx.calendar = _calendar;
 		}
 
 		// creates a CloudSimShutdown object
 		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
-		shutdownId = shutdown.getId();
+		ctx.shutdownId = shutdown.getId();
 	}
 
 	/**
@@ -114,14 +108,34 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag) {
+		init(numUser, cal, traceFlag, new FutureQueueTreeSet());
+	}
+
+	/**
+	 * Initialises CloudSim parameters, using a given data structure as the future event queue.
+	 * This method should be called before creating any entities.
+	 * 
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param futureQueue an empty future event queue, e.g., a {@link FutureQueueTreeSet},
+	 *            {@link FutureQueueHeap}, {@link FutureQueueCalendar} or {@link FutureQueueLadder}
+	 * @see #init(int, Calendar, boolean)
+	 * @pre numUser >= 0
+	 * @pre futureQueue != null
+	 * @post $none
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, FutureQueue futureQueue) {
 		try {
-			initCommonVariable(cal, traceFlag, numUser);
+			initCommonVariable(cal, traceFlag, numUser, futureQueue);
+			SimulationContext ctx = getContext();
 
 			// create a GIS object
-			cis = new CloudInformationService("CloudInformationService");
+			ctx.cis = new CloudInformationService("CloudInformationService");
 
 			// set all the above entity IDs
-			cisId = cis.getId();
+			ctx.cisId = ctx.cis.getId();
 		} catch (IllegalArgumentException s) {
 			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
 			Log.printLine(s.getMessage());
@@ -146,16 +160,17 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static double startSimulation() throws NullPointerException {
+		SimulationContext ctx = getContext();
 		Log.printLine("Starting CloudSim version " + CLOUDSIM_VERSION_STRING);
 		try {
 			double clock = run();
 
-			// reset all static variables
-			cisId = -1;
-			shutdownId = -1;
-			cis = null;
-			calendar = null;
-			traceFlag = false;
+			// reset all context variables
+			ctx.cisId = -1;
+			ctx.shutdownId = -1;
+			ctx.cis = null;
+			ctx.calendar = null;
+			ctx.traceFlag = false;
 
 			return clock;
 		} catch (IllegalArgumentException e) {
@@ -192,7 +207,7 @@ public class CloudSim {
 	 * @return true, if successful; false otherwise.
 	 */
 	public static boolean terminateSimulation() {
-		running = false;
+		getContext().running = false;
 		printMessage("Simulation: Reached termination time.");
 		return true;
 	}
@@ -204,10 +219,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean terminateSimulation(double time) {
-		if (time <= clock) {
+		SimulationContext ctx = getContext();
+		if (time <= ctx.clock) {
 			return false;
 		} else {
-			terminateAt = time;
+			ctx.terminateAt = time;
 		}
 		return true;
 	}
@@ -222,10 +238,11 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static Calendar getSimulationCalendar() {
+		SimulationContext ctx = getContext();
 		// make a new copy
-		Calendar clone = calendar;
-		if (calendar != null) {
-			clone = (Calendar) calendar.clone();
+		Calendar clone = ctx.calendar;
+		if (ctx.calendar != null) {
+			clone = (Calendar) ctx.calendar.clone();
 		}
 
 		return clone;
@@ -239,7 +256,7 @@ public class CloudSim {
 	 * @post $result >= -1
 	 */
 	public static int getCloudInfoServiceEntityId() {
-		return cisId;
+		return getContext().cisId;
 	}
 
 	/**
@@ -252,59 +269,44 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static List<Integer> getCloudResourceList() {
-		if (cis == null) {
+		SimulationContext ctx = getContext();
+		if (ctx.cis == null) {
 			return null;
 		}
 
-		return cis.getList();
+		return ctx.cis.getList();
 	}
 
 	// ======== SIMULATION METHODS ===============//
 
-	/** The entities. */
-	private static List<SimEntity> entities;
-
-	/** The future event queue. */
-	protected static FutureQueue future;
-
-	/** The deferred event queue. */
-	protected static DeferredQueue deferred;
-
-	/** The simulation clock. */
-	private static double clock;
-
-	/** Flag for checking if the simulation is running. */
-	private static boolean running;
-
-	/** The entities by name. */
-	private static Map<String, SimEntity> entitiesByName;
-
-	// The predicates used in entity wait methods
-	/** The wait predicates. */
-	private static Map<Integer, Predicate> waitPredicates;
-
-	/** The paused. */
-	private static boolean paused = false;
-
-	/** The pause at. */
-	private static long pauseAt = -1;
-
-	/** The abrupt terminate. */
-	private static boolean abruptTerminate = false;
-
 	/**
 	 * Initialise the simulation for stand alone simulations. This function should be called at the
 	 * start of the simulation.
 	 */
 	protected static void initialize() {
+		initialize(new FutureQueueTreeSet());
+	}
+
+	/**
+	 * Initialise the simulation for stand alone simulations, using a given data structure as the
+	 * future event queue. This function should be called at the start of the simulation.
+	 * 
+	 * @param futureQueue the future event queue
+	 */
+	protected static void initialize(FutureQueue futureQueue) {
 		Log.printLine("Initialising...");
-		entities = new ArrayList<SimEntity>();
-		entitiesByName = new LinkedHashMap<String, SimEntity>();
-		future = new FutureQueue();
-		deferred = new DeferredQueue();
-		waitPredicates = new HashMap<Integer, Predicate>();
-		clock = 0;
-		running = false;
+		SimulationContext ctx = new SimulationContext();
+		setContext(ctx);
+		ctx.entities = new ArrayList<SimEntity>();
+		ctx.entitiesByName = new LinkedHashMap<String, SimEntity>();
+		ctx.future = futureQueue;
+		ctx.deferred = new DeferredQueue();
+		ctx.activeEntities = new BitSet();
+		ctx.clockTicks = 0;
+		ctx.entityDispatches = 0;
+		ctx.waitPredicates = new HashMap<Integer, Predicate>();
+		ctx.clock = 0;
+		ctx.running = false;
 	}
 
 	// The two standard predicates
@@ -317,13 +319,58 @@ public class CloudSim {
 
 	// Public access methods
 
+	/**
+	 * Gets the context of the simulation of the current thread. The context is created by
+	 * {@link #init(int, Calendar, boolean)} and is inherited by all threads that are started
+	 * afterwards.
+	 * 
+	 * @return the simulation context
+	 */
+	public static SimulationContext getContext() {
+		return contexts.get();
+	}
+
+	/**
+	 * Sets the context of the simulation of the current thread, e.g., to access a simulation from
+	 * a thread that has not been started by it.
+	 * 
+	 * @param context the simulation context
+	 * @pre context != null
+	 */
+	public static void setContext(SimulationContext context) {
+		contexts.set(context);
+	}
+
 	/**
 	 * Get the current simulation time.
 	 * 
 	 * @return the simulation time
 	 */
 	public static double clock() {
-		return clock;
+		return getContext().clock;
+	}
+
+	/**
+	 * Gets the id of the next cloudlet created for the current simulation. Cloudlet ids start at 0
+	 * for each simulation, such that the cloudlets of several workflows submitted to the same
+	 * simulation have distinct ids, while each simulation assigns the same ids regardless of other
+	 * simulations.
+	 * 
+	 * @return the id of the next cloudlet
+	 */
+	public static int getNextCloudletId() {
+		return getContext().nextCloudletId;
+	}
+
+	/**
+	 * Sets the id of the next cloudlet created for the current simulation, once the ids below it
+	 * have been assigned.
+	 * 
+	 * @param nextCloudletId the id of the next cloudlet
+	 * @pre nextCloudletId >= getNextCloudletId()
+	 */
+	public static void setNextCloudletId(int nextCloudletId) {
+		getContext().nextCloudletId = nextCloudletId;
 	}
 
 	/**
@@ -332,7 +379,7 @@ public class CloudSim {
 	 * @return The number of entities
 	 */
 	public static int getNumEntities() {
-		return entities.size();
+		return getContext().entities.size();
 	}
 
 	/**
@@ -342,7 +389,7 @@ public class CloudSim {
 	 * @return The entity, or if it could not be found
 	 */
 	public static SimEntity getEntity(int id) {
-		return entities.get(id);
+		return getContext().entities.get(id);
 	}
 
 	/**
@@ -352,7 +399,7 @@ public class CloudSim {
 	 * @return The entity
 	 */
 	public static SimEntity getEntity(String name) {
-		return entitiesByName.get(name);
+		return getContext().entitiesByName.get(name);
 	}
 
 	/**
@@ -362,7 +409,7 @@ public class CloudSim {
 	 * @return The entity's unique id number
 	 */
 	public static int getEntityId(String name) {
-		SimEntity obj = entitiesByName.get(name);
+		SimEntity obj = getContext().entitiesByName.get(name);
 		if (obj == null) {
 			return NOT_FOUND;
 		} else {
@@ -412,7 +459,7 @@ public class CloudSim {
 		// create a new list to prevent the user from changing
 		// the list of entities used by Simulation
 		List<SimEntity> list = new LinkedList<SimEntity>();
-		list.addAll(entities);
+		list.addAll(getContext().entities);
 		return list;
 	}
 
@@ -425,17 +472,18 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	public static void addEntity(SimEntity e) {
+		SimulationContext ctx = getContext();
 		SimEvent evt;
-		if (running) {
+		if (ctx.running) {
 			// Post an event to make this entity
-			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, 0, e);
-			future.addEvent(evt);
+			evt = new SimEvent(SimEvent.CREATE, ctx.clock, 1, 0, 0, e);
+			ctx.future.addEvent(evt);
 		}
 		if (e.getId() == -1) { // Only add once!
-			int id = entities.size();
+			int id = ctx.entities.size();
 			e.setId(id);
-			entities.add(e);
-			entitiesByName.put(e.getName(), e);
+			ctx.entities.add(e);
+			ctx.entitiesByName.put(e.getName(), e);
 		}
 	}
 
@@ -461,52 +509,76 @@ public class CloudSim {
 	 * @return true, if successful otherwise
 	 */
 	public static boolean runClockTick() {
+		SimulationContext ctx = getContext();
 		SimEntity ent;
 		boolean queue_empty;
-		int entities_size = entities.size();
 
-		for (int i = 0; i < entities_size; i++) {
-			ent = entities.get(i);
+		// only run the entities that may have events to process
+		for (int i = ctx.activeEntities.nextSetBit(0); i >= 0; i = ctx.activeEntities.nextSetBit(i + 1)) {
+			ctx.activeEntities.clear(i);
+			ent = ctx.entities.get(i);
 			if (ent.getState() == SimEntity.RUNNABLE) {
 				ent.run();
+				ctx.entityDispatches++;
 			}
 		}
+		ctx.clockTicks++;
 
 		// If there are more future events then deal with them
-		if (future.size() > 0) {
-			List<SimEvent> toRemove = new ArrayList<SimEvent>();
-			Iterator<SimEvent> it = future.iterator();
+		if (ctx.future.size() > 0) {
 			queue_empty = false;
-			SimEvent first = it.next();
+			SimEvent first = ctx.future.poll();
 			processEvent(first);
-			future.remove(first);
-
-			it = future.iterator();
 
 			// Check if next events are at same time...
-			boolean trymore = it.hasNext();
-			while (trymore) {
-				SimEvent next = it.next();
-				if (next.eventTime() == first.eventTime()) {
-					processEvent(next);
-					toRemove.add(next);
-					trymore = it.hasNext();
-				} else {
-					trymore = false;
-				}
+			SimEvent next = ctx.future.peek();
+			while (next != null && next.eventTime() == first.eventTime()) {
+				processEvent(ctx.future.poll());
+				next = ctx.future.peek();
 			}
 
-			future.removeAll(toRemove);
-
 		} else {
 			queue_empty = true;
-			running = false;
+			ctx.running = false;
 			printMessage("Simulation: No more future events");
 		}
 
 		return queue_empty;
 	}
 
+	/**
+	 * Marks an entity as having events to process, such that it is run during the next clock tick.
+	 * This method is called whenever an entity becomes runnable.
+	 * 
+	 * @param id the id of the entity
+	 */
+	protected static void activateEntity(int id) {
+		SimulationContext ctx = getContext();
+		if (ctx.activeEntities != null && id >= 0) {
+			ctx.activeEntities.set(id);
+		}
+	}
+
+	/**
+	 * Gets the number of clock ticks of the current or last simulation.
+	 * 
+	 * @return the number of clock ticks
+	 */
+	public static long getClockTicks() {
+		return getContext().clockTicks;
+	}
+
+	/**
+	 * Gets the number of times an entity has been run during a clock tick of the current or last
+	 * simulation. Divided by {@link #getClockTicks()}, this is the number of entity dispatches per
+	 * tick.
+	 * 
+	 * @return the number of entity dispatches
+	 */
+	public static long getEntityDispatches() {
+		return getContext().entityDispatches;
+	}
+
 	/**
 	 * Internal method used to stop the simulation. This method should <b>not</b> be used directly.
 	 */
@@ -521,9 +593,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void hold(int src, long delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext ctx = getContext();
+		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, ctx.clock + delay, src);
+		ctx.future.addEvent(e);
+		ctx.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -533,9 +606,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void pause(int src, double delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext ctx = getContext();
+		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, ctx.clock + delay, src);
+		ctx.future.addEvent(e);
+		ctx.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -546,14 +620,17 @@ public class CloudSim {
 	 * @param delay the delay
 	 * @param tag the tag
 	 * @param data the data
+	 * @return the event, which can be used to cancel it
 	 */
-	public static void send(int src, int dest, double delay, int tag, Object data) {
+	public static SimEvent send(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext ctx = getContext();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEvent(e);
+		SimEvent e = new SimEvent(SimEvent.SEND, ctx.clock + delay, src, dest, tag, data);
+		ctx.future.addEvent(e);
+		return e;
 	}
 
 	/**
@@ -564,14 +641,17 @@ public class CloudSim {
 	 * @param delay the delay
 	 * @param tag the tag
 	 * @param data the data
+	 * @return the event, which can be used to cancel it
 	 */
-	public static void sendFirst(int src, int dest, double delay, int tag, Object data) {
+	public static SimEvent sendFirst(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext ctx = getContext();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEventFirst(e);
+		SimEvent e = new SimEvent(SimEvent.SEND, ctx.clock + delay, src, dest, tag, data);
+		ctx.future.addEventFirst(e);
+		return e;
 	}
 
 	/**
@@ -583,10 +663,11 @@ public class CloudSim {
 	 * @param p the p
 	 */
 	public static void wait(int src, Predicate p) {
-		entities.get(src).setState(SimEntity.WAITING);
+		SimulationContext ctx = getContext();
+		ctx.entities.get(src).setState(SimEntity.WAITING);
 		if (p != SIM_ANY) {
 			// If a predicate has been used store it in order to check it
-			waitPredicates.put(src, p);
+			ctx.waitPredicates.put(src, p);
 		}
 	}
 
@@ -598,55 +679,35 @@ public class CloudSim {
 	 * @return the int
 	 */
 	public static int waiting(int d, Predicate p) {
-		int count = 0;
-		SimEvent event;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if ((event.getDestination() == d) && (p.match(event))) {
-				count++;
-			}
-		}
-		return count;
+		return getContext().deferred.count(d, p);
 	}
 
 	/**
-	 * Selects an event matching a predicate.
+	 * Selects an event matching a predicate. If no event matches, the last event of the deferred
+	 * queue is returned without being removed.
 	 * 
 	 * @param src the src
 	 * @param p the p
 	 * @return the sim event
 	 */
 	public static SimEvent select(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				iterator.remove();
-				break;
-			}
-		}
-		return ev;
+		SimulationContext ctx = getContext();
+		SimEvent ev = ctx.deferred.select(src, p);
+		return ev != null ? ev : ctx.deferred.last();
 	}
 
 	/**
-	 * Find first deferred event matching a predicate.
+	 * Find first deferred event matching a predicate. If no event matches, the last event of the
+	 * deferred queue is returned.
 	 * 
 	 * @param src the src
 	 * @param p the p
 	 * @return the sim event
 	 */
 	public static SimEvent findFirstDeferred(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				break;
-			}
-		}
-		return ev;
+		SimulationContext ctx = getContext();
+		SimEvent ev = ctx.deferred.findFirst(src, p);
+		return ev != null ? ev : ctx.deferred.last();
 	}
 
 	/**
@@ -654,20 +715,35 @@ public class CloudSim {
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the cancelled event, or <tt>null</tt> if no event matched the predicate
 	 */
 	public static SimEvent cancel(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-				break;
-			}
-		}
+		return getContext().future.cancel(src, p);
+	}
 
-		return ev;
+	/**
+	 * Removes an event that has been returned by {@link #send(int, int, double, int, Object)} or
+	 * {@link #sendFirst(int, int, double, int, Object)} from the event queue.
+	 * 
+	 * @param ev the event
+	 * @return true, if the event was still in the event queue
+	 */
+	public static boolean cancel(SimEvent ev) {
+		return getContext().future.remove(ev);
+	}
+
+	/**
+	 * Removes the first event within a given time window that matches a given predicate from the
+	 * event queue.
+	 * 
+	 * @param src the src
+	 * @param from the earliest time of the event (inclusive)
+	 * @param to the latest time of the event (inclusive)
+	 * @param p the p
+	 * @return the cancelled event, or <tt>null</tt> if no event matched the predicate
+	 */
+	public static SimEvent cancel(int src, double from, double to, Predicate p) {
+		return getContext().future.cancel(src, from, to, p);
 	}
 
 	/**
@@ -679,16 +755,19 @@ public class CloudSim {
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int src, Predicate p) {
-		SimEvent ev = null;
-		int previousSize = future.size();
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-			}
-		}
-		return previousSize < future.size();
+		return getContext().future.cancelAll(src, p);
+	}
+
+	/**
+	 * Removes all events with a given tag from the future event queue returns true if at least one
+	 * event has been cancelled; false otherwise.
+	 * 
+	 * @param src the src
+	 * @param tag the tag
+	 * @return true, if successful
+	 */
+	public static boolean cancelAll(int src, int tag) {
+		return getContext().future.cancelAll(src, tag);
 	}
 
 	//
@@ -701,13 +780,14 @@ public class CloudSim {
 	 * @param e the e
 	 */
 	private static void processEvent(SimEvent e) {
+		SimulationContext ctx = getContext();
 		int dest, src;
 		SimEntity dest_ent;
 		// Update the system's clock
-		if (e.eventTime() < clock) {
+		if (e.eventTime() < ctx.clock) {
 			throw new IllegalArgumentException("Past event detected.");
 		}
-		clock = e.eventTime();
+		ctx.clock = e.eventTime();
 
 		// Ok now process it
 		switch (e.getType()) {
@@ -726,19 +806,21 @@ public class CloudSim {
 					throw new IllegalArgumentException("Attempt to send to a null entity detected.");
 				} else {
 					int tag = e.getTag();
-					dest_ent = entities.get(dest);
+					dest_ent = ctx.entities.get(dest);
 					if (dest_ent.getState() == SimEntity.WAITING) {
 						Integer destObj = Integer.valueOf(dest);
-						Predicate p = waitPredicates.get(destObj);
+						Predicate p = ctx.waitPredicates.get(destObj);
 						if ((p == null) || (tag == 9999) || (p.match(e))) {
 							dest_ent.setEventBuffer((SimEvent) e.clone());
 							dest_ent.setState(SimEntity.RUNNABLE);
-							waitPredicates.remove(destObj);
+							ctx.waitPredicates.remove(destObj);
 						} else {
-							deferred.addEvent(e);
+							ctx.deferred.addEvent(e);
+							ctx.activeEntities.set(dest);
 						}
 					} else {
-						deferred.addEvent(e);
+						ctx.deferred.addEvent(e);
+						ctx.activeEntities.set(dest);
 					}
 				}
 				break;
@@ -748,7 +830,7 @@ public class CloudSim {
 				if (src < 0) {
 					throw new IllegalArgumentException("Null entity holding.");
 				} else {
-					entities.get(src).setState(SimEntity.RUNNABLE);
+					ctx.entities.get(src).setState(SimEntity.RUNNABLE);
 				}
 				break;
 
@@ -762,9 +844,10 @@ public class CloudSim {
 	 * simulations.
 	 */
 	public static void runStart() {
-		running = true;
+		SimulationContext ctx = getContext();
+		ctx.running = true;
 		// Start all the entities
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : ctx.entities) {
 			ent.startEntity();
 		}
 
@@ -778,7 +861,7 @@ public class CloudSim {
 	 * @return if the simulation is still running, otherwise
 	 */
 	public static boolean running() {
-		return running;
+		return getContext().running;
 	}
 
 	/**
@@ -787,8 +870,9 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation() {
-		paused = true;
-		return paused;
+		SimulationContext ctx = getContext();
+		ctx.paused = true;
+		return ctx.paused;
 	}
 
 	/**
@@ -798,10 +882,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation(long time) {
-		if (time <= clock) {
+		SimulationContext ctx = getContext();
+		if (time <= ctx.clock) {
 			return false;
 		} else {
-			pauseAt = time;
+			ctx.pauseAt = time;
 		}
 		return true;
 	}
@@ -812,13 +897,14 @@ public class CloudSim {
 	 * @return if the simulation has been restarted or or otherwise.
 	 */
 	public static boolean resumeSimulation() {
-		paused = false;
+		SimulationContext ctx = getContext();
+		ctx.paused = false;
 
-		if (pauseAt <= clock) {
-			pauseAt = -1;
+		if (ctx.pauseAt <= ctx.clock) {
+			ctx.pauseAt = -1;
 		}
 
-		return !paused;
+		return !ctx.paused;
 	}
 
 	/**
@@ -828,29 +914,30 @@ public class CloudSim {
 	 * @return the double last clock value
 	 */
 	public static double run() {
-		if (!running) {
+		SimulationContext ctx = getContext();
+		if (!ctx.running) {
 			runStart();
 		}
 		while (true) {
-			if (runClockTick() || abruptTerminate) {
+			if (runClockTick() || ctx.abruptTerminate) {
 				break;
 			}
 
 			// this block allows termination of simulation at a specific time
-			if (terminateAt > 0.0 && clock >= terminateAt) {
+			if (ctx.terminateAt > 0.0 && ctx.clock >= ctx.terminateAt) {
 				terminateSimulation();
-				clock = terminateAt;
+				ctx.clock = ctx.terminateAt;
 				break;
 			}
 
-			if (pauseAt != -1
-					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.iterator().next()
-							.eventTime()) || future.size() == 0 && pauseAt <= clock)) {
+			if (ctx.pauseAt != -1
+					&& ((ctx.future.size() > 0 && ctx.clock <= ctx.pauseAt && ctx.pauseAt <= ctx.future.peek().eventTime()) || ctx.future
+							.size() == 0 && ctx.pauseAt <= ctx.clock)) {
 				pauseSimulation();
-				clock = pauseAt;
+				ctx.clock = ctx.pauseAt;
 			}
 
-			while (paused) {
+			while (ctx.paused) {
 				try {
 					Thread.sleep(100);
 				} catch (InterruptedException e) {
@@ -872,39 +959,41 @@ public class CloudSim {
 	 * in user simulations.
 	 */
 	public static void finishSimulation() {
+		SimulationContext ctx = getContext();
 		// Allow all entities to exit their body method
-		if (!abruptTerminate) {
-			for (SimEntity ent : entities) {
+		if (!ctx.abruptTerminate) {
+			for (SimEntity ent : ctx.entities) {
 				if (ent.getState() != SimEntity.FINISHED) {
 					ent.run();
 				}
 			}
 		}
 
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : ctx.entities) {
 			ent.shutdownEntity();
 		}
 
-		// reset all static variables
+		// reset all context variables
 		// Private data members
-		entities = null;
-		entitiesByName = null;
-		future = null;
-		deferred = null;
-		clock = 0L;
-		running = false;
+		ctx.entities = null;
+		ctx.entitiesByName = null;
+		ctx.future = null;
+		ctx.deferred = null;
+		ctx.activeEntities = null;
+		ctx.clock = 0L;
+		ctx.running = false;
 
-		waitPredicates = null;
-		paused = false;
-		pauseAt = -1;
-		abruptTerminate = false;
+		ctx.waitPredicates = null;
+		ctx.paused = false;
+		ctx.pauseAt = -1;
+		ctx.abruptTerminate = false;
 	}
 
 	/**
 	 * Abruptally terminate.
 	 */
 	public static void abruptallyTerminate() {
-		abruptTerminate = true;
+		getContext().abruptTerminate = true;
 	}
 
 	/**
@@ -922,7 +1011,7 @@ public class CloudSim {
 	 * @return true, if is paused
 	 */
 	public static boolean isPaused() {
-		return paused;
+		return getContext().paused;
 	}
 
 }
@@ -8,14 +8,26 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
- * This class implements the deferred event queue used by {@link Simulation}. The event queue uses a
- * linked list to store the events.
+ * This class implements the deferred event queue used by {@link Simulation}. The events are kept in
+ * one mailbox per destination entity, a linked list that is ordered by time, such that events for
+ * an entity can be looked up without scanning the events of all other entities. In addition, each
+ * mailbox counts its events by tag, which answers queries with a {@link PredicateType} without
+ * scanning the mailbox at all if no event has one of the requested tags.
  * 
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
@@ -24,11 +36,121 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/**
+	 * The deferred events of a single entity.
+	 */
+	private static class Mailbox {
+
+		/** The list. */
+		private final LinkedList<SimEvent> list = new LinkedList<SimEvent>();
+
+		/** The number of events by tag. */
+		private final Map<Integer, Integer> tagCounts = new HashMap<Integer, Integer>();
+
+		/** The max time. */
+		private double maxTime = -1;
+
+		private void add(SimEvent newEvent) {
+			// The event has to be inserted as the last of all events
+			// with the same event_time(). Yes, this matters.
+			double eventTime = newEvent.eventTime();
+			countTag(newEvent.getTag(), 1);
+			if (eventTime >= maxTime) {
+				list.add(newEvent);
+				maxTime = eventTime;
+				return;
+			}
+
+			ListIterator<SimEvent> iterator = list.listIterator();
+			SimEvent event;
+			while (iterator.hasNext()) {
+				event = iterator.next();
+				if (event.eventTime() > eventTime) {
+					iterator.previous();
+					iterator.add(newEvent);
+					return;
+				}
+			}
+
+			list.add(newEvent);
+		}
+
+		private boolean remove(SimEvent event) {
+			Iterator<SimEvent> iterator = list.iterator();
+			while (iterator.hasNext()) {
+				if (iterator.next() == event) {
+					iterator.remove();
+					countTag(event.getTag(), -1);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void countTag(int tag, int delta) {
+			Integer count = tagCounts.get(tag);
+			int newCount = (count == null ? 0 : count) + delta;
+			if (newCount == 0) {
+				tagCounts.remove(tag);
+			} else {
+				tagCounts.put(tag, newCount);
+			}
+		}
+
+		/**
+		 * Counts the events with any of the tags of a predicate.
+		 * 
+		 * @param p the predicate
+		 * @return the number of events
+		 */
+		private int countTags(PredicateType p) {
+			int[] tags = p.getTags();
+			int count = 0;
+			for (int i = 0; i < tags.length; i++) {
+				boolean duplicate = false;
+				for (int j = 0; j < i; j++) {
+					duplicate |= tags[j] == tags[i];
+				}
+				Integer tagCount = tagCounts.get(tags[i]);
+				if (!duplicate && tagCount != null) {
+					count += tagCount;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Returns the first event matching a predicate and optionally removes it.
+		 * 
+		 * @param p the predicate
+		 * @param remove whether the event is to be removed
+		 * @return the event, or <tt>null</tt> if no event matched
+		 */
+		private SimEvent first(Predicate p, boolean remove) {
+			if (p instanceof PredicateType && countTags((PredicateType) p) == 0) {
+				return null;
+			}
+			Iterator<SimEvent> iterator = list.iterator();
+			while (iterator.hasNext()) {
+				SimEvent event = iterator.next();
+				if (p.match(event)) {
+					if (remove) {
+						iterator.remove();
+						countTag(event.getTag(), -1);
+					}
+					return event;
+				}
+			}
+			return null;
+		}
 
-	/** The max time. */
-	private double maxTime = -1;
+	}
+
+	/** The mailboxes by the id of the destination entity. */
+	private final List<Mailbox> mailboxes = new ArrayList<Mailbox>();
+
+	/** The number of events in the queue. */
+	private int size = 0;
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
@@ -37,36 +159,130 @@ public class DeferredQueue {
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
-		// The event has to be inserted as the last of all events
-		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
+		int dest = newEvent.getDestination();
+		while (mailboxes.size() <= dest) {
+			mailboxes.add(new Mailbox());
 		}
+		mailboxes.get(dest).add(newEvent);
+		size++;
+	}
 
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
+	/**
+	 * Counts the events for an entity that match a predicate.
+	 * 
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of events
+	 */
+	public int count(int dest, Predicate p) {
+		Mailbox mailbox = getMailbox(dest);
+		if (mailbox == null) {
+			return 0;
+		}
+		if (p instanceof PredicateAny) {
+			return mailbox.list.size();
+		}
+		if (p instanceof PredicateType) {
+			return mailbox.countTags((PredicateType) p);
+		}
+		int count = 0;
+		for (SimEvent event : mailbox.list) {
+			if (p.match(event)) {
+				count++;
 			}
 		}
+		return count;
+	}
+
+	/**
+	 * Returns the first event for an entity that matches a predicate.
+	 * 
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matched
+	 */
+	public SimEvent findFirst(int dest, Predicate p) {
+		Mailbox mailbox = getMailbox(dest);
+		return mailbox == null ? null : mailbox.first(p, false);
+	}
 
-		list.add(newEvent);
+	/**
+	 * Removes and returns the first event for an entity that matches a predicate.
+	 * 
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matched
+	 */
+	public SimEvent select(int dest, Predicate p) {
+		Mailbox mailbox = getMailbox(dest);
+		if (mailbox == null) {
+			return null;
+		}
+		SimEvent event = mailbox.first(p, true);
+		if (event != null) {
+			size--;
+		}
+		return event;
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
+	 * Returns the last event of the queue, i.e., the latest event of all entities.
+	 * 
+	 * @return the event, or <tt>null</tt> if the queue is empty
+	 */
+	public SimEvent last() {
+		SimEvent last = null;
+		for (Mailbox mailbox : mailboxes) {
+			if (!mailbox.list.isEmpty() && (last == null || mailbox.list.getLast().compareTo(last) > 0)) {
+				last = mailbox.list.getLast();
+			}
+		}
+		return last;
+	}
+
+	/**
+	 * Returns an iterator to the events in the queue. The events of all entities are returned in
+	 * the order of their time.
 	 * 
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		final List<SimEvent> events = new ArrayList<SimEvent>(size);
+		for (Mailbox mailbox : mailboxes) {
+			events.addAll(mailbox.list);
+		}
+		Collections.sort(events);
+		return new Iterator<SimEvent>() {
+
+			private int next = 0;
+
+			private SimEvent current = null;
+
+			@Override
+			public boolean hasNext() {
+				return next < events.size();
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				current = events.get(next++);
+				return current;
+			}
+
+			@Override
+			public void remove() {
+				if (current == null) {
+					throw new IllegalStateException();
+				}
+				if (mailboxes.get(current.getDestination()).remove(current)) {
+					size--;
+				}
+				current = null;
+			}
+		};
 	}
 
 	/**
@@ -75,14 +291,25 @@ public class DeferredQueue {
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		mailboxes.clear();
+		size = 0;
+	}
+
+	/**
+	 * Gets the mailbox of an entity.
+	 * 
+	 * @param dest the id of the destination entity
+	 * @return the mailbox, or <tt>null</tt> if the entity has never received a deferred event
+	 */
+	private Mailbox getMailbox(int dest) {
+		return dest >= 0 && dest < mailboxes.size() ? mailboxes.get(dest) : null;
 	}
 
-}
\ No newline at end of file
+}
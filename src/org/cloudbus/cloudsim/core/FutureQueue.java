@@ -8,92 +8,532 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.SortedSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
 import java.util.TreeSet;
 
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
 /**
- * This class implements the future event queue used by {@link Simulation}. The event queue uses a
- * {@link TreeSet} in order to store the events.
- * 
+ * This class defines the future event queue used by {@link Simulation}. Events are ordered by
+ * their time and, for events occurring at the same time, by the serial number assigned to them
+ * when they are added to the queue. Subclasses provide the actual data structure in which the
+ * events are stored (e.g., {@link FutureQueueTreeSet}, {@link FutureQueueHeap},
+ * {@link FutureQueueCalendar} or {@link FutureQueueLadder}) and can be passed to
+ * {@link CloudSim#init(int, java.util.Calendar, boolean, FutureQueue)}.
+ * <p>
+ * In addition, the events of an entity are indexed once events of that entity are cancelled for
+ * the first time, and the indexed events with a given tag once events of the entity are cancelled
+ * by that tag for the first time. Building an index takes a single scan of the queue, after which
+ * events can be cancelled without scanning the whole queue: by tag in O(log n) per cancelled event,
+ * and by predicate or time window in O(log n + k), where k is the number of events from the same
+ * entity that have to be tested. Adding and removing events of entities that never cancel events
+ * does not touch any index. An event itself (as returned by
+ * {@link CloudSim#send(int, int, double, int, Object)}) can always be cancelled in O(log n). If
+ * lazy deletion is enabled, cancelled events are only marked as cancelled and left in the
+ * underlying data structure until they reach the head of the queue or make up the majority of the
+ * queue.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
- * @see java.util.TreeSet
+ * @see SimEvent
  */
-public class FutureQueue {
+public abstract class FutureQueue {
+
+	/** The minimum number of cancelled events that triggers their removal in lazy deletion mode. */
+	private static final int MIN_PURGE = 64;
+
+	/**
+	 * The events in the queue that have been sent by a single entity.
+	 */
+	private static class SourceIndex {
+
+		/** The events, in the order of the queue. */
+		private final TreeSet<SimEvent> events = new TreeSet<SimEvent>();
 
-	/** The sorted set. */
-	private final SortedSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+		/** The events by tag, for the tags by which events have been cancelled. */
+		private final Map<Integer, TreeSet<SimEvent>> eventsByTag = new HashMap<Integer, TreeSet<SimEvent>>();
+
+		private void add(SimEvent event) {
+			events.add(event);
+			if (!eventsByTag.isEmpty()) {
+				TreeSet<SimEvent> tagged = eventsByTag.get(event.getTag());
+				if (tagged != null) {
+					tagged.add(event);
+				}
+			}
+		}
+
+		private void remove(SimEvent event) {
+			events.remove(event);
+			if (!eventsByTag.isEmpty()) {
+				TreeSet<SimEvent> tagged = eventsByTag.get(event.getTag());
+				if (tagged != null) {
+					tagged.remove(event);
+				}
+			}
+		}
+
+		/**
+		 * Returns the events with a given tag, indexing them first if necessary.
+		 */
+		private TreeSet<SimEvent> getTagged(int tag) {
+			TreeSet<SimEvent> tagged = eventsByTag.get(tag);
+			if (tagged == null) {
+				tagged = new TreeSet<SimEvent>();
+				for (SimEvent event : events) {
+					if (event.getTag() == tag) {
+						tagged.add(event);
+					}
+				}
+				eventsByTag.put(tag, tagged);
+			}
+			return tagged;
+		}
+
+	}
 
 	/** The serial. */
 	private long serial = 0;
 
+	/** The serial of events added to the head of the queue. */
+	private long firstSerial = Long.MIN_VALUE;
+
+	/** The events in the queue by the id of the entity that sent them, for the indexed entities. */
+	private final Map<Integer, SourceIndex> sourceIndices = new HashMap<Integer, SourceIndex>();
+
+	/** The number of events in the queue, not counting cancelled events. */
+	private int size = 0;
+
+	/** Whether cancelled events are left in the underlying data structure. */
+	private boolean lazyDeletion = false;
+
+	/** The number of cancelled events in the underlying data structure. */
+	private int nCancelled = 0;
+
 	/**
 	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
 	 * the events in the queue.
-	 * 
+	 *
 	 * @param newEvent The event to be put in the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
+		prepare(newEvent);
 		newEvent.setSerial(serial++);
-		sortedSet.add(newEvent);
+		add(newEvent);
 	}
 
 	/**
-	 * Add a new event to the head of the queue.
-	 * 
+	 * Add a new event to the head of the queue, i.e., in front of all events with the same time
+	 * that have been added by {@link #addEvent(SimEvent)}. Several events added to the head of the
+	 * queue retain the order in which they were added.
+	 *
 	 * @param newEvent The event to be put in the queue.
 	 */
 	public void addEventFirst(SimEvent newEvent) {
-		newEvent.setSerial(0);
-		sortedSet.add(newEvent);
+		prepare(newEvent);
+		newEvent.setSerial(firstSerial++);
+		add(newEvent);
+	}
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	public SimEvent peek() {
+		SimEvent first = first();
+		while (first != null && first.isCancelled()) {
+			removeFirst();
+			nCancelled--;
+			first = first();
+		}
+		return first;
 	}
 
 	/**
-	 * Returns an iterator to the queue.
-	 * 
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	public SimEvent poll() {
+		if (peek() == null) {
+			return null;
+		}
+		SimEvent first = removeFirst();
+		first.setQueued(false);
+		unindex(first);
+		size--;
+		return first;
+	}
+
+	/**
+	 * Returns an iterator over a copy of the queue. The order in which the events are returned
+	 * depends on the underlying data structure. Calling <tt>remove()</tt> on the iterator removes
+	 * the current event from this queue.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return sortedSet.iterator();
+		List<SimEvent> events = new ArrayList<SimEvent>(size);
+		Iterator<SimEvent> iter = events();
+		while (iter.hasNext()) {
+			SimEvent event = iter.next();
+			if (!event.isCancelled()) {
+				events.add(event);
+			}
+		}
+		return snapshotIterator(events);
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the size
 	 */
 	public int size() {
-		return sortedSet.size();
+		return size;
 	}
 
 	/**
-	 * Removes the event from the queue.
-	 * 
+	 * Removes the event from the queue. The event is marked as cancelled.
+	 *
 	 * @param event the event
 	 * @return true, if successful
 	 */
 	public boolean remove(SimEvent event) {
-		return sortedSet.remove(event);
+		if (!event.isQueued()) {
+			return false;
+		}
+		event.setQueued(false);
+		unindex(event);
+		size--;
+		event.setCancelled(true);
+		if (lazyDeletion) {
+			nCancelled++;
+			if (nCancelled > Math.max(size, MIN_PURGE)) {
+				purge();
+			}
+		} else {
+			delete(event);
+		}
+		return true;
 	}
 
 	/**
 	 * Removes all the events from the queue.
-	 * 
+	 *
 	 * @param events the events
 	 * @return true, if successful
 	 */
 	public boolean removeAll(Collection<SimEvent> events) {
-		return sortedSet.removeAll(events);
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= remove(event);
+		}
+		return changed;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		sortedSet.clear();
+		Iterator<SimEvent> iter = events();
+		while (iter.hasNext()) {
+			iter.next().setQueued(false);
+		}
+		deleteAll();
+		sourceIndices.clear();
+		size = 0;
+		nCancelled = 0;
+	}
+
+	/**
+	 * Removes the first event (in the order of the queue) that has been sent by a given entity and
+	 * matches a given predicate.
+	 *
+	 * @param src the id of the entity that sent the event
+	 * @param p the predicate
+	 * @return the removed event, or <tt>null</tt> if no event matched
+	 */
+	public SimEvent cancel(int src, Predicate p) {
+		return cancelFirst(getSourceIndex(src).events, p);
+	}
+
+	/**
+	 * Removes the first event (in the order of the queue) that has been sent by a given entity,
+	 * occurs within a given time window and matches a given predicate. Only the events from the
+	 * entity within the time window are tested against the predicate.
+	 *
+	 * @param src the id of the entity that sent the event
+	 * @param from the earliest time of the event (inclusive)
+	 * @param to the latest time of the event (inclusive)
+	 * @param p the predicate
+	 * @return the removed event, or <tt>null</tt> if no event matched
+	 */
+	public SimEvent cancel(int src, double from, double to, Predicate p) {
+		if (from > to) {
+			return null;
+		}
+		SourceIndex index = getSourceIndex(src);
+		// no event is assigned the serial Long.MAX_VALUE, so the bounds sort after all events at
+		// the largest time below from and after all events at to, respectively
+		SimEvent lower = new SimEvent(SimEvent.ENULL, Math.nextAfter(from, Double.NEGATIVE_INFINITY), src);
+		lower.setSerial(Long.MAX_VALUE);
+		SimEvent upper = new SimEvent(SimEvent.ENULL, to, src);
+		upper.setSerial(Long.MAX_VALUE);
+		return cancelFirst(index.events.subSet(lower, false, upper, true), p);
+	}
+
+	/**
+	 * Removes all events that have been sent by a given entity and match a given predicate.
+	 *
+	 * @param src the id of the entity that sent the events
+	 * @param p the predicate
+	 * @return true, if at least one event has been removed
+	 */
+	public boolean cancelAll(int src, Predicate p) {
+		List<SimEvent> matches = new ArrayList<SimEvent>();
+		for (SimEvent ev : getSourceIndex(src).events) {
+			if (p.match(ev)) {
+				matches.add(ev);
+			}
+		}
+		return removeAll(matches);
+	}
+
+	/**
+	 * Removes all events that have been sent by a given entity and have a given tag.
+	 *
+	 * @param src the id of the entity that sent the events
+	 * @param tag the tag
+	 * @return true, if at least one event has been removed
+	 */
+	public boolean cancelAll(int src, int tag) {
+		TreeSet<SimEvent> tagged = getSourceIndex(src).getTagged(tag);
+		if (tagged.isEmpty()) {
+			return false;
+		}
+		return removeAll(new ArrayList<SimEvent>(tagged));
+	}
+
+	/**
+	 * Returns whether cancelled events are left in the underlying data structure.
+	 *
+	 * @return true, if lazy deletion is enabled
+	 */
+	public boolean isLazyDeletion() {
+		return lazyDeletion;
+	}
+
+	/**
+	 * Sets whether cancelled events are left in the underlying data structure until they reach the
+	 * head of the queue. This makes cancellation O(log n) regardless of the cost of removing an
+	 * arbitrary event from the underlying data structure, at the expense of memory.
+	 *
+	 * @param lazyDeletion true, if lazy deletion is to be enabled
+	 */
+	public void setLazyDeletion(boolean lazyDeletion) {
+		if (!lazyDeletion) {
+			purge();
+		}
+		this.lazyDeletion = lazyDeletion;
+	}
+
+	/**
+	 * Inserts an event, whose serial has already been set, into the underlying data structure.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	protected abstract void insert(SimEvent newEvent);
+
+	/**
+	 * Returns the first event of the underlying data structure without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the data structure is empty
+	 */
+	protected abstract SimEvent first();
+
+	/**
+	 * Removes and returns the first event of the underlying data structure.
+	 *
+	 * @return the first event, or <tt>null</tt> if the data structure is empty
+	 */
+	protected abstract SimEvent removeFirst();
+
+	/**
+	 * Removes an event from the underlying data structure.
+	 *
+	 * @param event the event
+	 * @return true, if the event has been found
+	 */
+	protected abstract boolean delete(SimEvent event);
+
+	/**
+	 * Removes all events from the underlying data structure.
+	 */
+	protected abstract void deleteAll();
+
+	/**
+	 * Returns an iterator over the events in the underlying data structure. The iterator is not
+	 * used to modify the data structure.
+	 *
+	 * @return the iterator
+	 */
+	protected abstract Iterator<SimEvent> events();
+
+	/**
+	 * Returns an iterator over a copy of (some of) the events in the queue. Calling
+	 * <tt>remove()</tt> on the iterator removes the current event from this queue.
+	 *
+	 * @param events the copied events
+	 * @return the iterator
+	 */
+	protected Iterator<SimEvent> snapshotIterator(final List<SimEvent> events) {
+		return new Iterator<SimEvent>() {
+
+			private int next = 0;
+
+			private SimEvent current = null;
+
+			@Override
+			public boolean hasNext() {
+				return next < events.size();
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				current = events.get(next++);
+				return current;
+			}
+
+			@Override
+			public void remove() {
+				if (current == null) {
+					throw new IllegalStateException();
+				}
+				FutureQueue.this.remove(current);
+				current = null;
+			}
+		};
+	}
+
+	/**
+	 * Makes sure that a previously cancelled event that is added again is not also contained in the
+	 * underlying data structure as a cancelled event.
+	 *
+	 * @param newEvent the event to be added
+	 */
+	private void prepare(SimEvent newEvent) {
+		if (newEvent.isCancelled()) {
+			if (lazyDeletion && delete(newEvent)) {
+				nCancelled--;
+			}
+			newEvent.setCancelled(false);
+		}
+	}
+
+	/**
+	 * Adds an event, whose serial has already been set, to the indices and the underlying data
+	 * structure.
+	 *
+	 * @param newEvent the event
+	 */
+	private void add(SimEvent newEvent) {
+		if (!sourceIndices.isEmpty()) {
+			SourceIndex index = sourceIndices.get(newEvent.getSource());
+			if (index != null) {
+				index.add(newEvent);
+			}
+		}
+		newEvent.setQueued(true);
+		insert(newEvent);
+		size++;
+	}
+
+	/**
+	 * Removes an event from the index of the entity that sent it, if that entity is indexed.
+	 *
+	 * @param event the event
+	 */
+	private void unindex(SimEvent event) {
+		if (!sourceIndices.isEmpty()) {
+			SourceIndex index = sourceIndices.get(event.getSource());
+			if (index != null) {
+				index.remove(event);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the events sent by a given entity. If the entity is not indexed yet, its
+	 * events are indexed by scanning the queue.
+	 *
+	 * @param src the id of the entity
+	 * @return the index
+	 */
+	private SourceIndex getSourceIndex(int src) {
+		SourceIndex index = sourceIndices.get(src);
+		if (index == null) {
+			index = new SourceIndex();
+			Iterator<SimEvent> iter = events();
+			while (iter.hasNext()) {
+				SimEvent event = iter.next();
+				if (event.getSource() == src && !event.isCancelled()) {
+					index.events.add(event);
+				}
+			}
+			sourceIndices.put(src, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Removes the first event of a set of indexed events that matches a given predicate.
+	 *
+	 * @param events the events, in the order of the queue
+	 * @param p the predicate
+	 * @return the removed event, or <tt>null</tt> if no event matched
+	 */
+	private SimEvent cancelFirst(NavigableSet<SimEvent> events, Predicate p) {
+		for (SimEvent ev : events) {
+			if (p.match(ev)) {
+				remove(ev);
+				return ev;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes all cancelled events from the underlying data structure.
+	 */
+	private void purge() {
+		if (nCancelled == 0) {
+			return;
+		}
+		List<SimEvent> cancelled = new ArrayList<SimEvent>(nCancelled);
+		Iterator<SimEvent> iter = events();
+		while (iter.hasNext()) {
+			SimEvent event = iter.next();
+			if (event.isCancelled()) {
+				cancelled.add(event);
+			}
+		}
+		for (SimEvent event : cancelled) {
+			delete(event);
+		}
+		nCancelled = 0;
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,246 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This class implements the future event queue as a calendar queue (R. Brown, "Calendar queues: a
+ * fast O(1) priority queue implementation for the simulation event set problem", CACM 31(10),
+ * 1988). Events are hashed by their time into an array of buckets ("days"), each of which covers a
+ * time interval of fixed width and is kept sorted. The number of buckets and their width are
+ * adapted whenever the number of events doubles or halves.
+ *
+ * @see FutureQueue
+ */
+public class FutureQueueCalendar extends FutureQueue {
+
+	/** The minimum number of buckets. */
+	private static final int MIN_BUCKETS = 2;
+
+	/** The maximum number of events sampled to determine the width of the buckets. */
+	private static final int SAMPLE_SIZE = 25;
+
+	/**
+	 * The buckets, whose number is always a power of two. Each bucket is sorted in descending
+	 * order, such that its first event can be removed from the end of the list.
+	 */
+	private List<List<SimEvent>> buckets;
+
+	/** The width of a bucket. */
+	private double width;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/**
+	 * The number of the (virtual, i.e., not wrapped around) bucket that is currently being
+	 * dequeued. No event in the queue belongs to a bucket with a lower number.
+	 */
+	private long currentBucket;
+
+	/** Whether resizing is currently enabled. */
+	private boolean resizeEnabled;
+
+	/**
+	 * Creates a new calendar queue.
+	 */
+	public FutureQueueCalendar() {
+		this(1d);
+	}
+
+	/**
+	 * Creates a new calendar queue.
+	 *
+	 * @param width the initial width of a bucket
+	 */
+	public FutureQueueCalendar(double width) {
+		if (width <= 0) {
+			throw new IllegalArgumentException("The width of a bucket must be greater than 0.");
+		}
+		init(MIN_BUCKETS, width, 0);
+		resizeEnabled = true;
+	}
+
+	@Override
+	protected void insert(SimEvent newEvent) {
+		long bucket = bucketOf(newEvent);
+		if (size == 0 || bucket < currentBucket) {
+			currentBucket = bucket;
+		}
+		List<SimEvent> list = buckets.get(index(bucket));
+		int pos = Collections.binarySearch(list, newEvent, Collections.reverseOrder());
+		list.add(pos < 0 ? -pos - 1 : pos, newEvent);
+		size++;
+		if (resizeEnabled && size > 2 * buckets.size()) {
+			resize(2 * buckets.size());
+		}
+	}
+
+	@Override
+	protected SimEvent first() {
+		List<SimEvent> list = firstBucket();
+		return list == null ? null : list.get(list.size() - 1);
+	}
+
+	@Override
+	protected SimEvent removeFirst() {
+		List<SimEvent> list = firstBucket();
+		if (list == null) {
+			return null;
+		}
+		SimEvent first = list.remove(list.size() - 1);
+		size--;
+		if (resizeEnabled && size < buckets.size() / 2 - 2) {
+			resize(buckets.size() / 2);
+		}
+		return first;
+	}
+
+	@Override
+	protected boolean delete(SimEvent event) {
+		List<SimEvent> list = buckets.get(index(bucketOf(event)));
+		int pos = Collections.binarySearch(list, event, Collections.reverseOrder());
+		if (pos < 0 || list.get(pos) != event) {
+			return false;
+		}
+		list.remove(pos);
+		size--;
+		if (resizeEnabled && size < buckets.size() / 2 - 2) {
+			resize(buckets.size() / 2);
+		}
+		return true;
+	}
+
+	@Override
+	protected void deleteAll() {
+		init(MIN_BUCKETS, width, 0);
+	}
+
+	@Override
+	protected Iterator<SimEvent> events() {
+		List<SimEvent> events = new ArrayList<SimEvent>(size);
+		for (List<SimEvent> list : buckets) {
+			events.addAll(list);
+		}
+		return events.iterator();
+	}
+
+	/**
+	 * Returns the bucket that contains the first event of the queue and advances the current
+	 * bucket to it.
+	 *
+	 * @return the bucket, or <tt>null</tt> if the queue is empty
+	 */
+	private List<SimEvent> firstBucket() {
+		if (size == 0) {
+			return null;
+		}
+
+		// search one year of the calendar, starting with the current bucket
+		int nBuckets = buckets.size();
+		for (int i = 0; i < nBuckets; i++) {
+			List<SimEvent> list = buckets.get(index(currentBucket));
+			if (!list.isEmpty() && bucketOf(list.get(list.size() - 1)) == currentBucket) {
+				return list;
+			}
+			currentBucket++;
+		}
+
+		// there is no event in the current year; do a direct search
+		SimEvent first = null;
+		for (List<SimEvent> list : buckets) {
+			if (!list.isEmpty() && (first == null || list.get(list.size() - 1).compareTo(first) < 0)) {
+				first = list.get(list.size() - 1);
+			}
+		}
+		currentBucket = bucketOf(first);
+		return buckets.get(index(currentBucket));
+	}
+
+	/**
+	 * Adapts the number of buckets and their width to the events in the queue.
+	 *
+	 * @param nBuckets the new number of buckets
+	 */
+	private void resize(int nBuckets) {
+		if (nBuckets < MIN_BUCKETS) {
+			return;
+		}
+		List<SimEvent> events = new ArrayList<SimEvent>(size);
+		for (List<SimEvent> list : buckets) {
+			events.addAll(list);
+		}
+		Collections.sort(events);
+
+		// the new width is three times the average gap between the first events, disregarding
+		// events that occur at the same time
+		double newWidth = width;
+		double gaps = 0;
+		int nGaps = 0;
+		for (int i = 1; i < Math.min(events.size(), SAMPLE_SIZE); i++) {
+			double gap = events.get(i).eventTime() - events.get(i - 1).eventTime();
+			if (gap > 0) {
+				gaps += gap;
+				nGaps++;
+			}
+		}
+		if (nGaps > 0) {
+			newWidth = 3 * gaps / nGaps;
+		}
+
+		init(nBuckets, newWidth, events.isEmpty() ? 0 : events.get(0).eventTime());
+		resizeEnabled = false;
+		for (SimEvent event : events) {
+			insert(event);
+		}
+		resizeEnabled = true;
+	}
+
+	/**
+	 * Initializes an empty calendar.
+	 *
+	 * @param nBuckets the number of buckets
+	 * @param width the width of a bucket
+	 * @param start the time at which the calendar starts
+	 */
+	private void init(int nBuckets, double width, double start) {
+		buckets = new ArrayList<List<SimEvent>>(nBuckets);
+		for (int i = 0; i < nBuckets; i++) {
+			buckets.add(new ArrayList<SimEvent>());
+		}
+		this.width = width;
+		size = 0;
+		currentBucket = (long) Math.floor(start / width);
+	}
+
+	/**
+	 * Returns the number of the (virtual) bucket an event belongs to.
+	 *
+	 * @param event the event
+	 * @return the bucket number
+	 */
+	private long bucketOf(SimEvent event) {
+		return (long) Math.floor(event.eventTime() / width);
+	}
+
+	/**
+	 * Returns the position of a (virtual) bucket in the array of buckets.
+	 *
+	 * @param bucket the bucket number
+	 * @return the position
+	 */
+	private int index(long bucket) {
+		return (int) (bucket & (buckets.size() - 1));
+	}
+
+}
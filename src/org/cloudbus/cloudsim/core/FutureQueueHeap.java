@@ -0,0 +1,171 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * This class implements the future event queue as an implicit d-ary heap stored in an array. Each
+ * event knows its position in the heap, so arbitrary events can be removed in O(d log_d n).
+ *
+ * @see FutureQueue
+ */
+public class FutureQueueHeap extends FutureQueue {
+
+	/** The default capacity of the heap. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The number of children of each node. */
+	private final int arity;
+
+	/** The heap. */
+	private SimEvent[] heap;
+
+	/** The number of events in the heap. */
+	private int size;
+
+	/**
+	 * Creates a new binary heap.
+	 */
+	public FutureQueueHeap() {
+		this(2);
+	}
+
+	/**
+	 * Creates a new d-ary heap.
+	 *
+	 * @param arity the number of children of each node
+	 */
+	public FutureQueueHeap(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("The arity of the heap must be at least 2.");
+		}
+		this.arity = arity;
+		heap = new SimEvent[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	@Override
+	protected void insert(SimEvent newEvent) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, heap.length * 2);
+		}
+		heap[size] = newEvent;
+		siftUp(size++);
+	}
+
+	@Override
+	protected SimEvent first() {
+		return size == 0 ? null : heap[0];
+	}
+
+	@Override
+	protected SimEvent removeFirst() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = heap[0];
+		removeAt(0);
+		return first;
+	}
+
+	@Override
+	protected boolean delete(SimEvent event) {
+		int i = event.getQueueIndex();
+		if (i < 0 || i >= size || heap[i] != event) {
+			return false;
+		}
+		removeAt(i);
+		return true;
+	}
+
+	@Override
+	protected void deleteAll() {
+		for (int i = 0; i < size; i++) {
+			heap[i].setQueueIndex(-1);
+			heap[i] = null;
+		}
+		size = 0;
+	}
+
+	@Override
+	protected Iterator<SimEvent> events() {
+		return Arrays.asList(heap).subList(0, size).iterator();
+	}
+
+	/**
+	 * Removes the event at a given position of the heap.
+	 *
+	 * @param i the position
+	 */
+	private void removeAt(int i) {
+		heap[i].setQueueIndex(-1);
+		SimEvent last = heap[--size];
+		heap[size] = null;
+		if (i < size) {
+			heap[i] = last;
+			siftDown(i);
+			if (heap[i] == last) {
+				siftUp(i);
+			}
+		}
+	}
+
+	/**
+	 * Moves the event at a given position up the heap until its parent precedes it.
+	 *
+	 * @param i the position
+	 */
+	private void siftUp(int i) {
+		SimEvent event = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) / arity;
+			if (event.compareTo(heap[parent]) >= 0) {
+				break;
+			}
+			heap[i] = heap[parent];
+			heap[i].setQueueIndex(i);
+			i = parent;
+		}
+		heap[i] = event;
+		event.setQueueIndex(i);
+	}
+
+	/**
+	 * Moves the event at a given position down the heap until it precedes all of its children.
+	 *
+	 * @param i the position
+	 */
+	private void siftDown(int i) {
+		SimEvent event = heap[i];
+		while (true) {
+			int child = arity * i + 1;
+			if (child >= size) {
+				break;
+			}
+			int min = child;
+			int end = Math.min(child + arity, size);
+			for (int j = child + 1; j < end; j++) {
+				if (heap[j].compareTo(heap[min]) < 0) {
+					min = j;
+				}
+			}
+			if (heap[min].compareTo(event) >= 0) {
+				break;
+			}
+			heap[i] = heap[min];
+			heap[i].setQueueIndex(i);
+			i = min;
+		}
+		heap[i] = event;
+		event.setQueueIndex(i);
+	}
+
+}
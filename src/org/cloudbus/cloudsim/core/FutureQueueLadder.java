@@ -0,0 +1,339 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This class implements the future event queue as a ladder queue (W. T. Tang, R. S. M. Goh and I.
+ * L.-J. Thng, "Ladder queue: An O(1) priority queue structure for large-scale discrete event
+ * simulation", ACM TOMACS 15(3), 2005). Events far in the future are kept unsorted in the
+ * <i>top</i> list. Whenever the <i>bottom</i> list, which is sorted and from which events are
+ * dequeued, runs empty, events are distributed over the buckets of a <i>ladder</i> of rungs, each
+ * rung subdividing one bucket of the rung above it, until the first non-empty bucket is small
+ * enough to be sorted into the bottom list.
+ *
+ * @see FutureQueue
+ */
+public class FutureQueueLadder extends FutureQueue {
+
+	/** The maximum number of events in a bucket that is sorted into the bottom list. */
+	private static final int THRESHOLD = 50;
+
+	/** The maximum number of rungs. */
+	private static final int MAX_RUNGS = 8;
+
+	/**
+	 * A rung of the ladder.
+	 */
+	private static class Rung {
+
+		/** The time at which the first bucket starts. */
+		private final double start;
+
+		/** The width of a bucket. */
+		private final double width;
+
+		/** The buckets (unsorted). */
+		private final List<List<SimEvent>> buckets;
+
+		/**
+		 * The position of the current bucket. No bucket before it contains any events. A rung is
+		 * removed from the ladder as soon as its last bucket has been processed.
+		 */
+		private int current;
+
+		private Rung(double start, double width, int nBuckets) {
+			this.start = start;
+			this.width = width;
+			buckets = new ArrayList<List<SimEvent>>(nBuckets);
+			for (int i = 0; i < nBuckets; i++) {
+				buckets.add(new ArrayList<SimEvent>());
+			}
+			current = 0;
+		}
+
+		/**
+		 * Returns the time at which the current bucket starts.
+		 *
+		 * @return the time
+		 */
+		private double currentStart() {
+			return start + current * width;
+		}
+
+		/**
+		 * Returns the time at which the last bucket ends.
+		 *
+		 * @return the time
+		 */
+		private double end() {
+			return start + buckets.size() * width;
+		}
+
+		/**
+		 * Returns the bucket an event belongs to. Events beyond the last bucket, which can only
+		 * occur due to rounding errors, are assigned to the last bucket.
+		 *
+		 * @param event the event
+		 * @return the bucket
+		 */
+		private List<SimEvent> bucketOf(SimEvent event) {
+			int i = (int) ((event.eventTime() - start) / width);
+			return buckets.get(Math.max(current, Math.min(i, buckets.size() - 1)));
+		}
+
+		private void add(SimEvent event) {
+			bucketOf(event).add(event);
+		}
+
+	}
+
+	/** The unsorted list of events that occur at or after {@link #topStart}. */
+	private final List<SimEvent> top;
+
+	/** The earliest time of an event in the top list. */
+	private double topMin;
+
+	/** The latest time of an event in the top list. */
+	private double topMax;
+
+	/** The time from which on events are added to the top list. */
+	private double topStart;
+
+	/** The rungs of the ladder, the first of which spans the widest range of time. */
+	private final List<Rung> rungs;
+
+	/**
+	 * The sorted list of the earliest events. It is sorted in descending order, such that its first
+	 * event can be removed from the end of the list.
+	 */
+	private final List<SimEvent> bottom;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/**
+	 * Creates a new ladder queue.
+	 */
+	public FutureQueueLadder() {
+		top = new ArrayList<SimEvent>();
+		rungs = new ArrayList<Rung>(MAX_RUNGS);
+		bottom = new ArrayList<SimEvent>();
+		deleteAll();
+	}
+
+	@Override
+	protected void insert(SimEvent newEvent) {
+		double time = newEvent.eventTime();
+		size++;
+		if (time >= topStart) {
+			if (top.isEmpty()) {
+				topMin = topMax = time;
+			} else {
+				topMin = Math.min(topMin, time);
+				topMax = Math.max(topMax, time);
+			}
+			top.add(newEvent);
+			return;
+		}
+		for (Rung rung : rungs) {
+			if (time >= rung.currentStart()) {
+				rung.add(newEvent);
+				return;
+			}
+		}
+		int pos = Collections.binarySearch(bottom, newEvent, Collections.reverseOrder());
+		bottom.add(pos < 0 ? -pos - 1 : pos, newEvent);
+	}
+
+	@Override
+	protected SimEvent first() {
+		if (!fillBottom()) {
+			return null;
+		}
+		return bottom.get(bottom.size() - 1);
+	}
+
+	@Override
+	protected SimEvent removeFirst() {
+		if (!fillBottom()) {
+			return null;
+		}
+		size--;
+		return bottom.remove(bottom.size() - 1);
+	}
+
+	@Override
+	protected boolean delete(SimEvent event) {
+		if (removeFromExpectedList(event) || removeFromAnyList(event)) {
+			size--;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	protected void deleteAll() {
+		top.clear();
+		topMin = topMax = topStart = 0;
+		rungs.clear();
+		bottom.clear();
+		size = 0;
+	}
+
+	@Override
+	protected Iterator<SimEvent> events() {
+		List<SimEvent> events = new ArrayList<SimEvent>(size);
+		events.addAll(bottom);
+		for (Rung rung : rungs) {
+			for (List<SimEvent> bucket : rung.buckets) {
+				events.addAll(bucket);
+			}
+		}
+		events.addAll(top);
+		return events.iterator();
+	}
+
+	/**
+	 * Makes sure that the bottom list contains the first event of the queue (unless the queue is
+	 * empty).
+	 *
+	 * @return true, if the bottom list is not empty
+	 */
+	private boolean fillBottom() {
+		while (bottom.isEmpty()) {
+			if (rungs.isEmpty()) {
+				if (top.isEmpty()) {
+					return false;
+				}
+				spawnFromTop();
+				continue;
+			}
+
+			// find the first non-empty bucket on the lowest rung
+			Rung rung = rungs.get(rungs.size() - 1);
+			while (rung.current < rung.buckets.size() && rung.buckets.get(rung.current).isEmpty()) {
+				rung.current++;
+			}
+			if (rung.current == rung.buckets.size()) {
+				rungs.remove(rungs.size() - 1);
+				continue;
+			}
+
+			List<SimEvent> bucket = rung.buckets.get(rung.current);
+			double childWidth = rung.width / bucket.size();
+			if (bucket.size() <= THRESHOLD || rungs.size() == MAX_RUNGS
+					|| rung.currentStart() + childWidth == rung.currentStart()) {
+				// sort the bucket into the bottom list
+				bottom.addAll(bucket);
+				Collections.sort(bottom, Collections.reverseOrder());
+			} else {
+				// subdivide the bucket into a new rung
+				Rung child = new Rung(rung.currentStart(), childWidth, bucket.size());
+				for (SimEvent event : bucket) {
+					child.add(event);
+				}
+				rungs.add(child);
+			}
+			bucket.clear();
+			rung.current++;
+			if (rung.current == rung.buckets.size()) {
+				rungs.remove(rung);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes an event from the list in which it is expected according to its time.
+	 *
+	 * @param event the event
+	 * @return true, if the event has been found
+	 */
+	private boolean removeFromExpectedList(SimEvent event) {
+		double time = event.eventTime();
+		if (time >= topStart) {
+			return removeUnsorted(top, event);
+		}
+		for (Rung rung : rungs) {
+			if (time >= rung.currentStart()) {
+				return rung.bucketOf(event).remove(event);
+			}
+		}
+		int pos = Collections.binarySearch(bottom, event, Collections.reverseOrder());
+		if (pos < 0 || bottom.get(pos) != event) {
+			return false;
+		}
+		bottom.remove(pos);
+		return true;
+	}
+
+	/**
+	 * Removes an event from whichever list contains it. This is only required if the event has been
+	 * put in an unexpected bucket due to rounding errors.
+	 *
+	 * @param event the event
+	 * @return true, if the event has been found
+	 */
+	private boolean removeFromAnyList(SimEvent event) {
+		if (removeUnsorted(top, event) || bottom.remove(event)) {
+			return true;
+		}
+		for (Rung rung : rungs) {
+			for (List<SimEvent> bucket : rung.buckets) {
+				if (bucket.remove(event)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes an event from a list whose order does not matter.
+	 *
+	 * @param list the list
+	 * @param event the event
+	 * @return true, if the event has been found
+	 */
+	private static boolean removeUnsorted(List<SimEvent> list, SimEvent event) {
+		int i = list.indexOf(event);
+		if (i < 0) {
+			return false;
+		}
+		list.set(i, list.get(list.size() - 1));
+		list.remove(list.size() - 1);
+		return true;
+	}
+
+	/**
+	 * Distributes the events of the top list over the buckets of a new first rung.
+	 */
+	private void spawnFromTop() {
+		if (topMax == topMin) {
+			// all events occur at the same time
+			bottom.addAll(top);
+			Collections.sort(bottom, Collections.reverseOrder());
+			topStart = Math.nextUp(topMax);
+		} else {
+			Rung rung = new Rung(topMin, (topMax - topMin) / top.size(), top.size() + 1);
+			for (SimEvent event : top) {
+				rung.add(event);
+			}
+			rungs.add(rung);
+			topStart = Math.max(rung.end(), Math.nextUp(topMax));
+		}
+		top.clear();
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Iterator;
+import java.util.TreeSet;
+
+/**
+ * This class implements the future event queue using a {@link TreeSet} in order to store the
+ * events. This is the original implementation of the future event queue in CloudSim.
+ *
+ * @author Marcos Dias de Assuncao
+ * @since CloudSim Toolkit 1.0
+ * @see FutureQueue
+ * @see java.util.TreeSet
+ */
+public class FutureQueueTreeSet extends FutureQueue {
+
+	/** The sorted set. */
+	private final TreeSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+
+	@Override
+	protected void insert(SimEvent newEvent) {
+		sortedSet.add(newEvent);
+	}
+
+	@Override
+	protected SimEvent first() {
+		return sortedSet.isEmpty() ? null : sortedSet.first();
+	}
+
+	@Override
+	protected SimEvent removeFirst() {
+		return sortedSet.pollFirst();
+	}
+
+	@Override
+	protected boolean delete(SimEvent event) {
+		return sortedSet.remove(event);
+	}
+
+	@Override
+	protected void deleteAll() {
+		sortedSet.clear();
+	}
+
+	/**
+	 * Returns an iterator over the events. Events are returned in the order of the queue.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	protected Iterator<SimEvent> events() {
+		return sortedSet.iterator();
+	}
+
+}
@@ -85,12 +85,13 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag An user-defined number representing the type of event.
 	 * @param data The data to be sent with the event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void schedule(int dest, double delay, int tag, Object data) {
+	public SimEvent schedule(int dest, double delay, int tag, Object data) {
 		if (!CloudSim.running()) {
-			return;
+			return null;
 		}
-		CloudSim.send(id, dest, delay, tag, data);
+		return CloudSim.send(id, dest, delay, tag, data);
 	}
 
 	/**
@@ -100,9 +101,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dest The unique id number of the destination entity
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag An user-defined number representing the type of event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void schedule(int dest, double delay, int tag) {
-		schedule(dest, delay, tag, null);
+	public SimEvent schedule(int dest, double delay, int tag) {
+		return schedule(dest, delay, tag, null);
 	}
 
 	/**
@@ -113,9 +115,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag An user-defined number representing the type of event.
 	 * @param data The data to be sent with the event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void schedule(String dest, double delay, int tag, Object data) {
-		schedule(CloudSim.getEntityId(dest), delay, tag, data);
+	public SimEvent schedule(String dest, double delay, int tag, Object data) {
+		return schedule(CloudSim.getEntityId(dest), delay, tag, data);
 	}
 
 	/**
@@ -125,9 +128,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dest The name of the port to send the event through
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag An user-defined number representing the type of event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void schedule(String dest, double delay, int tag) {
-		schedule(dest, delay, tag, null);
+	public SimEvent schedule(String dest, double delay, int tag) {
+		return schedule(dest, delay, tag, null);
 	}
 
 	/**
@@ -137,9 +141,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dest The unique id number of the destination entity
 	 * @param tag An user-defined number representing the type of event.
 	 * @param data The data to be sent with the event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleNow(int dest, int tag, Object data) {
-		schedule(dest, 0, tag, data);
+	public SimEvent scheduleNow(int dest, int tag, Object data) {
+		return schedule(dest, 0, tag, data);
 	}
 
 	/**
@@ -148,9 +153,10 @@ public abstract class SimEntity implements Cloneable {
 	 * 
 	 * @param dest The unique id number of the destination entity
 	 * @param tag An user-defined number representing the type of event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleNow(int dest, int tag) {
-		schedule(dest, 0, tag, null);
+	public SimEvent scheduleNow(int dest, int tag) {
+		return schedule(dest, 0, tag, null);
 	}
 
 	/**
@@ -160,9 +166,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dest The name of the port to send the event through
 	 * @param tag An user-defined number representing the type of event.
 	 * @param data The data to be sent with the event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleNow(String dest, int tag, Object data) {
-		schedule(CloudSim.getEntityId(dest), 0, tag, data);
+	public SimEvent scheduleNow(String dest, int tag, Object data) {
+		return schedule(CloudSim.getEntityId(dest), 0, tag, data);
 	}
 
 	/**
@@ -171,9 +178,10 @@ public abstract class SimEntity implements Cloneable {
 	 * 
 	 * @param dest The name of the port to send the event through
 	 * @param tag An user-defined number representing the type of event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleNow(String dest, int tag) {
-		schedule(dest, 0, tag, null);
+	public SimEvent scheduleNow(String dest, int tag) {
+		return schedule(dest, 0, tag, null);
 	}
 
 	/**
@@ -184,12 +192,13 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag An user-defined number representing the type of event.
 	 * @param data The data to be sent with the event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleFirst(int dest, double delay, int tag, Object data) {
+	public SimEvent scheduleFirst(int dest, double delay, int tag, Object data) {
 		if (!CloudSim.running()) {
-			return;
+			return null;
 		}
-		CloudSim.sendFirst(id, dest, delay, tag, data);
+		return CloudSim.sendFirst(id, dest, delay, tag, data);
 	}
 
 	/**
@@ -199,9 +208,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dest The unique id number of the destination entity
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag An user-defined number representing the type of event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleFirst(int dest, double delay, int tag) {
-		scheduleFirst(dest, delay, tag, null);
+	public SimEvent scheduleFirst(int dest, double delay, int tag) {
+		return scheduleFirst(dest, delay, tag, null);
 	}
 
 	/**
@@ -212,9 +222,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag An user-defined number representing the type of event.
 	 * @param data The data to be sent with the event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleFirst(String dest, double delay, int tag, Object data) {
-		scheduleFirst(CloudSim.getEntityId(dest), delay, tag, data);
+	public SimEvent scheduleFirst(String dest, double delay, int tag, Object data) {
+		return scheduleFirst(CloudSim.getEntityId(dest), delay, tag, data);
 	}
 
 	/**
@@ -224,9 +235,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dest The name of the port to send the event through
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag An user-defined number representing the type of event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleFirst(String dest, double delay, int tag) {
-		scheduleFirst(dest, delay, tag, null);
+	public SimEvent scheduleFirst(String dest, double delay, int tag) {
+		return scheduleFirst(dest, delay, tag, null);
 	}
 
 	/**
@@ -236,9 +248,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dest The unique id number of the destination entity
 	 * @param tag An user-defined number representing the type of event.
 	 * @param data The data to be sent with the event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleFirstNow(int dest, int tag, Object data) {
-		scheduleFirst(dest, 0, tag, data);
+	public SimEvent scheduleFirstNow(int dest, int tag, Object data) {
+		return scheduleFirst(dest, 0, tag, data);
 	}
 
 	/**
@@ -247,9 +260,10 @@ public abstract class SimEntity implements Cloneable {
 	 * 
 	 * @param dest The unique id number of the destination entity
 	 * @param tag An user-defined number representing the type of event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleFirstNow(int dest, int tag) {
-		scheduleFirst(dest, 0, tag, null);
+	public SimEvent scheduleFirstNow(int dest, int tag) {
+		return scheduleFirst(dest, 0, tag, null);
 	}
 
 	/**
@@ -259,9 +273,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dest The name of the port to send the event through
 	 * @param tag An user-defined number representing the type of event.
 	 * @param data The data to be sent with the event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleFirstNow(String dest, int tag, Object data) {
-		scheduleFirst(CloudSim.getEntityId(dest), 0, tag, data);
+	public SimEvent scheduleFirstNow(String dest, int tag, Object data) {
+		return scheduleFirst(CloudSim.getEntityId(dest), 0, tag, data);
 	}
 
 	/**
@@ -270,9 +285,10 @@ public abstract class SimEntity implements Cloneable {
 	 * 
 	 * @param dest The name of the port to send the event through
 	 * @param tag An user-defined number representing the type of event.
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 */
-	public void scheduleFirstNow(String dest, int tag) {
-		scheduleFirst(dest, 0, tag, null);
+	public SimEvent scheduleFirstNow(String dest, int tag) {
+		return scheduleFirst(dest, 0, tag, null);
 	}
 
 	/**
@@ -337,6 +353,38 @@ public abstract class SimEntity implements Cloneable {
 		return CloudSim.cancel(id, p);
 	}
 
+	/**
+	 * Cancel the first event matching a predicate within a given time window waiting in the
+	 * entity's future queue. Only the events within the time window are tested against the
+	 * predicate.
+	 * 
+	 * @param from The earliest time of the event (inclusive)
+	 * @param to The latest time of the event (inclusive)
+	 * @param p The event selection predicate
+	 * @return The cancelled event, or <tt>null</tt> if no event matched
+	 */
+	public SimEvent cancelEvent(double from, double to, Predicate p) {
+		if (!CloudSim.running()) {
+			return null;
+		}
+
+		return CloudSim.cancel(id, from, to, p);
+	}
+
+	/**
+	 * Cancel an event that has been sent by this entity.
+	 * 
+	 * @param ev The event returned by one of the schedule or send methods
+	 * @return <tt>true</tt>, if the event was still waiting in the future queue
+	 */
+	public boolean cancelEvent(SimEvent ev) {
+		if (!CloudSim.running() || ev == null || ev.getSource() != id) {
+			return false;
+		}
+
+		return CloudSim.cancel(ev);
+	}
+
 	/**
 	 * Get the first event matching a predicate from the deferred queue, or if none match, wait for
 	 * a matching event to arrive.
@@ -481,6 +529,9 @@ public abstract class SimEntity implements Cloneable {
 	 */
 	protected void setState(int state) {
 		this.state = state;
+		if (state == RUNNABLE) {
+			CloudSim.activateEntity(id);
+		}
 	}
 
 	/**
@@ -512,14 +563,15 @@ public abstract class SimEntity implements Cloneable {
 	 *            a negative number, then it will be changed to 0
 	 * @param cloudSimTag an user-defined number representing the type of an event/message
 	 * @param data A reference to data to be sent with the event
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 * @pre entityID > 0
 	 * @pre delay >= 0.0
 	 * @pre data != null
 	 * @post $none
 	 */
-	protected void send(int entityId, double delay, int cloudSimTag, Object data) {
+	protected SimEvent send(int entityId, double delay, int cloudSimTag, Object data) {
 		if (entityId < 0) {
-			return;
+			return null;
 		}
 
 		// if delay is -ve, then it doesn't make sense. So resets to 0.0
@@ -533,7 +585,7 @@ public abstract class SimEntity implements Cloneable {
 
 		if (entityId < 0) {
 			Log.printLine(getName() + ".send(): Error - " + "invalid entity id " + entityId);
-			return;
+			return null;
 		}
 
 		int srcId = getId();
@@ -541,7 +593,7 @@ public abstract class SimEntity implements Cloneable {
 			delay += getNetworkDelay(srcId, entityId);
 		}
 
-		schedule(entityId, delay, cloudSimTag, data);
+		return schedule(entityId, delay, cloudSimTag, data);
 	}
 
 	/**
@@ -552,12 +604,13 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay how long from the current simulation time the event should be sent. If delay is
 	 *            a negative number, then it will be changed to 0
 	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 * @pre entityID > 0
 	 * @pre delay >= 0.0
 	 * @post $none
 	 */
-	protected void send(int entityId, double delay, int cloudSimTag) {
-		send(entityId, delay, cloudSimTag, null);
+	protected SimEvent send(int entityId, double delay, int cloudSimTag) {
+		return send(entityId, delay, cloudSimTag, null);
 	}
 
 	/**
@@ -569,13 +622,14 @@ public abstract class SimEntity implements Cloneable {
 	 *            a negative number, then it will be changed to 0
 	 * @param cloudSimTag an user-defined number representing the type of an event/message
 	 * @param data A reference to data to be sent with the event
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 * @pre entityName != null
 	 * @pre delay >= 0.0
 	 * @pre data != null
 	 * @post $none
 	 */
-	protected void send(String entityName, double delay, int cloudSimTag, Object data) {
-		send(CloudSim.getEntityId(entityName), delay, cloudSimTag, data);
+	protected SimEvent send(String entityName, double delay, int cloudSimTag, Object data) {
+		return send(CloudSim.getEntityId(entityName), delay, cloudSimTag, data);
 	}
 
 	/**
@@ -586,12 +640,13 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay how long from the current simulation time the event should be sent. If delay is
 	 *            a negative number, then it will be changed to 0
 	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 * @pre entityName != null
 	 * @pre delay >= 0.0
 	 * @post $none
 	 */
-	protected void send(String entityName, double delay, int cloudSimTag) {
-		send(entityName, delay, cloudSimTag, null);
+	protected SimEvent send(String entityName, double delay, int cloudSimTag) {
+		return send(entityName, delay, cloudSimTag, null);
 	}
 
 	/**
@@ -603,13 +658,14 @@ public abstract class SimEntity implements Cloneable {
 	 *            a negative number, then it will be changed to 0
 	 * @param cloudSimTag an user-defined number representing the type of an event/message
 	 * @param data A reference to data to be sent with the event
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 * @pre entityID > 0
 	 * @pre delay >= 0.0
 	 * @pre data != null
 	 * @post $none
 	 */
-	protected void sendNow(int entityId, int cloudSimTag, Object data) {
-		send(entityId, 0, cloudSimTag, data);
+	protected SimEvent sendNow(int entityId, int cloudSimTag, Object data) {
+		return send(entityId, 0, cloudSimTag, data);
 	}
 
 	/**
@@ -620,12 +676,13 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay how long from the current simulation time the event should be sent. If delay is
 	 *            a negative number, then it will be changed to 0
 	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 * @pre entityID > 0
 	 * @pre delay >= 0.0
 	 * @post $none
 	 */
-	protected void sendNow(int entityId, int cloudSimTag) {
-		send(entityId, 0, cloudSimTag, null);
+	protected SimEvent sendNow(int entityId, int cloudSimTag) {
+		return send(entityId, 0, cloudSimTag, null);
 	}
 
 	/**
@@ -637,13 +694,14 @@ public abstract class SimEntity implements Cloneable {
 	 *            a negative number, then it will be changed to 0
 	 * @param cloudSimTag an user-defined number representing the type of an event/message
 	 * @param data A reference to data to be sent with the event
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 * @pre entityName != null
 	 * @pre delay >= 0.0
 	 * @pre data != null
 	 * @post $none
 	 */
-	protected void sendNow(String entityName, int cloudSimTag, Object data) {
-		send(CloudSim.getEntityId(entityName), 0, cloudSimTag, data);
+	protected SimEvent sendNow(String entityName, int cloudSimTag, Object data) {
+		return send(CloudSim.getEntityId(entityName), 0, cloudSimTag, data);
 	}
 
 	/**
@@ -654,12 +712,13 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay how long from the current simulation time the event should be sent. If delay is
 	 *            a negative number, then it will be changed to 0
 	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @return the event, or <tt>null</tt> if it has not been sent
 	 * @pre entityName != null
 	 * @pre delay >= 0.0
 	 * @post $none
 	 */
-	protected void sendNow(String entityName, int cloudSimTag) {
-		send(entityName, 0, cloudSimTag, null);
+	protected SimEvent sendNow(String entityName, int cloudSimTag) {
+		return send(entityName, 0, cloudSimTag, null);
 	}
 
 	/**
@@ -40,6 +40,15 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
 	private long serial = -1;
 
+	/** position of this event in the data structure of the future event queue **/
+	private int queueIndex = -1;
+
+	/** whether this event has been cancelled **/
+	private boolean cancelled = false;
+
+	/** whether this event is in the future event queue (and has not been cancelled) **/
+	private boolean queued = false;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -86,6 +95,35 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		this.serial = serial;
 	}
 
+	int getQueueIndex() {
+		return queueIndex;
+	}
+
+	void setQueueIndex(int queueIndex) {
+		this.queueIndex = queueIndex;
+	}
+
+	void setCancelled(boolean cancelled) {
+		this.cancelled = cancelled;
+	}
+
+	boolean isQueued() {
+		return queued;
+	}
+
+	void setQueued(boolean queued) {
+		this.queued = queued;
+	}
+
+	/**
+	 * Checks whether this event has been removed from the future event queue before it occurred.
+	 * 
+	 * @return true, if the event has been cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
 	/**
 	 * Used to set the time at which this event finished waiting in the event
 	 * 
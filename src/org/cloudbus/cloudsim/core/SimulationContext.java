@@ -0,0 +1,93 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * This class holds the state of a single simulation, i.e., its entities, event queues and clock.
+ * {@link CloudSim} keeps one context per thread and creates a new context whenever it is
+ * initialised, such that independent simulations can run in parallel in separate threads. Threads
+ * that are started by a simulation, e.g., to pause and resume it, inherit its context.
+ *
+ * @see CloudSim#getContext()
+ * @see CloudSim#setContext(SimulationContext)
+ */
+public class SimulationContext {
+
+	/** The id of CIS entity. */
+	int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	int shutdownId = -1;
+
+	/** The CIS object. */
+	CloudInformationService cis = null;
+
+	/** The trace flag. */
+	boolean traceFlag = false;
+
+	/** The calendar. */
+	Calendar calendar = null;
+
+	/** The termination time. */
+	double terminateAt = -1;
+
+	/** The entities. */
+	List<SimEntity> entities;
+
+	/** The future event queue. */
+	FutureQueue future;
+
+	/** The deferred event queue. */
+	DeferredQueue deferred;
+
+	/**
+	 * The ids of the entities that have become runnable or received a deferred event since they
+	 * have last been run. All other entities have no events to process.
+	 */
+	BitSet activeEntities;
+
+	/** The number of clock ticks. */
+	long clockTicks;
+
+	/** The number of times an entity has been run during a clock tick. */
+	long entityDispatches;
+
+	/** The simulation clock. */
+	double clock;
+
+	/** The id of the next cloudlet created for the simulation. */
+	int nextCloudletId;
+
+	/** Flag for checking if the simulation is running. */
+	boolean running;
+
+	/** The entities by name. */
+	Map<String, SimEntity> entitiesByName;
+
+	// The predicates used in entity wait methods
+	/** The wait predicates. */
+	Map<Integer, Predicate> waitPredicates;
+
+	/** The paused. */
+	volatile boolean paused = false;
+
+	/** The pause at. */
+	volatile long pauseAt = -1;
+
+	/** The abrupt terminate. */
+	volatile boolean abruptTerminate = false;
+
+}
@@ -58,4 +58,13 @@ public class PredicateType extends Predicate {
 		return false;
 	}
 
+	/**
+	 * Gets the tags selected by this predicate.
+	 * 
+	 * @return a copy of the tags
+	 */
+	public int[] getTags() {
+		return tags.clone();
+	}
+
 }
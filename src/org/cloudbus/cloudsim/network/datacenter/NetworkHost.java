@@ -102,6 +102,16 @@ public class NetworkHost extends Host {
 
 	}
 
+	/**
+	 * Packets are exchanged even if the host has no VMs.
+	 * 
+	 * @return true
+	 */
+	@Override
+	public boolean requiresVmsProcessing() {
+		return true;
+	}
+
 	/**
 	 * Receives packet and forward it to the corresponding VM for processing host.
 	 * 
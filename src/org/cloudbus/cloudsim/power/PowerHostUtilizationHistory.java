@@ -65,8 +65,9 @@ public class PowerHostUtilizationHistory extends PowerHost {
 		double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
 		double hostMips = getTotalMips();
 		for (PowerVm vm : this.<PowerVm> getVmList()) {
-			for (int i = 0; i < vm.getUtilizationHistory().size(); i++) {
-				utilizationHistory[i] += vm.getUtilizationHistory().get(i) * vm.getMips() / hostMips;
+			double[] vmUtilizationHistory = vm.getUtilizationHistoryValues();
+			for (int i = 0; i < vmUtilizationHistory.length; i++) {
+				utilizationHistory[i] += vmUtilizationHistory[i] * vm.getMips() / hostMips;
 			}
 		}
 		return MathUtil.trimZeroTail(utilizationHistory);
@@ -8,15 +8,13 @@
 
 package org.cloudbus.cloudsim.power;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
-import org.cloudbus.cloudsim.util.MathUtil;
-
-import flanagan.analysis.Stat;
+import org.cloudbus.cloudsim.util.MathUtil.SlidingWindow;
 
 /**
  * The class of a VM that stores its CPU utilization history. The history is used by VM allocation
@@ -38,8 +36,8 @@ public class PowerVm extends Vm {
 	/** The Constant HISTORY_LENGTH. */
 	public static final int HISTORY_LENGTH = 30;
 
-	/** The utilization history. */
-	private final List<Double> utilizationHistory = new LinkedList<Double>();
+	/** The utilization history, a ring of the last HISTORY_LENGTH values. */
+	private final SlidingWindow utilizationHistory = new SlidingWindow(HISTORY_LENGTH);
 
 	/** The previous time. */
 	private double previousTime;
@@ -109,20 +107,7 @@ public class PowerVm extends Vm {
 	 * @return the utilization mean in MIPS
 	 */
 	public double getUtilizationMad() {
-		double mad = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
-			double median = MathUtil.median(getUtilizationHistory());
-			double[] deviationSum = new double[n];
-			for (int i = 0; i < n; i++) {
-				deviationSum[i] = Math.abs(median - getUtilizationHistory().get(i));
-			}
-			mad = Stat.median(deviationSum);
-		}
-		return mad;
+		return utilizationHistory.mad();
 	}
 
 	/**
@@ -132,13 +117,11 @@ public class PowerVm extends Vm {
 	 */
 	public double getUtilizationMean() {
 		double mean = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
+		double[] utilizationHistory = getUtilizationHistoryValues();
+		if (utilizationHistory.length > 0) {
+			int n = utilizationHistory.length;
 			for (int i = 0; i < n; i++) {
-				mean += getUtilizationHistory().get(i);
+				mean += utilizationHistory[i];
 			}
 			mean /= n;
 		}
@@ -153,13 +136,11 @@ public class PowerVm extends Vm {
 	public double getUtilizationVariance() {
 		double mean = getUtilizationMean();
 		double variance = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
+		double[] utilizationHistory = getUtilizationHistoryValues();
+		if (utilizationHistory.length > 0) {
+			int n = utilizationHistory.length;
 			for (int i = 0; i < n; i++) {
-				double tmp = getUtilizationHistory().get(i) * getMips() - mean;
+				double tmp = utilizationHistory[i] * getMips() - mean;
 				variance += tmp * tmp;
 			}
 			variance /= n;
@@ -168,24 +149,39 @@ public class PowerVm extends Vm {
 	}
 
 	/**
-	 * Adds the utilization history value.
+	 * Adds the utilization history value. Every value is appended, even if the previous one was
+	 * added at the same simulation time. Once the history holds HISTORY_LENGTH values, the oldest
+	 * one is dropped.
 	 * 
 	 * @param utilization the utilization
 	 */
 	public void addUtilizationHistoryValue(double utilization) {
-		getUtilizationHistory().add(0, utilization);
-		if (getUtilizationHistory().size() > HISTORY_LENGTH) {
-			getUtilizationHistory().remove(HISTORY_LENGTH);
-		}
+		utilizationHistory.add(utilization);
 	}
 
 	/**
 	 * Gets the utilization history.
 	 * 
-	 * @return the utilization history
+	 * @return the utilization history, starting with the most recent value
 	 */
+	protected double[] getUtilizationHistoryValues() {
+		return utilizationHistory.getValuesReversed();
+	}
+
+	/**
+	 * Gets the utilization history.
+	 * 
+	 * @return a copy of the utilization history, starting with the most recent value
+	 * @deprecated use {@link #getUtilizationHistoryValues()}; the policies no longer call this method
+	 */
+	@Deprecated
 	protected List<Double> getUtilizationHistory() {
-		return utilizationHistory;
+		double[] values = getUtilizationHistoryValues();
+		List<Double> history = new ArrayList<Double>(values.length);
+		for (double value : values) {
+			history.add(value);
+		}
+		return history;
 	}
 
 	/**
@@ -15,6 +15,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.HostDynamicWorkload;
@@ -23,6 +26,7 @@ import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.power.lists.PowerVmList;
 import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
+import org.cloudbus.cloudsim.util.TimeSeries;
 
 /**
  * The class of an abstract power-aware VM allocation policy that dynamically optimizes the VM
@@ -41,20 +45,26 @@ import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
  */
 public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAllocationPolicyAbstract {
 
+	/** The number of hosts a task of the host evaluation pool evaluates without splitting. */
+	private static final int HOSTS_PER_TASK = 32;
+
 	/** The vm selection policy. */
 	private PowerVmSelectionPolicy vmSelectionPolicy;
 
 	/** The saved allocation. */
 	private final List<Map<String, Object>> savedAllocation = new ArrayList<Map<String, Object>>();
 
-	/** The utilization history. */
-	private final Map<Integer, List<Double>> utilizationHistory = new HashMap<Integer, List<Double>>();
+	/** The index of the utilization in the history of a host. */
+	public static final int UTILIZATION = 0;
+
+	/** The index of the metric in the history of a host. */
+	public static final int METRIC = 1;
 
-	/** The metric history. */
-	private final Map<Integer, List<Double>> metricHistory = new HashMap<Integer, List<Double>>();
+	/** The history of utilization and metric of each host. */
+	private final Map<Integer, TimeSeries> history = new ConcurrentHashMap<Integer, TimeSeries>();
 
-	/** The time history. */
-	private final Map<Integer, List<Double>> timeHistory = new HashMap<Integer, List<Double>>();
+	/** The pool on which hosts are evaluated in parallel, or null to evaluate them sequentially. */
+	private ForkJoinPool hostEvaluationPool;
 
 	/** The execution time history vm selection. */
 	private final List<Double> executionTimeHistoryVmSelection = new LinkedList<Double>();
@@ -209,33 +219,63 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @param excludedHosts the excluded hosts
 	 * @return the power host
 	 */
-	public PowerHost findHostForVm(Vm vm, Set<? extends Host> excludedHosts) {
+	public PowerHost findHostForVm(final Vm vm, final Set<? extends Host> excludedHosts) {
+		final List<PowerHost> hosts = new ArrayList<PowerHost>(this.<PowerHost> getHostList());
+		// NaN, if the VM cannot be allocated to the host
+		final double[] powerDiffs = new double[hosts.size()];
+		if (getHostEvaluationPool() != null) {
+			// utilization models may memoize the requests, which should happen before they are read
+			// concurrently
+			vm.getCurrentRequestedMips();
+			vm.getCurrentRequestedRam();
+			vm.getCurrentRequestedBw();
+		}
+		evaluateHosts(hosts.size(), new HostEvaluation() {
+
+			@Override
+			public void evaluate(int index) {
+				powerDiffs[index] = getPowerDiffAfterAllocation(hosts.get(index), vm, excludedHosts);
+			}
+
+		});
+
 		double minPower = Double.MAX_VALUE;
 		PowerHost allocatedHost = null;
+		for (int i = 0; i < powerDiffs.length; i++) {
+			if (powerDiffs[i] < minPower) {
+				minPower = powerDiffs[i];
+				allocatedHost = hosts.get(i);
+			}
+		}
+		return allocatedHost;
+	}
 
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) {
-				continue;
+	/**
+	 * Gets the difference in power consumption of a host if a vm is allocated to it.
+	 * 
+	 * @param host the host
+	 * @param vm the vm
+	 * @param excludedHosts the excluded hosts
+	 * @return the power difference, or NaN if the vm cannot be allocated to the host
+	 */
+	protected double getPowerDiffAfterAllocation(PowerHost host, Vm vm, Set<? extends Host> excludedHosts) {
+		if (excludedHosts.contains(host)) {
+			return Double.NaN;
+		}
+		if (host.isSuitableForVm(vm)) {
+			if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
+				return Double.NaN;
 			}
-			if (host.isSuitableForVm(vm)) {
-				if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
-					continue;
-				}
 
-				try {
-					double powerAfterAllocation = getPowerAfterAllocation(host, vm);
-					if (powerAfterAllocation != -1) {
-						double powerDiff = powerAfterAllocation - host.getPower();
-						if (powerDiff < minPower) {
-							minPower = powerDiff;
-							allocatedHost = host;
-						}
-					}
-				} catch (Exception e) {
+			try {
+				double powerAfterAllocation = getPowerAfterAllocation(host, vm);
+				if (powerAfterAllocation != -1) {
+					return powerAfterAllocation - host.getPower();
 				}
+			} catch (Exception e) {
 			}
 		}
-		return allocatedHost;
+		return Double.NaN;
 	}
 
 	/**
@@ -392,10 +432,22 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @return the over utilized hosts
 	 */
 	protected List<PowerHostUtilizationHistory> getOverUtilizedHosts() {
+		final List<PowerHostUtilizationHistory> hosts = new ArrayList<PowerHostUtilizationHistory>(
+				this.<PowerHostUtilizationHistory> getHostList());
+		final boolean[] overUtilized = new boolean[hosts.size()];
+		evaluateHosts(hosts.size(), new HostEvaluation() {
+
+			@Override
+			public void evaluate(int index) {
+				overUtilized[index] = isHostOverUtilized(hosts.get(index));
+			}
+
+		});
+
 		List<PowerHostUtilizationHistory> overUtilizedHosts = new LinkedList<PowerHostUtilizationHistory>();
-		for (PowerHostUtilizationHistory host : this.<PowerHostUtilizationHistory> getHostList()) {
-			if (isHostOverUtilized(host)) {
-				overUtilizedHosts.add(host);
+		for (int i = 0; i < overUtilized.length; i++) {
+			if (overUtilized[i]) {
+				overUtilizedHosts.add(hosts.get(i));
 			}
 		}
 		return overUtilizedHosts;
@@ -422,18 +474,32 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @param excludedHosts the excluded hosts
 	 * @return the under utilized host
 	 */
-	protected PowerHost getUnderUtilizedHost(Set<? extends Host> excludedHosts) {
+	protected PowerHost getUnderUtilizedHost(final Set<? extends Host> excludedHosts) {
+		final List<PowerHost> hosts = new ArrayList<PowerHost>(this.<PowerHost> getHostList());
+		// NaN, if the host is excluded or cannot be switched off
+		final double[] utilizations = new double[hosts.size()];
+		evaluateHosts(hosts.size(), new HostEvaluation() {
+
+			@Override
+			public void evaluate(int index) {
+				PowerHost host = hosts.get(index);
+				utilizations[index] = Double.NaN;
+				if (!excludedHosts.contains(host)) {
+					double utilization = host.getUtilizationOfCpu();
+					if (utilization > 0 && utilization < 1 && !areAllVmsMigratingOutOrAnyVmMigratingIn(host)) {
+						utilizations[index] = utilization;
+					}
+				}
+			}
+
+		});
+
 		double minUtilization = 1;
 		PowerHost underUtilizedHost = null;
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) {
-				continue;
-			}
-			double utilization = host.getUtilizationOfCpu();
-			if (utilization > 0 && utilization < minUtilization
-					&& !areAllVmsMigratingOutOrAnyVmMigratingIn(host)) {
-				minUtilization = utilization;
-				underUtilizedHost = host;
+		for (int i = 0; i < utilizations.length; i++) {
+			if (utilizations[i] < minUtilization) {
+				minUtilization = utilizations[i];
+				underUtilizedHost = hosts.get(i);
 			}
 		}
 		return underUtilizedHost;
@@ -457,6 +523,70 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		return true;
 	}
 
+	/**
+	 * Evaluates each host, either sequentially or in parallel on the host evaluation pool.
+	 * 
+	 * @param numberOfHosts the number of hosts
+	 * @param evaluation the evaluation
+	 */
+	protected void evaluateHosts(int numberOfHosts, HostEvaluation evaluation) {
+		if (getHostEvaluationPool() == null || numberOfHosts <= HOSTS_PER_TASK) {
+			for (int i = 0; i < numberOfHosts; i++) {
+				evaluation.evaluate(i);
+			}
+		} else {
+			getHostEvaluationPool().invoke(new HostEvaluationTask(evaluation, 0, numberOfHosts));
+		}
+	}
+
+	/**
+	 * The evaluation of a host, which stores its result by the index of the host. It may modify the
+	 * host temporarily, but must not modify any other host or the result of any other host.
+	 */
+	protected abstract static class HostEvaluation {
+
+		/**
+		 * Evaluates a host.
+		 * 
+		 * @param index the index of the host
+		 */
+		public abstract void evaluate(int index);
+
+	}
+
+	/**
+	 * A task of the host evaluation pool, which splits its range of hosts until it is small enough.
+	 */
+	private static class HostEvaluationTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final HostEvaluation evaluation;
+
+		private final int from;
+
+		private final int to;
+
+		public HostEvaluationTask(HostEvaluation evaluation, int from, int to) {
+			this.evaluation = evaluation;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= HOSTS_PER_TASK) {
+				for (int i = from; i < to; i++) {
+					evaluation.evaluate(i);
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new HostEvaluationTask(evaluation, from, middle), new HostEvaluationTask(evaluation, middle, to));
+			}
+		}
+
+	}
+
 	/**
 	 * Checks if is host over utilized.
 	 * 
@@ -472,20 +602,15 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @param metric the metric
 	 */
 	protected void addHistoryEntry(HostDynamicWorkload host, double metric) {
+		// hosts evaluated in parallel only ever add entries to their own history
 		int hostId = host.getId();
-		if (!getTimeHistory().containsKey(hostId)) {
-			getTimeHistory().put(hostId, new LinkedList<Double>());
-		}
-		if (!getUtilizationHistory().containsKey(hostId)) {
-			getUtilizationHistory().put(hostId, new LinkedList<Double>());
-		}
-		if (!getMetricHistory().containsKey(hostId)) {
-			getMetricHistory().put(hostId, new LinkedList<Double>());
+		if (!getHistory().containsKey(hostId)) {
+			getHistory().put(hostId, new TimeSeries(2));
 		}
-		if (!getTimeHistory().get(hostId).contains(CloudSim.clock())) {
-			getTimeHistory().get(hostId).add(CloudSim.clock());
-			getUtilizationHistory().get(hostId).add(host.getUtilizationOfCpu());
-			getMetricHistory().get(hostId).add(metric);
+		// only the first entry at a time is kept
+		TimeSeries hostHistory = getHistory().get(hostId);
+		if (hostHistory.isEmpty() || hostHistory.getLastTime() != CloudSim.clock()) {
+			hostHistory.add(CloudSim.clock(), host.getUtilizationOfCpu(), metric);
 		}
 	}
 
@@ -608,31 +733,87 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		return vmSelectionPolicy;
 	}
 
+	/**
+	 * Gets the history of utilization (at index {@link #UTILIZATION}) and metric (at index
+	 * {@link #METRIC}) of each host.
+	 * 
+	 * @return the history
+	 */
+	public Map<Integer, TimeSeries> getHistory() {
+		return history;
+	}
+
 	/**
 	 * Gets the utilization history.
 	 * 
-	 * @return the utilization history
+	 * @return a copy of the utilization history
+	 * @deprecated use {@link #getHistory()} and the values at index {@link #UTILIZATION}
 	 */
+	@Deprecated
 	public Map<Integer, List<Double>> getUtilizationHistory() {
-		return utilizationHistory;
+		return copyHistory(UTILIZATION);
 	}
 
 	/**
 	 * Gets the metric history.
 	 * 
-	 * @return the metric history
+	 * @return a copy of the metric history
+	 * @deprecated use {@link #getHistory()} and the values at index {@link #METRIC}
 	 */
+	@Deprecated
 	public Map<Integer, List<Double>> getMetricHistory() {
-		return metricHistory;
+		return copyHistory(METRIC);
 	}
 
 	/**
 	 * Gets the time history.
 	 * 
-	 * @return the time history
+	 * @return a copy of the time history
+	 * @deprecated use {@link #getHistory()} and the times of its samples
 	 */
+	@Deprecated
 	public Map<Integer, List<Double>> getTimeHistory() {
-		return timeHistory;
+		return copyHistory(-1);
+	}
+
+	/**
+	 * Copies the times or a value of the history of each host into lists.
+	 * 
+	 * @param value the index of the value, or -1 for the times
+	 * @return the lists by host id
+	 */
+	private Map<Integer, List<Double>> copyHistory(int value) {
+		Map<Integer, List<Double>> copy = new HashMap<Integer, List<Double>>();
+		for (Map.Entry<Integer, TimeSeries> entry : getHistory().entrySet()) {
+			TimeSeries hostHistory = entry.getValue();
+			List<Double> list = new ArrayList<Double>(hostHistory.size());
+			for (int i = 0; i < hostHistory.size(); i++) {
+				list.add(value < 0 ? hostHistory.getTime(i) : hostHistory.getValue(i, value));
+			}
+			copy.put(entry.getKey(), list);
+		}
+		return copy;
+	}
+
+	/**
+	 * Gets the pool on which hosts are evaluated in parallel.
+	 * 
+	 * @return the host evaluation pool, or null if hosts are evaluated sequentially
+	 */
+	public ForkJoinPool getHostEvaluationPool() {
+		return hostEvaluationPool;
+	}
+
+	/**
+	 * Sets the pool on which the over-utilized hosts, the hosts for migrating vms, and the
+	 * under-utilized hosts are searched for in parallel. The search evaluates all hosts
+	 * concurrently and then picks a host in the order of the host list, so the migration map is the
+	 * same as that of the sequential search.
+	 * 
+	 * @param hostEvaluationPool the host evaluation pool, or null to evaluate hosts sequentially
+	 */
+	public void setHostEvaluationPool(ForkJoinPool hostEvaluationPool) {
+		this.hostEvaluationPool = hostEvaluationPool;
 	}
 
 	/**
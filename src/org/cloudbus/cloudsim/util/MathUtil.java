@@ -11,7 +11,6 @@ package org.cloudbus.cloudsim.util;
 import java.util.Arrays;
 import java.util.List;
 
-import flanagan.analysis.Regression;
 import flanagan.analysis.Stat;
 
 /**
@@ -117,16 +116,9 @@ public class MathUtil {
 	 * @return the mad
 	 */
 	public static double mad(double[] data) {
-		double mad = 0;
-		if (data.length > 0) {
-			double median = Stat.median(data);
-			double[] deviationSum = new double[data.length];
-			for (int i = 0; i < data.length; i++) {
-				deviationSum[i] = Math.abs(median - data[i]);
-			}
-			mad = Stat.median(deviationSum);
-		}
-		return mad;
+		double[] sorted = Arrays.copyOf(data, data.length);
+		Arrays.sort(sorted);
+		return madOfSorted(sorted, sorted.length);
 	}
 
 	/**
@@ -137,9 +129,64 @@ public class MathUtil {
 	 */
 	public static double iqr(double[] data) {
 		Arrays.sort(data);
-		int q1 = (int) Math.round(0.25 * (data.length + 1)) - 1;
-		int q3 = (int) Math.round(0.75 * (data.length + 1)) - 1;
-		return data[q3] - data[q1];
+		return quantileOfSorted(data, data.length, 0.75) - quantileOfSorted(data, data.length, 0.25);
+	}
+
+	/**
+	 * Gets the median of the first n values of a sorted array.
+	 * 
+	 * @param sorted the sorted array
+	 * @param n the number of values
+	 * @return the median
+	 */
+	private static double medianOfSorted(double[] sorted, int n) {
+		if (n % 2 == 0) {
+			return (sorted[n / 2 - 1] + sorted[n / 2]) / 2.0;
+		}
+		return sorted[n / 2];
+	}
+
+	/**
+	 * Gets the MAD of the first n values of a sorted array. The absolute deviations from the median
+	 * are visited in ascending order by walking outwards from the median, so that they need not be
+	 * sorted themselves.
+	 * 
+	 * @param sorted the sorted array
+	 * @param n the number of values
+	 * @return the MAD
+	 */
+	private static double madOfSorted(double[] sorted, int n) {
+		if (n == 0) {
+			return 0;
+		}
+		double median = medianOfSorted(sorted, n);
+		int right = n / 2;
+		int left = right - 1;
+		double previous = 0;
+		double current = 0;
+		for (int rank = 0; rank <= n / 2; rank++) {
+			previous = current;
+			if (left < 0 || (right < n && Math.abs(median - sorted[right]) <= Math.abs(median - sorted[left]))) {
+				current = Math.abs(median - sorted[right++]);
+			} else {
+				current = Math.abs(median - sorted[left--]);
+			}
+		}
+		return n % 2 == 0 ? (previous + current) / 2.0 : current;
+	}
+
+	/**
+	 * Gets a quantile of the first n values of a sorted array. The quantile is the value at the
+	 * rank p * (n + 1), rounded to the closest integer.
+	 * 
+	 * @param sorted the sorted array
+	 * @param n the number of values
+	 * @param p the probability
+	 * @return the quantile
+	 */
+	private static double quantileOfSorted(double[] sorted, int n, double p) {
+		int rank = (int) Math.round(p * (n + 1)) - 1;
+		return sorted[Math.max(0, Math.min(n - 1, rank))];
 	}
 
 	/**
@@ -191,18 +238,7 @@ public class MathUtil {
 	 * @return the loess parameter estimates
 	 */
 	public static double[] getLoessParameterEstimates(double[] y) {
-		int n = y.length;
-		double[] x = new double[n];
-		for (int i = 0; i < n; i++) {
-			x[i] = i + 1;
-		}
-		Regression regression = new Regression(x, y, getTricubeWeigts(n));
-		regression.linear();
-		double[] estimates = regression.getBestEstimates();
-		if (estimates[0] == Double.NaN || estimates[1] == Double.NaN) {
-			return regression.getBestEstimates();
-		}
-		return estimates;
+		return getWeightedLinearEstimates(y, getTricubeWeigts(y.length));
 	}
 
 	/**
@@ -213,19 +249,44 @@ public class MathUtil {
 	 */
 	public static double[] getRobustLoessParameterEstimates(double[] y) {
 		int n = y.length;
-		double[] x = new double[n];
+		double[] estimates = getWeightedLinearEstimates(y, getTricubeWeigts(n));
+		double[] residuals = new double[n];
+		for (int i = 0; i < n; i++) {
+			residuals[i] = y[i] - (estimates[0] + estimates[1] * (i + 1));
+		}
+		return getWeightedLinearEstimates(y, getTricubeBisquareWeigts(residuals));
+	}
+
+	/**
+	 * Gets the parameter estimates of a weighted linear regression of y over x = 1, ..., n. The
+	 * weights are standard deviations, i.e., each squared residual is divided by the square of its
+	 * weight. The regression is solved in closed form from its weighted sums, which takes O(n) time.
+	 * 
+	 * @param y the y
+	 * @param weights the weights
+	 * @return the intercept and the slope
+	 * @throws IllegalArgumentException if the regression has less than three values or is singular
+	 */
+	public static double[] getWeightedLinearEstimates(double[] y, double[] weights) {
+		int n = y.length;
+		if (n < 3) { // the degrees of freedom must be greater than zero
+			throw new IllegalArgumentException("A linear regression requires at least three values, but got " + n);
+		}
+		double sw = 0, swx = 0, swxx = 0, swy = 0, swxy = 0;
 		for (int i = 0; i < n; i++) {
-			x[i] = i + 1;
+			double w = 1 / (weights[i] * weights[i]);
+			double x = i + 1;
+			sw += w;
+			swx += w * x;
+			swxx += w * x * x;
+			swy += w * y[i];
+			swxy += w * x * y[i];
 		}
-		Regression regression = new Regression(x, y, getTricubeWeigts(n));
-		regression.linear();
-		Regression regression2 = new Regression(x, y, getTricubeBisquareWeigts(regression.getResiduals()));
-		regression2.linear();
-		double[] estimates = regression2.getBestEstimates();
-		if (estimates[0] == Double.NaN || estimates[1] == Double.NaN) {
-			return regression.getBestEstimates();
+		double determinant = sw * swxx - swx * swx;
+		if (determinant == 0 || Double.isNaN(determinant)) {
+			throw new IllegalArgumentException("The linear regression is singular");
 		}
-		return estimates;
+		return new double[] { (swxx * swy - swx * swxy) / determinant, (sw * swxy - swx * swy) / determinant };
 	}
 
 	/**
@@ -287,4 +348,119 @@ public class MathUtil {
 		return result;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * A sliding window over a stream of values that maintains their order statistics. Besides the
+	 * values in order of arrival, the window keeps them sorted, so that adding a value (and evicting
+	 * the oldest one) takes a binary search and a shift of the sorted values, the median and
+	 * quantiles take constant time, and the MAD takes linear time without any sorting.
+	 */
+	public static class SlidingWindow {
+
+		/** The values in order of arrival, starting at the position of the oldest value. */
+		private final double[] values;
+
+		/** The values in ascending order. */
+		private final double[] sorted;
+
+		/** The position of the oldest value. */
+		private int start;
+
+		/** The number of values. */
+		private int size;
+
+		/**
+		 * Instantiates a new sliding window.
+		 * 
+		 * @param capacity the maximum number of values
+		 */
+		public SlidingWindow(int capacity) {
+			values = new double[capacity];
+			sorted = new double[capacity];
+		}
+
+		/**
+		 * Adds a value. If the window is full, the oldest value is evicted.
+		 * 
+		 * @param value the value
+		 */
+		public void add(double value) {
+			if (size == values.length) {
+				int i = Arrays.binarySearch(sorted, 0, size, values[start]);
+				System.arraycopy(sorted, i + 1, sorted, i, size - i - 1);
+				values[start] = value;
+				start = (start + 1) % values.length;
+				size--;
+			} else {
+				values[(start + size) % values.length] = value;
+			}
+			int i = Arrays.binarySearch(sorted, 0, size, value);
+			if (i < 0) {
+				i = -i - 1;
+			}
+			System.arraycopy(sorted, i, sorted, i + 1, size - i);
+			sorted[i] = value;
+			size++;
+		}
+
+		/**
+		 * Gets the number of values.
+		 * 
+		 * @return the number of values
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Gets the median.
+		 * 
+		 * @return the median
+		 */
+		public double median() {
+			return medianOfSorted(sorted, size);
+		}
+
+		/**
+		 * Gets the MAD, which is 0 if the window is empty.
+		 * 
+		 * @return the MAD
+		 */
+		public double mad() {
+			return madOfSorted(sorted, size);
+		}
+
+		/**
+		 * Gets a quantile as defined by {@link MathUtil#iqr(double[])}.
+		 * 
+		 * @param p the probability
+		 * @return the quantile
+		 */
+		public double quantile(double p) {
+			return quantileOfSorted(sorted, size, p);
+		}
+
+		/**
+		 * Gets the IQR.
+		 * 
+		 * @return the IQR
+		 */
+		public double iqr() {
+			return quantile(0.75) - quantile(0.25);
+		}
+
+		/**
+		 * Gets the values.
+		 * 
+		 * @return the values, starting with the most recent one
+		 */
+		public double[] getValuesReversed() {
+			double[] reversed = new double[size];
+			for (int i = 0; i < size; i++) {
+				reversed[i] = values[(start + size - 1 - i) % values.length];
+			}
+			return reversed;
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,271 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A series of samples, each of which consists of a time and a fixed number of values.
+ * The samples are stored in chunks of primitive doubles, so that long simulations do not create an
+ * object per sample. A series can be bounded to a capacity, in which case it keeps only the most
+ * recent samples like a ring buffer. It can also be downsampled to a minimum interval, in which
+ * case a sample less than the interval after the last sample of the series overwrites the values
+ * of the latter. In any case, a sample at the same time as the last sample overwrites its values,
+ * so a series does not suit histories that must keep every value, such as the utilization
+ * history of a {@link org.cloudbus.cloudsim.power.PowerVm}.
+ *
+ * @since CloudSim Toolkit 3.0
+ */
+public class TimeSeries {
+
+	/** The number of samples per chunk. */
+	private static final int CHUNK_SIZE = 256;
+
+	/** The number of values per sample. */
+	private final int numberOfValues;
+
+	/** The maximum number of samples, or 0 if the series is unbounded. */
+	private final int capacity;
+
+	/** The minimum interval between two samples. */
+	private final double minInterval;
+
+	/** The number of samples per chunk. */
+	private final int chunkSize;
+
+	/** The chunks; each holds the time followed by the values of each of its samples. */
+	private final List<double[]> chunks = new ArrayList<double[]>();
+
+	/** The position of the oldest sample, which is 0 unless a bounded series has wrapped around. */
+	private int start;
+
+	/** The number of samples. */
+	private int size;
+
+	/**
+	 * Instantiates a new unbounded time series.
+	 *
+	 * @param numberOfValues the number of values per sample
+	 */
+	public TimeSeries(int numberOfValues) {
+		this(numberOfValues, 0, 0);
+	}
+
+	/**
+	 * Instantiates a new time series.
+	 *
+	 * @param numberOfValues the number of values per sample
+	 * @param capacity the maximum number of samples kept, or 0 to keep all samples
+	 * @param minInterval the minimum interval between two samples, or 0 to keep samples at any
+	 *            distinct time
+	 */
+	public TimeSeries(int numberOfValues, int capacity, double minInterval) {
+		if (numberOfValues < 1 || capacity < 0 || minInterval < 0) {
+			throw new IllegalArgumentException("Invalid time series of " + numberOfValues + " values, capacity "
+					+ capacity + ", and minimum interval " + minInterval);
+		}
+		this.numberOfValues = numberOfValues;
+		this.capacity = capacity;
+		this.minInterval = minInterval;
+		chunkSize = capacity > 0 ? Math.min(capacity, CHUNK_SIZE) : CHUNK_SIZE;
+	}
+
+	/**
+	 * Adds a sample. If the sample is at the same time as, or less than the minimum interval after,
+	 * the last sample, it overwrites the values of the latter instead. If a bounded series is full,
+	 * the oldest sample is dropped.
+	 *
+	 * @param time the time
+	 * @param values the values
+	 */
+	public void add(double time, double... values) {
+		if (values.length != numberOfValues) {
+			throw new IllegalArgumentException("Expected " + numberOfValues + " values, but got " + values.length);
+		}
+		if (size > 0) {
+			double lastTime = getLastTime();
+			if (time == lastTime || (time > lastTime && time - lastTime < minInterval)) {
+				set(size - 1, lastTime, values);
+				return;
+			}
+		}
+		if (size == capacity && capacity > 0) {
+			start = (start + 1) % capacity;
+		} else {
+			size++;
+		}
+		set(size - 1, time, values);
+	}
+
+	/**
+	 * Gets the number of samples.
+	 *
+	 * @return the number of samples
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the series has no samples.
+	 *
+	 * @return true, if the series has no samples
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the number of values per sample.
+	 *
+	 * @return the number of values per sample
+	 */
+	public int getNumberOfValues() {
+		return numberOfValues;
+	}
+
+	/**
+	 * Gets the time of a sample.
+	 *
+	 * @param index the index of the sample, starting with the oldest one
+	 * @return the time
+	 */
+	public double getTime(int index) {
+		checkIndex(index);
+		int position = getPosition(index);
+		return chunks.get(position / chunkSize)[(position % chunkSize) * (numberOfValues + 1)];
+	}
+
+	/**
+	 * Gets a value of a sample.
+	 *
+	 * @param index the index of the sample, starting with the oldest one
+	 * @param value the index of the value
+	 * @return the value
+	 */
+	public double getValue(int index, int value) {
+		checkIndex(index);
+		if (value < 0 || value >= numberOfValues) {
+			throw new IndexOutOfBoundsException("Value " + value + " of " + numberOfValues);
+		}
+		int position = getPosition(index);
+		return chunks.get(position / chunkSize)[(position % chunkSize) * (numberOfValues + 1) + 1 + value];
+	}
+
+	/**
+	 * Gets the time of the last sample.
+	 *
+	 * @return the time of the last sample
+	 */
+	public double getLastTime() {
+		return getTime(size - 1);
+	}
+
+	/**
+	 * Gets a value of the last sample.
+	 *
+	 * @param value the index of the value
+	 * @return the value of the last sample
+	 */
+	public double getLastValue(int value) {
+		return getValue(size - 1, value);
+	}
+
+	/**
+	 * Gets the times of the samples.
+	 *
+	 * @return the times, starting with the oldest one
+	 */
+	public double[] getTimes() {
+		double[] times = new double[size];
+		for (int i = 0; i < size; i++) {
+			times[i] = getTime(i);
+		}
+		return times;
+	}
+
+	/**
+	 * Gets a value of the samples.
+	 *
+	 * @param value the index of the value
+	 * @return the values, starting with the one of the oldest sample
+	 */
+	public double[] getValues(int value) {
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = getValue(i, value);
+		}
+		return values;
+	}
+
+	/**
+	 * Gets a value of the most recent samples.
+	 *
+	 * @param value the index of the value
+	 * @return the values, starting with the one of the most recent sample
+	 */
+	public double[] getValuesReversed(int value) {
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = getValue(size - 1 - i, value);
+		}
+		return values;
+	}
+
+	/**
+	 * Removes all samples.
+	 */
+	public void clear() {
+		chunks.clear();
+		start = 0;
+		size = 0;
+	}
+
+	/**
+	 * Sets the time and values of a sample, allocating its chunk if necessary.
+	 *
+	 * @param index the index of the sample
+	 * @param time the time
+	 * @param values the values
+	 */
+	private void set(int index, double time, double[] values) {
+		int position = getPosition(index);
+		int chunk = position / chunkSize;
+		if (chunk == chunks.size()) {
+			chunks.add(new double[chunkSize * (numberOfValues + 1)]);
+		}
+		double[] data = chunks.get(chunk);
+		int offset = (position % chunkSize) * (numberOfValues + 1);
+		data[offset] = time;
+		System.arraycopy(values, 0, data, offset + 1, numberOfValues);
+	}
+
+	/**
+	 * Gets the position of a sample in the chunks.
+	 *
+	 * @param index the index of the sample
+	 * @return the position
+	 */
+	private int getPosition(int index) {
+		return capacity > 0 ? (start + index) % capacity : index;
+	}
+
+	/**
+	 * Checks the index of a sample.
+	 *
+	 * @param index the index of the sample
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Sample " + index + " of " + size);
+		}
+	}
+
+}